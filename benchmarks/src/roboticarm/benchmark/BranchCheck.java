@@ -0,0 +1,83 @@
+package roboticarm.benchmark;
+
+import org.dyn4j.dynamics.Body;
+import org.dyn4j.dynamics.World;
+import roboticarm.simulation.ArmJoint;
+import roboticarm.simulation.ArmModel;
+import roboticarm.simulation.SimulationThread;
+import roboticarm.simulation.StressScene;
+import roboticarm.simulation.WorldState;
+
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Captures the state of a running stress scene through the simulation thread and branches two what-if arms from it.
+ * Exits with status 1 when a branch does not start at the captured poses or when the two branches do not step the
+ * same way. Runs without JavaFX.
+ * <pre>
+ * java roboticarm.benchmark.BranchCheck
+ * </pre>
+ *
+ * @since 2026-10-17
+ */
+public class BranchCheck {
+    private static final int PARTS = 200;
+    private static final long SEED = 1;
+    private static final double STEP_RATE = 240;
+    private static final int STEPS = 480;
+    private static final long RUN_MILLIS = 500;
+    // Setting the rotation of a transform rounds its translation slightly
+    private static final double TOLERANCE = 1e-9;
+
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
+        Supplier<ArmModel> scene = () -> {
+            ArmModel model = new ArmModel();
+            StressScene.populate(model, PARTS, SEED);
+            return model;
+        };
+        ArmModel original = scene.get();
+        for (ArmJoint joint : ArmJoint.values()) original.setMotorSpeed(joint, joint.isPrismatic() ? 1 : 0.5);
+
+        SimulationThread simulation = new SimulationThread(original, STEP_RATE, 8, 64);
+        simulation.start();
+        Thread.sleep(RUN_MILLIS);
+        WorldState state = simulation.captureState().get();
+        simulation.stop();
+
+        ArmModel first = state.branch(scene);
+        ArmModel second = state.branch(scene);
+        double start = 0;
+        for (int i = 0; i < state.getBodyCount(); i++) {
+            Body body = first.getWorld().getBody(i);
+            start = Math.max(start, Math.hypot(body.getTransform().getTranslationX() - state.getX(i),
+                    body.getTransform().getTranslationY() - state.getY(i)));
+        }
+        System.out.println(String.format(Locale.ROOT, "Bodies: %d, captured at step %d, branch starts %.3g m off",
+                state.getBodyCount(), state.getStep(), start));
+        boolean passed = state.getBodyCount() == original.getWorld().getBodyCount() && start < TOLERANCE;
+
+        for (int i = 0; i < STEPS; i++) {
+            first.step(1 / STEP_RATE);
+            second.step(1 / STEP_RATE);
+        }
+        double branches = distance(first.getWorld(), second.getWorld());
+        System.out.println(String.format(Locale.ROOT, "Branches after %d steps differ by %.3g m", STEPS, branches));
+        passed &= branches == 0;
+        System.exit(passed ? 0 : 1);
+    }
+
+    /**
+     * @return the largest distance between bodies at the same index
+     */
+    private static double distance(World a, World b) {
+        double max = 0;
+        for (int i = 0; i < a.getBodyCount(); i++) {
+            Body body = a.getBody(i);
+            max = Math.max(max, body.getTransform().getTranslation().distance(b.getBody(i).getTransform().getTranslation()));
+        }
+        return max;
+    }
+
+}
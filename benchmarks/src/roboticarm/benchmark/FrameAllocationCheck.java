@@ -0,0 +1,91 @@
+package roboticarm.benchmark;
+
+import javafx.application.Application;
+import javafx.scene.canvas.Canvas;
+import javafx.stage.Stage;
+import org.jfree.fx.FXGraphics2D;
+import roboticarm.RoboticArm;
+import roboticarm.simulation.ArmJoint;
+import roboticarm.simulation.ArmModel;
+import roboticarm.utility.Camera;
+import roboticarm.utility.FixedTimestep;
+import roboticarm.utility.GameObject;
+import roboticarm.utility.SceneRenderer;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Checks that steady-state frames of the render path allocate (close to) nothing. Renders frames of a moving arm and
+ * exits with status 1 when the render path allocates more than the budget per frame. The physics step is reported
+ * separately, it allocates inside dyn4j.
+ * <pre>
+ * java -Dframes.budget=16 roboticarm.benchmark.FrameAllocationCheck
+ * </pre>
+ *
+ * @since 2026-10-17
+ */
+public class FrameAllocationCheck extends Application {
+    private static final int WARMUP_FRAMES = 20_000;
+    private static final int MEASURED_FRAMES = 20_000;
+    private static final double FRAME_TIME = 1.0 / 60;
+    private static final double DEBUG_SCALE = 100;
+
+    public static void main(String[] args) {
+        launch(FrameAllocationCheck.class);
+    }
+
+    @Override
+    public void start(Stage primaryStage) {
+        long budget = Long.getLong("frames.budget", 16);
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        Canvas canvas = new Canvas(1920, 1000);
+        FXGraphics2D g2d = new FXGraphics2D(canvas.getGraphicsContext2D());
+        Camera camera = new Camera(canvas, g -> { }, g2d);
+        ArmModel armModel = new ArmModel();
+        List<GameObject> gameObjects = RoboticArm.createGameObjects(armModel);
+        SceneRenderer renderer = new SceneRenderer(canvas, g2d, camera, armModel.getWorld(), gameObjects, DEBUG_SCALE);
+        FixedTimestep timestep = new FixedTimestep(240, 8);
+
+        // Reading the allocation counter may allocate itself, measure what one read costs
+        long readCost = -threadBean.getThreadAllocatedBytes(threadId);
+        readCost += threadBean.getThreadAllocatedBytes(threadId);
+
+        long physicsBytes = 0;
+        long renderBytes = 0;
+        for (int frame = 0; frame < WARMUP_FRAMES + MEASURED_FRAMES; frame++) {
+            if (frame == WARMUP_FRAMES) {
+                physicsBytes = 0;
+                renderBytes = 0;
+            }
+
+            // Keep the arm moving so every object has a new pose each frame
+            if (frame % 60 == 0) {
+                double direction = (frame / 60) % 2 == 0 ? 1 : -1;
+                for (ArmJoint joint : ArmJoint.values()) armModel.setMotorSpeed(joint, direction * (joint.isPrismatic() ? 5 : 2));
+            }
+
+            long start = threadBean.getThreadAllocatedBytes(threadId);
+            int steps = timestep.advance(FRAME_TIME);
+            for (int i = 0; i < steps; i++) {
+                armModel.step(timestep.getStepTime());
+                for (int j = 0; j < gameObjects.size(); j++) gameObjects.get(j).updateTransform();
+            }
+            long stepped = threadBean.getThreadAllocatedBytes(threadId);
+            renderer.draw(timestep.getAlpha());
+            long end = threadBean.getThreadAllocatedBytes(threadId);
+
+            physicsBytes += stepped - start - readCost;
+            renderBytes += end - stepped - readCost;
+        }
+
+        double renderPerFrame = (double) renderBytes / MEASURED_FRAMES;
+        System.out.println(String.format(Locale.ROOT, "Physics: %.1f B/frame", (double) physicsBytes / MEASURED_FRAMES));
+        System.out.println(String.format(Locale.ROOT, "Render:  %.1f B/frame (budget %d)", renderPerFrame, budget));
+        System.exit(renderPerFrame <= budget ? 0 : 1);
+    }
+
+}
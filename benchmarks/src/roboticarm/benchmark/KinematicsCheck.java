@@ -0,0 +1,37 @@
+package roboticarm.benchmark;
+
+import roboticarm.kinematics.ArmGeometry;
+import roboticarm.kinematics.BatchKinematics;
+
+import java.util.Random;
+
+/**
+ * Drives a physics arm to random poses and compares the bodies with the poses {@link BatchKinematics} computes from the
+ * joint positions. Exits with status 1 when a pose does not settle, or when a position or rotation error exceeds its
+ * bound. Runs without JavaFX.
+ * <pre>
+ * java roboticarm.benchmark.KinematicsCheck [poses] [seed]
+ * </pre>
+ *
+ * @since 2026-10-17
+ */
+public class KinematicsCheck {
+    // The joints of the physics world give a little, the computed poses are exact
+    private static final double POSITION_TOLERANCE = 1e-5;
+    private static final double ROTATION_TOLERANCE = 1e-9;
+
+    public static void main(String[] args) {
+        int poses = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 1;
+
+        BatchKinematics kinematics = new BatchKinematics(ArmGeometry.createDefault());
+        BatchKinematics.Validation validation = kinematics.validate(poses, new Random(seed));
+        System.out.println(validation);
+        System.out.println("Bounds: position " + POSITION_TOLERANCE + " m, rotation " + ROTATION_TOLERANCE + " rad");
+        boolean passed = validation.getPoses() == poses && validation.getUnsettled() == 0
+                && validation.getMaximumPositionError() <= POSITION_TOLERANCE
+                && validation.getMaximumRotationError() <= ROTATION_TOLERANCE;
+        System.exit(passed ? 0 : 1);
+    }
+
+}
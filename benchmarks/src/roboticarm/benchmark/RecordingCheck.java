@@ -0,0 +1,78 @@
+package roboticarm.benchmark;
+
+import org.dyn4j.dynamics.Body;
+import roboticarm.simulation.ArmJoint;
+import roboticarm.simulation.ArmModel;
+import roboticarm.simulation.TrajectoryRecorder;
+import roboticarm.simulation.TrajectoryReplay;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Records a moving arm, plays the recording back and exits with status 1 when the file is larger than the header and
+ * the frames, or when a frame differs from the recorded state. Halfway through, the last body is removed, its index
+ * must keep the last recorded pose. Runs without JavaFX.
+ * <pre>
+ * java roboticarm.benchmark.RecordingCheck
+ * </pre>
+ *
+ * @since 2026-10-17
+ */
+public class RecordingCheck {
+    private static final double STEP_TIME = 1.0 / 240;
+    private static final int FRAMES = 1000;
+    private static final int RING_FRAMES = 64;
+    // The header of the file, see TrajectoryRecorder
+    private static final int HEADER_SIZE = 64;
+
+    public static void main(String[] args) throws IOException {
+        Path file = Files.createTempFile("recording", ".bin");
+        ArmModel model = new ArmModel();
+        for (ArmJoint joint : ArmJoint.values()) model.setMotorSpeed(joint, joint.isPrismatic() ? 1 : 0.5);
+        int bodyCount = model.getWorld().getBodyCount();
+        int removed = bodyCount - 1;
+        double[] expectedX = new double[FRAMES];
+        double[] expectedRemovedX = new double[FRAMES];
+        double[] expectedPosition = new double[FRAMES];
+
+        try (TrajectoryRecorder recorder = new TrajectoryRecorder(file, model.getWorld(), STEP_TIME, RING_FRAMES)) {
+            for (int frame = 0; frame < FRAMES; frame++) {
+                if (frame == FRAMES / 2) {
+                    Body body = model.getWorld().getBody(removed);
+                    model.getWorld().removeBody(body);
+                }
+                model.step(STEP_TIME);
+                recorder.record(frame, model.getWorld(), model);
+                expectedX[frame] = model.getWorld().getBody(0).getTransform().getTranslationX();
+                expectedRemovedX[frame] = frame < FRAMES / 2
+                        ? model.getWorld().getBody(removed).getTransform().getTranslationX() : expectedRemovedX[frame - 1];
+                expectedPosition[frame] = model.getJointPosition(ArmJoint.LARGE);
+            }
+        }
+
+        boolean passed = true;
+        long expectedSize = HEADER_SIZE + (long) FRAMES * (Long.BYTES + (bodyCount + ArmJoint.values().length) * 3 * Double.BYTES);
+        long size = Files.size(file);
+        System.out.println("File size: " + size + " bytes (expected " + expectedSize + ")");
+        passed &= size == expectedSize;
+
+        int mismatches = 0;
+        try (TrajectoryReplay replay = TrajectoryReplay.open(file)) {
+            passed &= replay.getFrameCount() == FRAMES && replay.getBodyCount() == bodyCount;
+            for (int frame = 0; frame < FRAMES; frame++) {
+                if (replay.getStep(frame) != frame
+                        || replay.getX(frame, 0) != expectedX[frame]
+                        || replay.getX(frame, removed) != expectedRemovedX[frame]
+                        || replay.getJointPosition(frame, ArmJoint.LARGE) != expectedPosition[frame]) mismatches++;
+            }
+        }
+        System.out.println("Frames: " + FRAMES + ", mismatches " + mismatches);
+        passed &= mismatches == 0;
+
+        Files.delete(file);
+        System.exit(passed ? 0 : 1);
+    }
+
+}
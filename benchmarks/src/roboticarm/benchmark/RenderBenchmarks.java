@@ -0,0 +1,197 @@
+package roboticarm.benchmark;
+
+import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.stage.Stage;
+import org.jfree.fx.FXGraphics2D;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import roboticarm.RoboticArm;
+import roboticarm.simulation.ArmModel;
+import roboticarm.utility.Camera;
+import roboticarm.utility.DebugDraw;
+import roboticarm.utility.GameObject;
+import roboticarm.utility.MousePicker;
+import roboticarm.utility.PickIndex;
+import roboticarm.utility.SceneRenderer;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the per-frame render and input paths. The canvases are never attached to a scene, so they can be drawn
+ * from the benchmark thread once the JavaFX toolkit runs. Every frame starts with a full clear, which also lets the
+ * canvas drop its buffered draw commands.
+ * <pre>
+ * gradle jmh -Pjmh.include=RenderBenchmarks
+ * </pre>
+ *
+ * @since 2026-10-17
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class RenderBenchmarks {
+    private static final int WIDTH = 1920;
+    private static final int HEIGHT = 1000;
+    private static final double DEBUG_SCALE = 100;
+    private static final CountDownLatch TOOLKIT_STARTED = new CountDownLatch(1);
+    private static boolean toolkitLaunched = false;
+    private static volatile Throwable toolkitError;
+    private Canvas canvas;
+    private FXGraphics2D g2d;
+    private Camera camera;
+    private ArmModel armModel;
+    private List<GameObject> gameObjects;
+    private SceneRenderer renderer;
+    private SceneRenderer layeredRenderer;
+    private SceneRenderer debugRenderer;
+    private PickIndex pickIndex;
+    private MousePicker mousePicker;
+    private MousePicker draggingPicker;
+
+    @Setup
+    public void setUp() throws InterruptedException {
+        startToolkit();
+        canvas = new Canvas(WIDTH, HEIGHT);
+        g2d = new FXGraphics2D(canvas.getGraphicsContext2D());
+        camera = new Camera(canvas, g -> { }, g2d);
+        armModel = new ArmModel();
+        gameObjects = RoboticArm.createGameObjects(armModel);
+        renderer = new SceneRenderer(canvas, g2d, camera, armModel.getWorld(), gameObjects, DEBUG_SCALE);
+        layeredRenderer = new SceneRenderer(canvas, new Canvas(WIDTH, HEIGHT), g2d, camera, armModel.getWorld(), gameObjects, DEBUG_SCALE);
+        debugRenderer = new SceneRenderer(canvas, g2d, camera, armModel.getWorld(), gameObjects, DEBUG_SCALE);
+        debugRenderer.setDebugEnabled(true);
+        pickIndex = new PickIndex(gameObjects, armModel.getWorld());
+        mousePicker = new MousePicker(canvas);
+
+        // Hold the large segment with the primary button
+        Canvas dragCanvas = new Canvas(WIDTH, HEIGHT);
+        draggingPicker = new MousePicker(dragCanvas);
+        dragCanvas.fireEvent(new MouseEvent(MouseEvent.MOUSE_PRESSED, WIDTH / 2.0, HEIGHT / 2.0 + 342, 0, 0,
+                MouseButton.PRIMARY, 1, false, false, false, false, true, false, false, false, false, true, null));
+    }
+
+    /**
+     * Starts the JavaFX toolkit once per JVM, textures cannot be decoded without it.
+     */
+    private static void startToolkit() throws InterruptedException {
+        synchronized (TOOLKIT_STARTED) {
+            if (!toolkitLaunched) {
+                toolkitLaunched = true;
+                Thread thread = new Thread(() -> {
+                    try {
+                        Application.launch(Toolkit.class);
+                    } catch (Throwable e) {
+                        toolkitError = e;
+                        TOOLKIT_STARTED.countDown();
+                    }
+                }, "toolkit");
+                thread.setDaemon(true);
+                thread.start();
+            }
+        }
+        TOOLKIT_STARTED.await();
+        if (toolkitError != null) throw new IllegalStateException("The JavaFX toolkit did not start", toolkitError);
+    }
+
+    @Benchmark
+    public FXGraphics2D gameObjectDraw() {
+        AffineTransform viewTransform = beginFrame();
+        for (GameObject gameObject : gameObjects) gameObject.draw(canvas.getGraphicsContext2D(), viewTransform, 1);
+        return g2d;
+    }
+
+    @Benchmark
+    public FXGraphics2D debugDraw() {
+        DebugDraw.draw(g2d, armModel.getWorld(), beginFrame(), DEBUG_SCALE);
+        return g2d;
+    }
+
+    @Benchmark
+    public SceneRenderer sceneRendererDraw() {
+        renderer.draw(1);
+        return renderer;
+    }
+
+    @Benchmark
+    public SceneRenderer sceneRendererDrawStaticLayer() {
+        layeredRenderer.draw(1);
+        return layeredRenderer;
+    }
+
+    @Benchmark
+    public SceneRenderer sceneRendererDrawDebugOverlay() {
+        debugRenderer.draw(1);
+        return debugRenderer;
+    }
+
+    @Benchmark
+    public PickIndex pickIndexUpdate() {
+        pickIndex.update();
+        return pickIndex;
+    }
+
+    @Benchmark
+    public PickIndex pickIndexHover() {
+        pickIndex.hover(WIDTH / 2.0, HEIGHT / 2.0 + 342);
+        return pickIndex;
+    }
+
+    @Benchmark
+    public AffineTransform cameraGetTransform() {
+        return camera.getTransform(WIDTH, HEIGHT);
+    }
+
+    @Benchmark
+    public MousePicker mousePickerUpdate() {
+        mousePicker.update(armModel.getWorld(), camera.getTransform(WIDTH, HEIGHT), DEBUG_SCALE);
+        return mousePicker;
+    }
+
+    @Benchmark
+    public MousePicker mousePickerUpdateDragging() {
+        draggingPicker.update(armModel.getWorld(), camera.getTransform(WIDTH, HEIGHT), DEBUG_SCALE);
+        return draggingPicker;
+    }
+
+    private AffineTransform beginFrame() {
+        g2d.setTransform(new AffineTransform());
+        g2d.setBackground(Color.WHITE);
+        g2d.clearRect(0, 0, WIDTH, HEIGHT);
+        AffineTransform viewTransform = camera.getTransform(WIDTH, HEIGHT);
+        viewTransform.scale(1, RoboticArm.Y_AXIS_SCALE);
+        g2d.setTransform(viewTransform);
+        g2d.setColor(Color.BLUE);
+        return viewTransform;
+    }
+
+    /**
+     * Keeps the toolkit running without a window.
+     */
+    public static class Toolkit extends Application {
+        @Override
+        public void start(Stage primaryStage) {
+            Platform.setImplicitExit(false);
+            TOOLKIT_STARTED.countDown();
+        }
+    }
+
+}
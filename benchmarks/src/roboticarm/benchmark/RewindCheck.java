@@ -0,0 +1,67 @@
+package roboticarm.benchmark;
+
+import roboticarm.simulation.ArmJoint;
+import roboticarm.simulation.ArmModel;
+import roboticarm.simulation.SimulationThread;
+import roboticarm.simulation.WorldState;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Rewinds a running simulation several times in a row and exits with status 1 when a rewind does not go back exactly
+ * the requested time, or does not land before the state the previous rewind restored. Runs without JavaFX.
+ * <pre>
+ * java roboticarm.benchmark.RewindCheck
+ * </pre>
+ *
+ * @since 2026-10-17
+ */
+public class RewindCheck {
+    private static final double STEP_RATE = 240;
+    private static final double BUFFER_SECONDS = 4;
+    private static final double REWIND_SECONDS = 1;
+    private static final int REWINDS = 3;
+    private static final long WARM_UP_MILLIS = 4000;
+    private static final long BETWEEN_MILLIS = 200;
+
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
+        ArmModel model = new ArmModel();
+        for (ArmJoint joint : ArmJoint.values()) model.setMotorSpeed(joint, joint.isPrismatic() ? 1 : 0.5);
+        SimulationThread simulation = new SimulationThread(model, STEP_RATE, 8, 64);
+        simulation.enableRewind(BUFFER_SECONDS);
+        simulation.start();
+        Thread.sleep(WARM_UP_MILLIS);
+
+        long expected = Math.round(REWIND_SECONDS * STEP_RATE);
+        long previous = Long.MAX_VALUE;
+        boolean passed = true;
+        for (int i = 0; i < REWINDS; i++) {
+            // Hold the simulation thread while queueing, so the tasks run back to back without a step in between
+            CountDownLatch gate = new CountDownLatch(1);
+            simulation.submit(m -> {
+                try {
+                    gate.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            CompletableFuture<WorldState> before = simulation.captureState();
+            simulation.rewind(REWIND_SECONDS);
+            CompletableFuture<WorldState> after = simulation.captureState();
+            gate.countDown();
+
+            long from = before.get().getStep();
+            long to = after.get().getStep();
+            System.out.println("Rewind " + (i + 1) + ": step " + from + " -> " + to + ", " + (from - to)
+                    + " steps back (expected " + expected + ")");
+            passed &= from - to == expected && to < previous;
+            previous = to;
+            Thread.sleep(BETWEEN_MILLIS);
+        }
+        simulation.stop();
+        System.exit(passed ? 0 : 1);
+    }
+
+}
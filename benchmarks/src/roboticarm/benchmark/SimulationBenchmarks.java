@@ -0,0 +1,108 @@
+package roboticarm.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import roboticarm.kinematics.ArmGeometry;
+import roboticarm.kinematics.BatchKinematics;
+import roboticarm.kinematics.InverseKinematics;
+import roboticarm.simulation.ArmJoint;
+import roboticarm.simulation.ArmModel;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the physics step and the forward and inverse kinematics of the five-joint arm. Runs without JavaFX.
+ * <pre>
+ * gradle jmh -Pjmh.include=SimulationBenchmarks
+ * </pre>
+ *
+ * @since 2026-10-17
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class SimulationBenchmarks {
+    private static final double STEP_TIME = 1.0 / 240;
+    private static final int STEPS_PER_SWEEP = 240;
+    private static final int TARGETS = 1024;
+    private static final int BATCH_SIZE = 4096;
+    private final double[] pose = new double[ArmJoint.values().length];
+    private final double[] seed = new double[ArmJoint.values().length];
+    private final double[] result = new double[ArmJoint.values().length];
+    private ArmModel idleArm;
+    private ArmModel movingArm;
+    private InverseKinematics inverseKinematics;
+    private BatchKinematics batchKinematics;
+    private BatchKinematics.Batch batch;
+    private int step;
+    private int target;
+
+    @Setup
+    public void setUp() {
+        idleArm = new ArmModel();
+        movingArm = new ArmModel();
+        inverseKinematics = new InverseKinematics(ArmGeometry.createDefault());
+        batchKinematics = new BatchKinematics(ArmGeometry.createDefault());
+        batch = new BatchKinematics.Batch(BATCH_SIZE, true);
+        batch.fillRandom(ArmGeometry.createDefault(), new Random(1));
+    }
+
+    @Benchmark
+    public ArmModel worldStepIdle() {
+        idleArm.step(STEP_TIME);
+        return idleArm;
+    }
+
+    /**
+     * Sweeps every joint back and forth so the limits and motors stay active.
+     */
+    @Benchmark
+    public ArmModel worldStepSweeping() {
+        if (step++ % STEPS_PER_SWEEP == 0) {
+            double direction = (step / STEPS_PER_SWEEP) % 2 == 0 ? 1 : -1;
+            for (ArmJoint joint : ArmJoint.values()) movingArm.setMotorSpeed(joint, direction * (joint.isPrismatic() ? 5 : 2));
+        }
+        movingArm.step(STEP_TIME);
+        return movingArm;
+    }
+
+    /**
+     * Follows a circle in front of the arm, warm-started from the previous solution.
+     */
+    @Benchmark
+    public boolean inverseKinematicsTracking() {
+        double angle = 2 * Math.PI * (target++ % TARGETS) / TARGETS;
+        return inverseKinematics.solve(2 + Math.cos(angle), 3 + Math.sin(angle), pose, pose);
+    }
+
+    /**
+     * Jumps between far apart targets.
+     */
+    @Benchmark
+    public boolean inverseKinematicsRandomTargets() {
+        double angle = 2 * Math.PI * ((target++ * 389) % TARGETS) / TARGETS;
+        return inverseKinematics.solve(4 * Math.cos(angle), 1 + 4 * Math.sin(angle), seed, result);
+    }
+
+    /**
+     * Every frame of a batch small enough to stay on the calling thread.
+     */
+    @Benchmark
+    public BatchKinematics.Batch batchKinematicsAllFrames() {
+        batchKinematics.compute(batch);
+        return batch;
+    }
+
+}
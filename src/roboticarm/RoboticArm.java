@@ -2,52 +2,120 @@ package roboticarm;
 
 import javafx.animation.AnimationTimer;
 import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.scene.Node;
 import javafx.scene.Scene;
+import javafx.scene.canvas.Canvas;
 import javafx.scene.control.CheckBox;
+import javafx.scene.control.ChoiceBox;
 import javafx.scene.control.Label;
+import javafx.scene.control.Slider;
 import javafx.scene.image.Image;
 import javafx.scene.input.KeyEvent;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.HBox;
+import javafx.scene.layout.StackPane;
 import javafx.stage.Stage;
 import org.dyn4j.dynamics.Body;
-import org.dyn4j.dynamics.World;
-import org.dyn4j.dynamics.joint.PrismaticJoint;
-import org.dyn4j.dynamics.joint.RevoluteJoint;
-import org.dyn4j.dynamics.joint.WeldJoint;
-import org.dyn4j.geometry.Geometry;
-import org.dyn4j.geometry.Mass;
-import org.dyn4j.geometry.MassType;
+import org.dyn4j.dynamics.ContinuousDetectionMode;
 import org.dyn4j.geometry.Vector2;
 import org.jfree.fx.FXGraphics2D;
 import org.jfree.fx.ResizableCanvas;
+import roboticarm.kinematics.ArmGeometry;
+import roboticarm.kinematics.InverseKinematics;
+import roboticarm.kinematics.MotionPlanner;
+import roboticarm.kinematics.ReachabilityMap;
+import roboticarm.simulation.ArmJoint;
+import roboticarm.simulation.ArmModel;
+import roboticarm.simulation.MotionScript;
+import roboticarm.simulation.PoseSnapshot;
+import roboticarm.simulation.SimulationThread;
+import roboticarm.simulation.StressScene;
+import roboticarm.simulation.TelemetryServer;
+import roboticarm.simulation.TrajectoryRecorder;
+import roboticarm.simulation.TrajectoryReplay;
+import roboticarm.simulation.WorldSettings;
 import roboticarm.utility.Camera;
-import roboticarm.utility.DebugDraw;
+import roboticarm.utility.FrameProfiler;
 import roboticarm.utility.GameObject;
 import roboticarm.utility.MousePicker;
-
-import java.awt.*;
-import java.awt.geom.AffineTransform;
+import roboticarm.utility.PickIndex;
+import roboticarm.utility.QualityGovernor;
+import roboticarm.utility.RedrawScheduler;
+import roboticarm.utility.SceneRenderer;
+import roboticarm.utility.StartupReport;
+import roboticarm.utility.TextureAtlas;
+import roboticarm.utility.TextureCache;
+
+import java.awt.geom.NoninvertibleTransformException;
+import java.awt.geom.Point2D;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 public class RoboticArm extends Application {
     private ResizableCanvas canvas;
     private Stage primaryStage;
     private Camera camera;
     private MousePicker mousePicker;
-    private final World world = new World();
+    private ArmModel armModel;
     private final List<GameObject> gameObjects = new ArrayList<>();
-    private boolean debugSelected = false;
-    private PrismaticJoint baseJoint;
-    private RevoluteJoint baseLargeJoint;
-    private RevoluteJoint largeMediumJoint;
-    private RevoluteJoint mediumSmallJoint;
-    private RevoluteJoint smallHeadJoint;
+    private SceneRenderer renderer;
+    private RedrawScheduler redrawScheduler;
+    private final FrameProfiler profiler = new FrameProfiler(PROFILER_WINDOW);
+    private final StringBuilder timingsText = new StringBuilder();
+    private Label timingsLabel;
+    private long lastTimingsNanos = 0;
+    private String timingsFile;
+    private int stressParts = 0;
+    private WorldSettings worldSettings;
+    private int bodyCount = 0;
+    private int awakeBodies = 0;
+    private QualityGovernor qualityGovernor;
+    private String qualityLogFile;
+    private boolean stepRateAdjustable = true;
+    private long lastBusyNanos = 0;
+    private final StartupReport startupReport = new StartupReport("launch");
+    private boolean startupReported = false;
     public static final double Y_AXIS_SCALE = -1;
     private static final double DEBUG_SCALE = 100;
     private static final double BASE_MOVEMENT_SPEED = 5;
     private static final double ROTATION_SPEED = 2;
+    private static final double PHYSICS_STEP_RATE = 240;
+    private static final int MAX_STEPS_PER_FRAME = 8;
+    private static final int ATLAS_WIDTH = 2048;
+    private static final int COMMAND_CAPACITY = 1024;
+    private static final int RECORDER_RING_FRAMES = 1024;
+    private static final double REWIND_SECONDS = 10;
+    private static final double REWIND_STEP = 1;
+    private static final int PROFILER_WINDOW = 1024;
+    private static final long TIMINGS_INTERVAL = 250_000_000;
+    private static final long STRESS_SEED = 1;
+    private static final int STRESS_REWIND_INTERVAL = 24;
+    private static final double DEFAULT_FRAME_BUDGET = 1000.0 / 60;
+    private SimulationThread simulation;
+    private InverseKinematics inverseKinematics;
+    private MotionPlanner motionPlanner;
+    private final double[] jointPositions = new double[ArmJoint.values().length];
+    private final double[] jointTargets = new double[ArmJoint.values().length];
+    private double alpha = 1;
+    private TrajectoryReplay replay;
+    private TelemetryServer telemetry;
+    private final PoseSnapshot replaySnapshot = new PoseSnapshot();
+    private Slider replaySlider;
+    private double replayTime = 0;
+    private boolean replayPlaying = true;
+    private long lastReplayNanos = -1;
 
     public static void main(String[] args) {
         launch(RoboticArm.class);
@@ -57,195 +125,465 @@ public class RoboticArm extends Application {
     public void start(Stage primaryStage) {
         this.primaryStage = primaryStage;
         BorderPane mainPane = new BorderPane();
-        canvas = new ResizableCanvas(this::draw, mainPane);
+        StackPane layers = new StackPane();
+        canvas = new ResizableCanvas(this::onCanvasResized, layers);
+
+        // Static scenery is painted on a canvas below the main canvas
+        Canvas staticCanvas = new Canvas();
+        staticCanvas.widthProperty().bind(canvas.widthProperty());
+        staticCanvas.heightProperty().bind(canvas.heightProperty());
+        staticCanvas.setMouseTransparent(true);
+        layers.getChildren().addAll(staticCanvas, canvas);
 
         // Initialize variables
         FXGraphics2D g2d = new FXGraphics2D(canvas.getGraphicsContext2D());
-        camera = new Camera(canvas, this::draw, g2d);
+        camera = new Camera(canvas, this::requestRedraw, g2d);
         mousePicker = new MousePicker(canvas);
+        renderer = new SceneRenderer(canvas, staticCanvas, g2d, camera, armModel.getWorld(), gameObjects, DEBUG_SCALE);
+        redrawScheduler = new RedrawScheduler(renderer);
+        PickIndex pickIndex = new PickIndex(gameObjects, armModel.getWorld());
+        renderer.setPickIndex(pickIndex);
+        mousePicker.setPickIndex(pickIndex, redrawScheduler::requestRedraw);
+        simulation = new SimulationThread(armModel, PHYSICS_STEP_RATE, MAX_STEPS_PER_FRAME, COMMAND_CAPACITY);
+        simulation.setPickHandler(mousePicker);
+        simulation.enableRewind(REWIND_SECONDS, stressParts > 0 ? STRESS_REWIND_INTERVAL : 1);
+        simulation.setProfiler(profiler);
+        renderer.setProfiler(profiler);
+        inverseKinematics = new InverseKinematics(ArmGeometry.of(armModel));
+        motionPlanner = new MotionPlanner(armModel, ForkJoinPool.commonPool());
+        loadReachabilityMap(Paths.get(getParameters().getNamed().getOrDefault("reachability",
+                System.getProperty("java.io.tmpdir"))));
+
+        // Play a motion program given as --program=<file>
+        String program = getParameters().getNamed().get("program");
+        if (program != null) {
+            try {
+                simulation.play(MotionScript.load(Paths.get(program)));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        // Replay a recording with --replay=<file> instead of simulating, or record the session with --record=<file>
+        String replayFile = getParameters().getNamed().get("replay");
+        String recordFile = getParameters().getNamed().get("record");
+        if (replayFile != null) {
+            try {
+                replay = TrajectoryReplay.open(Paths.get(replayFile));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        } else if (recordFile != null) {
+            stepRateAdjustable = false;
+            try {
+                simulation.setRecorder(new TrajectoryRecorder(Paths.get(recordFile), armModel.getWorld(),
+                        simulation.getStepTime(), RECORDER_RING_FRAMES));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        // Stream the arm to local tools on --telemetry=<port>, which may also drive the joints
+        String telemetryPort = getParameters().getNamed().get("telemetry");
+        if (telemetryPort != null && replay == null) {
+            try {
+                telemetry = new TelemetryServer(Integer.parseInt(telemetryPort), armModel, simulation.getCommandQueue(),
+                        simulation.getStepTime());
+                simulation.setTelemetry(telemetry);
+                stepRateAdjustable = false;
+                telemetry.start();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
 
         // Create debug button
         CheckBox showDebug = new CheckBox("Debug Mode");
-        showDebug.setOnAction(e -> debugSelected = showDebug.isSelected());
+        showDebug.setOnAction(e -> {
+            renderer.setDebugEnabled(showDebug.isSelected());
+            redrawScheduler.requestRedraw();
+        });
+
+        // Show p50 / p99 / max of every phase, with --timings=<file> they are also written to a CSV file on exit
+        timingsFile = getParameters().getNamed().get("timings");
+        CheckBox showTimings = new CheckBox("Timings");
+        timingsLabel = new Label();
+        timingsLabel.setVisible(false);
+        timingsLabel.setManaged(false);
+        showTimings.setOnAction(e -> {
+            profiler.setEnabled(showTimings.isSelected() || timingsFile != null);
+            timingsLabel.setVisible(showTimings.isSelected());
+            timingsLabel.setManaged(showTimings.isSelected());
+        });
+        profiler.setEnabled(timingsFile != null);
+
+        // Trade quality for speed to hold --frame-budget=<ms>, --quality=off keeps full quality and
+        // --quality-log=<file> writes every change to a CSV file on exit
+        qualityLogFile = getParameters().getNamed().get("quality-log");
+        try {
+            double budget = Double.parseDouble(getParameters().getNamed().getOrDefault("frame-budget", String.valueOf(DEFAULT_FRAME_BUDGET)));
+            qualityGovernor = new QualityGovernor(budget, this::applyQuality);
+        } catch (IllegalArgumentException e) {
+            e.printStackTrace();
+            qualityGovernor = new QualityGovernor(DEFAULT_FRAME_BUDGET, this::applyQuality);
+        }
+        qualityGovernor.setEnabled(replay == null && !"off".equals(getParameters().getNamed().get("quality")));
 
-        Label label = new Label("Key combinations: Base movement = A-D/Arrows, Large rotation = N-M, Medium rotation = H-J, Small rotation = Y-U and Head rotation = 6-7. Scroll to zoom and use the middle mouse button to move around.");
-        HBox topBox = new HBox(15, showDebug, label);
+        // The loose parts of the stress scene have no textures, so they are shown through the debug overlay
+        if (stressParts > 0) {
+            showDebug.setSelected(true);
+            renderer.setDebugEnabled(true);
+        }
+
+        Label label = new Label("Key combinations: Base movement = A-D/Arrows, Large rotation = N-M, Medium rotation = H-J, Small rotation = Y-U and Head rotation = 6-7. Right click to move the head there, backspace to rewind a second. Scroll to zoom and use the middle mouse button to move around.");
+        HBox topBox = new HBox(15, showDebug, showTimings, timingsLabel, label);
+        if (replay != null) {
+            // Seek through the recording, space pauses it
+            replaySlider = new Slider(0, replay.getDuration(), 0);
+            replaySlider.setPrefWidth(400);
+            replaySlider.valueProperty().addListener(observable -> replayTime = replaySlider.getValue());
+            topBox.getChildren().add(1, replaySlider);
+        }
+        if (stressParts > 0) topBox.getChildren().addAll(topBox.getChildren().size() - 1, createSettingsControls());
 
         // Set mainPane
-        mainPane.setCenter(canvas);
+        mainPane.setCenter(layers);
         mainPane.setTop(topBox);
 
         // Set events
         canvas.setFocusTraversable(true);
         mainPane.setOnKeyPressed(this::onKeyPressed);
         mainPane.setOnKeyReleased(this::onKeyReleased);
+        canvas.addEventHandler(MouseEvent.MOUSE_CLICKED, this::onMouseClicked);
 
-        // Set AnimationTimer
+        // Set AnimationTimer, the world itself is stepped on the simulation thread
+        if (replay == null) simulation.start();
         new AnimationTimer() {
-            long last = -1;
             @Override
             public void handle(long now) {
-                if (last == -1) last = now;
-                update((now - last) / 1000000000.0);
-                last = now;
-                draw(g2d);
+                long start = profiler.begin();
+                long frameStart = System.nanoTime();
+                update(now);
+                boolean painted = redrawScheduler.pulse(alpha);
+                profiler.end(FrameProfiler.Phase.FRAME, start);
+                if (painted && startupReport.getMillis("first frame") < 0) {
+                    startupReport.mark("first frame");
+                    reportStartup();
+                }
+                long busyNanos = simulation.getBusyNanos();
+                qualityGovernor.frame(now, System.nanoTime() - frameStart + busyNanos - lastBusyNanos);
+                lastBusyNanos = busyNanos;
+                if (timingsLabel.isVisible() && now - lastTimingsNanos >= TIMINGS_INTERVAL) {
+                    lastTimingsNanos = now;
+                    timingsText.setLength(0);
+                    timingsText.append("bodies ").append(bodyCount).append(", awake ").append(awakeBodies);
+                    if (qualityGovernor.isEnabled()) timingsText.append(", quality ").append(qualityGovernor.getLevel());
+                    profiler.format(timingsText);
+                    timingsLabel.setText(timingsText.toString());
+                }
             }
         }.start();
 
         // Set stage
         primaryStage.setScene(new Scene(mainPane, 1920, 1000));
         primaryStage.setTitle("Robotic Arm");
-        primaryStage.getIcons().add(new Image("/textures/icon.png"));
+        primaryStage.getIcons().add(new Image("/textures/icon.png", true));
         primaryStage.show();
+        startupReport.mark("shown");
+
+        // Swap the textures in as they finish decoding
+        CompletableFuture<?>[] textures = new CompletableFuture<?>[gameObjects.size()];
+        for (int i = 0; i < textures.length; i++) textures[i] = gameObjects.get(i).getLoaded().thenRun(this::onTextureLoaded);
+        CompletableFuture.allOf(textures).thenRun(() -> {
+            startupReport.mark("textures");
+            startupReport.note(String.format(Locale.ROOT, "textures decoded in %.0f ms of worker time", TextureCache.getDecodeNanos() / 1e6));
+            reportStartup();
+        });
+    }
+
+    /**
+     * @return choices for the broadphase, the continuous collision mode and sleeping, applied to the running world
+     */
+    private List<Node> createSettingsControls() {
+        ChoiceBox<WorldSettings.Broadphase> broadphase = new ChoiceBox<>();
+        broadphase.getItems().addAll(WorldSettings.Broadphase.values());
+        broadphase.setValue(worldSettings.getBroadphase());
+        broadphase.setOnAction(e -> {
+            worldSettings.setBroadphase(broadphase.getValue());
+            applyWorldSettings();
+        });
+
+        ChoiceBox<ContinuousDetectionMode> continuousDetection = new ChoiceBox<>();
+        continuousDetection.getItems().addAll(ContinuousDetectionMode.NONE, ContinuousDetectionMode.BULLETS_ONLY, ContinuousDetectionMode.ALL);
+        continuousDetection.setValue(worldSettings.getContinuousDetectionMode());
+        continuousDetection.setOnAction(e -> {
+            worldSettings.setContinuousDetectionMode(continuousDetection.getValue());
+            applyWorldSettings();
+        });
+
+        CheckBox sleeping = new CheckBox("Sleeping");
+        sleeping.setSelected(worldSettings.isSleeping());
+        sleeping.setOnAction(e -> {
+            worldSettings.setSleeping(sleeping.isSelected());
+            applyWorldSettings();
+        });
+
+        List<Node> controls = new ArrayList<>();
+        controls.add(broadphase);
+        controls.add(continuousDetection);
+        controls.add(sleeping);
+        return controls;
+    }
+
+    /**
+     * Hands the world settings to the simulation with the solver iterations of the current quality level.
+     */
+    private void applyWorldSettings() {
+        WorldSettings settings = worldSettings.copy();
+        QualityGovernor.Level level = qualityGovernor.getLevel();
+        settings.setVelocityIterations(level.scaleIterations(worldSettings.getVelocityIterations()));
+        settings.setPositionIterations(level.scaleIterations(worldSettings.getPositionIterations()));
+        simulation.applySettings(settings);
+    }
+
+    /**
+     * The step rate stays fixed while recording or streaming telemetry, both announce it once at the start.
+     */
+    private void applyQuality(QualityGovernor.Level level) {
+        applyWorldSettings();
+        if (stepRateAdjustable) simulation.setStepRate(PHYSICS_STEP_RATE * level.getStepRateScale());
+        renderer.setDebugDetail(level.getDebugDetail());
+        redrawScheduler.requestRedraw();
     }
 
     @Override
     public void init() {
-        // Set world attribute
-        world.setGravity(new Vector2(0, 9.81 * Y_AXIS_SCALE));
-
-        // ### BODIES ###
-
-        // Create lower base
-        Body lowerBase = new Body();
-        lowerBase.addFixture(Geometry.createRectangle(10, 0.6));
-        lowerBase.getTransform().setTranslationY(-5.1);
-        lowerBase.setMass(MassType.INFINITE);
-        world.addBody(lowerBase);
-        gameObjects.add(new GameObject("base-lower-extended.png", lowerBase, new Vector2(0, 0), 1));
-
-        // Create upper base
-        Body upperBase = new Body();
-        upperBase.addFixture(Geometry.createRectangle(1.35, 0.55));
-        upperBase.getTransform().setTranslationY(-4.5);
-        upperBase.setMassType(MassType.NORMAL);
-        upperBase.setMass(new Mass(upperBase.getWorldCenter(), 100, 0));
-        world.addBody(upperBase);
-        gameObjects.add(new GameObject("base-upper.png", upperBase, new Vector2(0, 26), 1));
-
-        // Create large segment
-        Body largeSegment = new Body();
-        largeSegment.addFixture(Geometry.createCircle(0.72));
-        largeSegment.getTransform().setTranslationY(-3.42);
-        largeSegment.setMass(MassType.NORMAL);
-        world.addBody(largeSegment);
-        gameObjects.add(new GameObject(("segment-large.png"), largeSegment, new Vector2(0, 105), 1));
-
-        // Create medium segment
-        Body mediumSegment = new Body();
-        mediumSegment.addFixture(Geometry.createCircle(0.65));
-        mediumSegment.getTransform().setTranslationY(-0.15);
-        mediumSegment.setMass(MassType.NORMAL);
-        world.addBody(mediumSegment);
-        gameObjects.add(new GameObject(("segment-small.png"), mediumSegment, new Vector2(0, 76), 1.3));
-
-        // Create small segment
-        Body smallSegment = new Body();
-        smallSegment.addFixture(Geometry.createCircle(0.5));
-        smallSegment.getTransform().setTranslationY(2.78);
-        smallSegment.setMass(MassType.NORMAL);
-        world.addBody(smallSegment);
-        gameObjects.add(new GameObject(("segment-small.png"), smallSegment, new Vector2(0, 76), 1));
-
-        // Create head segment
-        Body headSegment = new Body();
-        headSegment.addFixture(Geometry.createCircle(0.4));
-        headSegment.getTransform().setTranslationY(5.08);
-        headSegment.setMass(MassType.NORMAL);
-        world.addBody(headSegment);
-        gameObjects.add(new GameObject(("segment-head.png"), headSegment, new Vector2(0, 53), 1));
-
-        // Create head extension
-        Body headExtension = new Body();
-        headExtension.addFixture(Geometry.createRectangle(0.35, 0.84));
-        headExtension.getTransform().setTranslationY(6.14);
-        headExtension.setMass(MassType.NORMAL);
-        world.addBody(headExtension);
-
-        // ### JOINTS ###
-
-        // Join lower and upper base
-        baseJoint = new PrismaticJoint(lowerBase, upperBase, upperBase.getWorldCenter(), new Vector2(1, 0));
-        final double movementLimit = 4.1;
-        baseJoint.setLimitEnabled(true);
-        baseJoint.setUpperLimit(movementLimit);
-        baseJoint.setLowerLimit(-movementLimit);
-        baseJoint.setMotorEnabled(true);
-        baseJoint.setMotorSpeed(0);
-        baseJoint.setMaximumMotorForce(1000);
-        world.addJoint(baseJoint);
-
-        // Join upper base and large segment
-        baseLargeJoint = new RevoluteJoint(upperBase, largeSegment, largeSegment.getWorldCenter());
-        baseLargeJoint.setLimitEnabled(true);
-        final double rotationLimitLargeSegment = 0.75;
-        baseLargeJoint.setUpperLimit(rotationLimitLargeSegment);
-        baseLargeJoint.setLowerLimit(-rotationLimitLargeSegment);
-        baseLargeJoint.setMotorEnabled(true);
-        baseLargeJoint.setMotorSpeed(0);
-        baseLargeJoint.setMaximumMotorTorque(200);
-        world.addJoint(baseLargeJoint);
-
-        // Join large and medium segments
-        largeMediumJoint = new RevoluteJoint(largeSegment, mediumSegment, mediumSegment.getWorldCenter());
-        largeMediumJoint.setLimitEnabled(true);
-        final double rotationLimitMediumSegment = 1.1;
-        largeMediumJoint.setUpperLimit(rotationLimitMediumSegment);
-        largeMediumJoint.setLowerLimit(-rotationLimitMediumSegment);
-        largeMediumJoint.setMotorEnabled(true);
-        largeMediumJoint.setMotorSpeed(0);
-        largeMediumJoint.setMaximumMotorTorque(100);
-        world.addJoint(largeMediumJoint);
-
-        // Join medium and small segments
-        mediumSmallJoint = new RevoluteJoint(mediumSegment, smallSegment, smallSegment.getWorldCenter());
-        mediumSmallJoint.setLimitEnabled(true);
-        final double rotationLimitSmallSegment = 0.95;
-        mediumSmallJoint.setUpperLimit(rotationLimitSmallSegment);
-        mediumSmallJoint.setLowerLimit(-rotationLimitSmallSegment);
-        mediumSmallJoint.setMotorEnabled(true);
-        mediumSmallJoint.setMotorSpeed(0);
-        mediumSmallJoint.setMaximumMotorTorque(30);
-        world.addJoint(mediumSmallJoint);
-
-        // Join small and head segments
-        smallHeadJoint = new RevoluteJoint(smallSegment, headSegment, headSegment.getWorldCenter());
-        smallHeadJoint.setLimitEnabled(true);
-        final double rotationLimitHeadSegment = 1.1;
-        smallHeadJoint.setUpperLimit(rotationLimitHeadSegment);
-        smallHeadJoint.setLowerLimit(-rotationLimitHeadSegment);
-        smallHeadJoint.setMotorEnabled(true);
-        smallHeadJoint.setMotorSpeed(0);
-        smallHeadJoint.setMaximumMotorTorque(25);
-        world.addJoint(smallHeadJoint);
-
-        // Join head segment and extension
-        WeldJoint headExtensionJoint = new WeldJoint(headSegment, headExtension, headSegment.getWorldCenter());
-        world.addJoint(headExtensionJoint);
+        // Optionally serve all arm textures from one packed image
+        if (Boolean.getBoolean("roboticarm.atlas")) {
+            try {
+                TextureCache.setAtlas(TextureAtlas.build(TextureAtlas.ARM_TEXTURES, ATLAS_WIDTH));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        // Start decoding the textures before the model is built, the game objects take over the decodes in flight
+        // and draw placeholders until they are done
+        for (String name : TextureAtlas.ARM_TEXTURES) TextureCache.acquireAsync(name, ForkJoinPool.commonPool());
+        armModel = new ArmModel();
+
+        // Surround the arm with loose parts with --stress=<parts>, world settings are taken from named parameters
+        // such as --broadphase=sap, see WorldSettings
+        Map<String, String> parameters = getParameters().getNamed();
+        worldSettings = WorldSettings.of(armModel.getWorld());
+        try {
+            if (parameters.containsKey("stress")) {
+                stressParts = Integer.parseInt(parameters.get("stress"));
+                StressScene.populate(armModel, stressParts, STRESS_SEED);
+            }
+            for (Map.Entry<String, String> parameter : parameters.entrySet()) worldSettings.set(parameter.getKey(), parameter.getValue());
+        } catch (IllegalArgumentException e) {
+            e.printStackTrace();
+        }
+        worldSettings.apply(armModel.getWorld());
+        gameObjects.addAll(createGameObjects(armModel, ForkJoinPool.commonPool()));
+        for (String name : TextureAtlas.ARM_TEXTURES) TextureCache.release(name);
+        startupReport.mark("model");
+    }
+
+    /**
+     * Attaches the textures to the bodies of the arm.
+     */
+    public static List<GameObject> createGameObjects(ArmModel armModel) {
+        return createGameObjects(armModel, null);
+    }
+
+    /**
+     * @param executor decodes the textures in the background, or null to decode them right away
+     */
+    public static List<GameObject> createGameObjects(ArmModel armModel, Executor executor) {
+        List<GameObject> gameObjects = new ArrayList<>();
+        gameObjects.add(createGameObject("base-lower-extended.png", armModel.getLowerBase(), new Vector2(0, 0), 1, executor));
+        gameObjects.add(createGameObject("base-upper.png", armModel.getUpperBase(), new Vector2(0, 26), 1, executor));
+        gameObjects.add(createGameObject("segment-large.png", armModel.getLargeSegment(), new Vector2(0, 105), 1, executor));
+        gameObjects.add(createGameObject("segment-small.png", armModel.getMediumSegment(), new Vector2(0, 76), 1.3, executor));
+        gameObjects.add(createGameObject("segment-small.png", armModel.getSmallSegment(), new Vector2(0, 76), 1, executor));
+        gameObjects.add(createGameObject("segment-head.png", armModel.getHeadSegment(), new Vector2(0, 53), 1, executor));
+        return gameObjects;
+    }
+
+    private static GameObject createGameObject(String imageFile, Body body, Vector2 offset, double scale, Executor executor) {
+        if (executor == null) return new GameObject(imageFile, body, offset, scale);
+        return new GameObject(imageFile, body, offset, scale, executor);
     }
 
-    private void draw(FXGraphics2D g2d) {
-        g2d.setBackground(Color.WHITE);
-        g2d.clearRect(0, 0, (int) canvas.getWidth(), (int) canvas.getHeight());
+    /**
+     * Static objects are painted on their own layer, which only repaints when told to.
+     */
+    private void onTextureLoaded() {
+        if (renderer.getStaticLayer() != null) renderer.getStaticLayer().invalidate();
+        redrawScheduler.requestRedraw();
+    }
+
+    /**
+     * Prints the startup breakdown once the first frame is painted and every texture is in.
+     */
+    private void reportStartup() {
+        if (startupReported || startupReport.getMillis("first frame") < 0 || startupReport.getMillis("textures") < 0) return;
+        startupReported = true;
+        System.out.println(startupReport);
+    }
+
+    @Override
+    public void stop() {
+        if (simulation != null) simulation.stop();
+        if (telemetry != null) {
+            try {
+                telemetry.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        if (qualityLogFile != null && qualityGovernor != null) {
+            try {
+                qualityGovernor.exportLog(Paths.get(qualityLogFile));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        if (timingsFile != null) {
+            try {
+                profiler.exportCsv(Paths.get(timingsFile));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        if (replay != null) {
+            try {
+                replay.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        for (GameObject gameObject : gameObjects) gameObject.dispose();
+        gameObjects.clear();
+    }
+
+    /**
+     * Paints are coalesced, the frame is drawn on the next pulse.
+     */
+    private void requestRedraw(FXGraphics2D g2d) {
+        if (redrawScheduler != null) redrawScheduler.requestRedraw();
+    }
 
-        AffineTransform originalTransform = g2d.getTransform();
+    /**
+     * The canvas clears itself when resized, so the frame is painted right away instead of on the next pulse.
+     */
+    private void onCanvasResized(FXGraphics2D g2d) {
+        if (redrawScheduler != null) {
+            redrawScheduler.requestRedraw();
+            redrawScheduler.pulse(alpha);
+        }
+    }
+
+    private void update(long now) {
+        if (replay != null) {
+            updateReplay(now);
+            return;
+        }
 
-        g2d.setTransform(camera.getTransform((int) canvas.getWidth(), (int) canvas.getHeight()));
-        g2d.scale(1, Y_AXIS_SCALE);
+        // Hand the mouse target to the simulation and take over the latest poses
+        long start = profiler.begin();
+        if (mousePicker.updateTarget(camera.getTransform((int) canvas.getWidth(), (int) canvas.getHeight()), DEBUG_SCALE)) {
+            int pickedBody = mousePicker.takePickedBody();
+            if (!mousePicker.isTargetActive()) simulation.getCommandQueue().offerRelease(now);
+            else if (pickedBody >= 0) simulation.getCommandQueue().offerPickBody(now, pickedBody, mousePicker.getTargetX(), mousePicker.getTargetY());
+            else simulation.getCommandQueue().offerPick(now, mousePicker.getTargetX(), mousePicker.getTargetY());
+        }
+        profiler.end(FrameProfiler.Phase.PICK, start);
+        PoseSnapshot snapshot = simulation.getSnapshot();
+        renderer.applySnapshot(snapshot);
+        bodyCount = snapshot.getBodyCount();
+        awakeBodies = snapshot.getAwakeBodies();
+        snapshot.getJointPositions(jointPositions);
+        alpha = snapshot.getAlpha(now);
+    }
 
-        // Draw
-        for (GameObject gameObject : gameObjects) gameObject.draw(g2d);
-        if (debugSelected) {
-            g2d.setColor(Color.BLUE);
-            DebugDraw.draw(g2d, world, DEBUG_SCALE);
+    /**
+     * Shows the recorded frame at the replay time, no physics run while replaying.
+     */
+    private void updateReplay(long now) {
+        if (lastReplayNanos >= 0 && replayPlaying && !replaySlider.isValueChanging()) {
+            replaySlider.setValue(Math.min(replay.getDuration(), replayTime + (now - lastReplayNanos) / 1e9));
         }
+        lastReplayNanos = now;
+        if (replay.getFrameCount() == 0) return;
+
+        replay.read(replay.getFrameAt(replayTime), armModel.getWorld(), replaySnapshot);
+        renderer.applySnapshot(replaySnapshot);
+        replaySnapshot.getJointPositions(jointPositions);
+        alpha = 1;
+    }
 
-        g2d.setTransform(originalTransform);
+    /**
+     * Maps the reachability map of the arm from the directory in the background, or builds it there the first time,
+     * and hands it to the solver once it is there. Until then the solver searches without it.
+     */
+    private void loadReachabilityMap(Path directory) {
+        ArmGeometry geometry = inverseKinematics.getGeometry();
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                return ReachabilityMap.loadOrBuild(directory, geometry);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }).whenComplete((map, error) -> {
+            if (error != null) error.printStackTrace();
+            else Platform.runLater(() -> inverseKinematics.setReachabilityMap(map));
+        });
+    }
+
+    /**
+     * Solves the joint positions that put the tip of the head on the target and lets the simulation servo there, along
+     * a path around the other bodies in the world. The obstacles are taken on the simulation thread and the path is
+     * planned on the common pool.
+     *
+     * @return false if the target is out of reach or a recording is being replayed
+     */
+    public boolean moveHeadTo(double x, double y) {
+        if (replay != null) return false;
+        if (!inverseKinematics.solve(x, y, jointPositions, jointTargets)) return false;
+        double[] goal = jointTargets.clone();
+        simulation.submit(model -> {
+            MotionPlanner.Obstacles obstacles = motionPlanner.capture(model.getWorld());
+            double[] start = new double[goal.length];
+            for (ArmJoint joint : ArmJoint.values()) start[joint.ordinal()] = model.getJointPosition(joint);
+            CompletableFuture.supplyAsync(() -> motionPlanner.plan(obstacles, start, goal)).whenComplete((plan, error) -> {
+                if (error != null) error.printStackTrace();
+                else if (plan.isFound()) simulation.followPath(plan);
+                else System.err.println("No path to the target: " + plan);
+            });
+        });
+        return true;
+    }
+
+    private void onMouseClicked(MouseEvent mouseEvent) {
+        if (mouseEvent.getButton() != MouseButton.SECONDARY) return;
+        try {
+            Point2D target = camera.getTransform((int) canvas.getWidth(), (int) canvas.getHeight())
+                    .inverseTransform(new Point2D.Double(mouseEvent.getX(), mouseEvent.getY()), null);
+            moveHeadTo(target.getX() / DEBUG_SCALE, target.getY() / (Y_AXIS_SCALE * DEBUG_SCALE));
+        } catch (NoninvertibleTransformException e) {
+            e.printStackTrace();
+        }
     }
 
-    private void update(double deltaTime) {
-        world.update(deltaTime);
-        mousePicker.update(world, camera.getTransform((int) canvas.getWidth(), (int) canvas.getHeight()), DEBUG_SCALE);
+    /**
+     * Motors are only touched by the simulation thread, so the change is queued.
+     */
+    private void setMotorSpeed(ArmJoint joint, double speed) {
+        if (replay != null) return;
+        simulation.getCommandQueue().offerMotorSpeed(System.nanoTime(), joint, speed);
     }
 
     private void onKeyPressed(KeyEvent keyEvent) {
@@ -254,52 +592,50 @@ public class RoboticArm extends Application {
             case F11:
                 primaryStage.setFullScreen(!primaryStage.isFullScreen());
                 break;
+            // Go back in time
+            case BACK_SPACE:
+                if (replay == null) simulation.rewind(REWIND_STEP);
+                break;
+            // Pause or resume a replay
+            case SPACE:
+                replayPlaying = !replayPlaying;
+                break;
             // Move base
             case A:
             case LEFT:
-                System.out.println("Move base left");
-                baseJoint.setMotorSpeed(BASE_MOVEMENT_SPEED);
+                setMotorSpeed(ArmJoint.BASE, BASE_MOVEMENT_SPEED);
                 break;
             case D:
             case RIGHT:
-                System.out.println("Move base right");
-                baseJoint.setMotorSpeed(-BASE_MOVEMENT_SPEED);
+                setMotorSpeed(ArmJoint.BASE, -BASE_MOVEMENT_SPEED);
                 break;
             // Move large segment
             case N:
-                System.out.println("Rotate large left");
-                baseLargeJoint.setMotorSpeed(-ROTATION_SPEED);
+                setMotorSpeed(ArmJoint.LARGE, -ROTATION_SPEED);
                 break;
             case M:
-                System.out.println("Rotate large right");
-                baseLargeJoint.setMotorSpeed(ROTATION_SPEED);
+                setMotorSpeed(ArmJoint.LARGE, ROTATION_SPEED);
                 break;
             // Move medium segment
             case H:
-                System.out.println("Rotate medium left");
-                largeMediumJoint.setMotorSpeed(-ROTATION_SPEED);
+                setMotorSpeed(ArmJoint.MEDIUM, -ROTATION_SPEED);
                 break;
             case J:
-                System.out.println("Rotate medium right");
-                largeMediumJoint.setMotorSpeed(ROTATION_SPEED);
+                setMotorSpeed(ArmJoint.MEDIUM, ROTATION_SPEED);
                 break;
             // Move small segment
             case Y:
-                System.out.println("Rotate small left");
-                mediumSmallJoint.setMotorSpeed(-ROTATION_SPEED);
+                setMotorSpeed(ArmJoint.SMALL, -ROTATION_SPEED);
                 break;
             case U:
-                System.out.println("Rotate small right");
-                mediumSmallJoint.setMotorSpeed(ROTATION_SPEED);
+                setMotorSpeed(ArmJoint.SMALL, ROTATION_SPEED);
                 break;
             // Move head segment
             case DIGIT6:
-                System.out.println("Rotate head left");
-                smallHeadJoint.setMotorSpeed(-ROTATION_SPEED);
+                setMotorSpeed(ArmJoint.HEAD, -ROTATION_SPEED);
                 break;
             case DIGIT7:
-                System.out.println("Rotate head right");
-                smallHeadJoint.setMotorSpeed(ROTATION_SPEED);
+                setMotorSpeed(ArmJoint.HEAD, ROTATION_SPEED);
                 break;
         }
     }
@@ -311,27 +647,27 @@ public class RoboticArm extends Application {
             case LEFT:
             case D:
             case RIGHT:
-                baseJoint.setMotorSpeed(0);
+                setMotorSpeed(ArmJoint.BASE, 0);
                 break;
             // Stop large segment movement
             case N:
             case M:
-                baseLargeJoint.setMotorSpeed(0);
+                setMotorSpeed(ArmJoint.LARGE, 0);
                 break;
             // Stop medium segment movement
             case H:
             case J:
-                largeMediumJoint.setMotorSpeed(0);
+                setMotorSpeed(ArmJoint.MEDIUM, 0);
                 break;
             // Stop small segment movement
             case Y:
             case U:
-                mediumSmallJoint.setMotorSpeed(0);
+                setMotorSpeed(ArmJoint.SMALL, 0);
                 break;
             // Stop head segment movement
             case DIGIT6:
             case DIGIT7:
-                smallHeadJoint.setMotorSpeed(0);
+                setMotorSpeed(ArmJoint.HEAD, 0);
                 break;
         }
     }
@@ -0,0 +1,238 @@
+package roboticarm.kinematics;
+
+import org.dyn4j.dynamics.Body;
+import org.dyn4j.geometry.Vector2;
+import roboticarm.simulation.ArmJoint;
+import roboticarm.simulation.ArmModel;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * The kinematic chain of the arm: where every joint sits relative to the previous one, how far each joint may
+ * move, and how fast the motors can move it. Measured from an arm model, so it follows any change to the bodies in
+ * {@link ArmModel}.
+ * <p>
+ * Joint positions use the same convention as {@link ArmModel#getJointPosition(ArmJoint)}. The base translation moves
+ * the arm along the x axis, and every revolute joint angle turns the rest of the chain clockwise, so the world
+ * rotation of a segment is minus the sum of the joint angles up to it. The tool is the tip of the head extension.
+ *
+ * @since 2026-10-17
+ */
+public final class ArmGeometry {
+    /**
+     * The number of revolute links between the base and the head.
+     */
+    public static final int LINKS = 3;
+    private static final ArmJoint[] JOINTS = ArmJoint.values();
+    // Part of the spare motor effort that may be spent on acceleration, the rest covers the coupling between joints
+    private static final double LOAD_MARGIN = 0.8;
+    private static final double MINIMUM_SPARE_EFFORT = 0.1;
+    private final double baseX;
+    private final double baseY;
+    // Offsets from each joint to the next one, in the frame of the segment between them
+    private final double[] offsetX = new double[LINKS + 2];
+    private final double[] offsetY = new double[LINKS + 2];
+    private final double[] lowerLimits = new double[JOINTS.length];
+    private final double[] upperLimits = new double[JOINTS.length];
+    private final double[] maximumEfforts = new double[JOINTS.length];
+    private final double[] maximumSpeeds = new double[JOINTS.length];
+    private final double[] maximumAccelerations = new double[JOINTS.length];
+
+    private ArmGeometry(ArmModel model) {
+        Body upperBase = model.getUpperBase();
+        Body[] segments = {model.getLargeSegment(), model.getMediumSegment(), model.getSmallSegment(),
+                model.getHeadSegment()};
+        Body extension = model.getHeadExtension();
+        baseX = upperBase.getTransform().getTranslationX() - model.getJointPosition(ArmJoint.BASE);
+        baseY = upperBase.getTransform().getTranslationY();
+
+        // Offset 0 is from the base slider to the large joint, offset 4 from the head joint to the tool tip. Measured
+        // in the frame of the previous body, so the arm does not have to be in its rest pose.
+        Body previous = upperBase;
+        for (int i = 0; i < segments.length; i++) {
+            setOffset(i, previous, segments[i].getTransform().getTransformed(new Vector2()));
+            previous = segments[i];
+        }
+        double tipY = extension.getFixture(0).getShape().createAABB().getMaxY();
+        setOffset(LINKS + 1, previous, extension.getTransform().getTransformed(new Vector2(0, tipY)));
+
+        for (ArmJoint joint : JOINTS) {
+            lowerLimits[joint.ordinal()] = model.getLowerLimit(joint);
+            upperLimits[joint.ordinal()] = model.getUpperLimit(joint);
+            maximumEfforts[joint.ordinal()] = model.getMaximumMotorEffort(joint);
+            maximumSpeeds[joint.ordinal()] = model.getMaximumSpeed(joint);
+        }
+
+        // Mass, inertia and center of every moving body, with the chain stretched out straight from the large joint
+        Body[] moving = {segments[0], segments[1], segments[2], segments[3], extension};
+        double[] centerX = new double[moving.length];
+        double[] centerY = new double[moving.length];
+        double totalMass = upperBase.getMass().getMass();
+        for (int i = 0; i < moving.length; i++) {
+            if (i > 0 && i < segments.length) {
+                centerX[i] = centerX[i - 1] + offsetX[i];
+                centerY[i] = centerY[i - 1] + offsetY[i];
+            } else if (i == segments.length) {
+                Vector2 local = segments[3].getLocalPoint(extension.getWorldCenter());
+                centerX[i] = centerX[i - 1] + local.x;
+                centerY[i] = centerY[i - 1] + local.y;
+            }
+            totalMass += moving[i].getMass().getMass();
+        }
+        maximumAccelerations[0] = LOAD_MARGIN * maximumEfforts[0] / totalMass;
+
+        // Each revolute motor has to carry the bodies beyond it, tilted as far as the joint limits allow
+        double tilt = 0;
+        for (int joint = 1; joint < JOINTS.length; joint++) {
+            tilt += Math.max(Math.abs(lowerLimits[joint]), Math.abs(upperLimits[joint]));
+            double inertia = 0;
+            double moment = 0;
+            for (int i = joint - 1; i < moving.length; i++) {
+                double distance = Math.hypot(centerX[i] - centerX[joint - 1], centerY[i] - centerY[joint - 1]);
+                double mass = moving[i].getMass().getMass();
+                inertia += moving[i].getMass().getInertia() + mass * distance * distance;
+                moment += mass * distance;
+            }
+            double gravity = ArmModel.GRAVITY * moment * Math.sin(Math.min(Math.PI / 2, tilt));
+            double spare = Math.max(maximumEfforts[joint] - gravity, MINIMUM_SPARE_EFFORT * maximumEfforts[joint]);
+            maximumAccelerations[joint] = LOAD_MARGIN * spare / inertia;
+        }
+    }
+
+    private void setOffset(int link, Body previous, Vector2 worldPoint) {
+        Vector2 local = previous.getLocalPoint(worldPoint);
+        offsetX[link] = local.x;
+        offsetY[link] = local.y;
+    }
+
+    /**
+     * Measures the geometry of a model, in any pose.
+     */
+    public static ArmGeometry of(ArmModel model) {
+        return new ArmGeometry(model);
+    }
+
+    /**
+     * @return the geometry of a freshly built arm
+     */
+    public static ArmGeometry createDefault() {
+        return new ArmGeometry(new ArmModel());
+    }
+
+    /**
+     * Computes the pose of the tool.
+     *
+     * @param positions joint positions indexed by {@link ArmJoint#ordinal()}
+     * @param result    receives the tool x, y and world rotation
+     */
+    public void forward(double[] positions, double[] result) {
+        double x = baseX + positions[0] + offsetX[0];
+        double y = baseY + offsetY[0];
+        double rotation = 0;
+        for (int i = 1; i < LINKS + 2; i++) {
+            rotation -= positions[i];
+            double cos = Math.cos(rotation);
+            double sin = Math.sin(rotation);
+            x += cos * offsetX[i] - sin * offsetY[i];
+            y += sin * offsetX[i] + cos * offsetY[i];
+        }
+        result[0] = x;
+        result[1] = y;
+        result[2] = rotation;
+    }
+
+    /**
+     * @return true if every position lies within the limits of its joint
+     */
+    public boolean isWithinLimits(double[] positions) {
+        for (int i = 0; i < JOINTS.length; i++) {
+            if (positions[i] < lowerLimits[i] || positions[i] > upperLimits[i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return the x coordinate of the base slider when the base joint is at zero
+     */
+    public double getBaseX() {
+        return baseX;
+    }
+
+    public double getBaseY() {
+        return baseY;
+    }
+
+    /**
+     * @param link 0 for the base slider to the large joint, up to {@link #LINKS} + 1 for the head joint to the tool
+     */
+    public double getOffsetX(int link) {
+        return offsetX[link];
+    }
+
+    public double getOffsetY(int link) {
+        return offsetY[link];
+    }
+
+    public double getLength(int link) {
+        return Math.hypot(offsetX[link], offsetY[link]);
+    }
+
+    public double getLowerLimit(ArmJoint joint) {
+        return lowerLimits[joint.ordinal()];
+    }
+
+    public double getUpperLimit(ArmJoint joint) {
+        return upperLimits[joint.ordinal()];
+    }
+
+    public double getMaximumEffort(ArmJoint joint) {
+        return maximumEfforts[joint.ordinal()];
+    }
+
+    public double getMaximumSpeed(ArmJoint joint) {
+        return maximumSpeeds[joint.ordinal()];
+    }
+
+    /**
+     * @return the acceleration the motor of the joint can sustain against gravity with the arm fully stretched, in
+     * meters or radians per second squared
+     */
+    public double getMaximumAcceleration(ArmJoint joint) {
+        return maximumAccelerations[joint.ordinal()];
+    }
+
+    /**
+     * @return a stable description of every dimension and limit, equal for equal geometries
+     */
+    public String getKey() {
+        StringBuilder builder = new StringBuilder(String.format(Locale.ROOT, "%.6f,%.6f", baseX, baseY));
+        for (int i = 0; i < offsetX.length; i++) {
+            builder.append(String.format(Locale.ROOT, ";%.6f,%.6f", offsetX[i], offsetY[i]));
+        }
+        for (int i = 0; i < JOINTS.length; i++) {
+            builder.append(String.format(Locale.ROOT, ";%.6f,%.6f", lowerLimits[i], upperLimits[i]));
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) return true;
+        if (!(other instanceof ArmGeometry)) return false;
+        ArmGeometry geometry = (ArmGeometry) other;
+        return baseX == geometry.baseX && baseY == geometry.baseY && Arrays.equals(offsetX, geometry.offsetX)
+                && Arrays.equals(offsetY, geometry.offsetY) && Arrays.equals(lowerLimits, geometry.lowerLimits)
+                && Arrays.equals(upperLimits, geometry.upperLimits);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = Double.hashCode(baseX) * 31 + Double.hashCode(baseY);
+        hash = hash * 31 + Arrays.hashCode(offsetX);
+        hash = hash * 31 + Arrays.hashCode(offsetY);
+        hash = hash * 31 + Arrays.hashCode(lowerLimits);
+        return hash * 31 + Arrays.hashCode(upperLimits);
+    }
+
+}
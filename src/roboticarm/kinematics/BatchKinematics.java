@@ -0,0 +1,362 @@
+package roboticarm.kinematics;
+
+import org.dyn4j.dynamics.Body;
+import org.dyn4j.geometry.Transform;
+import org.dyn4j.geometry.Vector2;
+import roboticarm.simulation.ArmJoint;
+import roboticarm.simulation.ArmModel;
+import roboticarm.simulation.JointServo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Computes the poses of the arm bodies and the tool for many joint configurations at once, from the offsets and
+ * joint anchors measured in {@link ArmGeometry}. A {@link Batch} keeps every joint position and every pose component
+ * in an array of its own, indexed by sample, so no object is created per sample. Large batches are split into chunks
+ * that run on a fork-join pool.
+ * <p>
+ * The frames are the origins of the upper base and the four segments, as the physics world places the bodies, and
+ * the tip of the head extension. {@link #main(String[])} reports how far they are from the poses the world settles
+ * to and measures the throughput, {@code roboticarm.benchmark.KinematicsCheck} fails when they are further off than
+ * it allows.
+ * <pre>
+ * java roboticarm.kinematics.BatchKinematics [--poses n] [--samples n] [--threads n] [--seed n]
+ * </pre>
+ *
+ * @since 2026-10-17
+ */
+public class BatchKinematics {
+    public static final int UPPER_BASE = 0;
+    public static final int LARGE_SEGMENT = 1;
+    public static final int MEDIUM_SEGMENT = 2;
+    public static final int SMALL_SEGMENT = 3;
+    public static final int HEAD_SEGMENT = 4;
+    public static final int TOOL = 5;
+    public static final int FRAMES = 6;
+    private static final int JOINT_COUNT = ArmJoint.values().length;
+    private static final int CHUNK_SIZE = 16 << 10;
+    private static final int PARALLEL_THRESHOLD = 4 * CHUNK_SIZE;
+    private static final double SETTLE_STEP_TIME = 1.0 / 240;
+    private static final double SETTLE_TIMEOUT = 10;
+    private static final double SETTLED_SPEED = 1e-4;
+    private final double baseX;
+    private final double baseY;
+    private final double[] offsetX = new double[ArmGeometry.LINKS + 2];
+    private final double[] offsetY = new double[ArmGeometry.LINKS + 2];
+    private final ForkJoinPool pool;
+
+    public BatchKinematics(ArmGeometry geometry) {
+        this(geometry, ForkJoinPool.commonPool());
+    }
+
+    public BatchKinematics(ArmGeometry geometry, ForkJoinPool pool) {
+        this.baseX = geometry.getBaseX();
+        this.baseY = geometry.getBaseY();
+        for (int link = 0; link < offsetX.length; link++) {
+            offsetX[link] = geometry.getOffsetX(link);
+            offsetY[link] = geometry.getOffsetY(link);
+        }
+        this.pool = pool;
+    }
+
+    public static void main(String[] args) {
+        int poses = 50;
+        int samples = 1 << 20;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long seed = 1;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--poses":
+                    poses = Integer.parseInt(args[++i]);
+                    break;
+                case "--samples":
+                    samples = Integer.parseInt(args[++i]);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        BatchKinematics kinematics = new BatchKinematics(ArmGeometry.createDefault(), pool);
+        Random random = new Random(seed);
+        System.out.println(kinematics.validate(poses, random));
+
+        Batch batch = new Batch(samples, false);
+        batch.fillRandom(ArmGeometry.createDefault(), random);
+        for (int warmup = 0; warmup < 5; warmup++) {
+            kinematics.compute(batch, 0, samples);
+            kinematics.compute(batch);
+        }
+        long start = System.nanoTime();
+        kinematics.compute(batch, 0, samples);
+        long serial = System.nanoTime() - start;
+        start = System.nanoTime();
+        kinematics.compute(batch);
+        long parallel = System.nanoTime() - start;
+        System.out.println(String.format(Locale.ROOT, "%d samples: %.1f ms on one thread (%.1f M/s), %.1f ms on %d "
+                        + "threads (%.1f M/s)", samples, serial / 1e6, samples * 1e3 / serial, parallel / 1e6, threads,
+                samples * 1e3 / parallel));
+        pool.shutdown();
+    }
+
+    /**
+     * Computes the poses of every sample in the batch, in parallel when the batch is large.
+     */
+    public void compute(Batch batch) {
+        int size = batch.size;
+        if (size < PARALLEL_THRESHOLD) {
+            compute(batch, 0, size);
+            return;
+        }
+        List<ForkJoinTask<?>> tasks = new ArrayList<>((size + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        for (int from = 0; from < size; from += CHUNK_SIZE) {
+            int start = from;
+            int end = Math.min(size, from + CHUNK_SIZE);
+            tasks.add(pool.submit(() -> compute(batch, start, end)));
+        }
+        for (ForkJoinTask<?> task : tasks) task.join();
+    }
+
+    /**
+     * Computes the poses of the samples from the first to the last, exclusive, on the calling thread.
+     */
+    public void compute(Batch batch, int from, int to) {
+        double[] q0 = batch.positions[0];
+        double[] q1 = batch.positions[1];
+        double[] q2 = batch.positions[2];
+        double[] q3 = batch.positions[3];
+        double[] q4 = batch.positions[4];
+        boolean all = batch.allFrames;
+        for (int i = from; i < to; i++) {
+            double x = baseX + q0[i];
+            double y = baseY;
+            if (all) batch.set(UPPER_BASE, i, x, y, 0);
+
+            // The upper base does not rotate, the chain turns at every revolute joint after it
+            x += offsetX[0];
+            y += offsetY[0];
+            double rotation = -q1[i];
+            if (all) batch.set(LARGE_SEGMENT, i, x, y, rotation);
+            double cos = Math.cos(rotation);
+            double sin = Math.sin(rotation);
+            x += cos * offsetX[1] - sin * offsetY[1];
+            y += sin * offsetX[1] + cos * offsetY[1];
+
+            rotation -= q2[i];
+            if (all) batch.set(MEDIUM_SEGMENT, i, x, y, rotation);
+            cos = Math.cos(rotation);
+            sin = Math.sin(rotation);
+            x += cos * offsetX[2] - sin * offsetY[2];
+            y += sin * offsetX[2] + cos * offsetY[2];
+
+            rotation -= q3[i];
+            if (all) batch.set(SMALL_SEGMENT, i, x, y, rotation);
+            cos = Math.cos(rotation);
+            sin = Math.sin(rotation);
+            x += cos * offsetX[3] - sin * offsetY[3];
+            y += sin * offsetX[3] + cos * offsetY[3];
+
+            rotation -= q4[i];
+            if (all) batch.set(HEAD_SEGMENT, i, x, y, rotation);
+            cos = Math.cos(rotation);
+            sin = Math.sin(rotation);
+            x += cos * offsetX[4] - sin * offsetY[4];
+            y += sin * offsetX[4] + cos * offsetY[4];
+            batch.set(TOOL, i, x, y, rotation);
+        }
+    }
+
+    /**
+     * Drives a physics arm to random joint targets, lets it settle, and compares the bodies with the poses computed
+     * from the joint positions it settled at.
+     *
+     * @return the largest position and rotation error over all poses and frames
+     */
+    public Validation validate(int poses, Random random) {
+        ArmModel model = new ArmModel();
+        ArmGeometry geometry = ArmGeometry.of(model);
+        JointServo servo = new JointServo(geometry);
+        Body[] bodies = {model.getUpperBase(), model.getLargeSegment(), model.getMediumSegment(),
+                model.getSmallSegment(), model.getHeadSegment()};
+        Body extension = model.getHeadExtension();
+        Vector2 tip = new Vector2(0, extension.getFixture(0).getShape().createAABB().getMaxY());
+
+        Batch batch = new Batch(1, true);
+        Validation validation = new Validation();
+        for (int pose = 0; pose < poses; pose++) {
+            for (ArmJoint joint : ArmJoint.values()) {
+                double lower = geometry.getLowerLimit(joint);
+                double upper = geometry.getUpperLimit(joint);
+                servo.setTarget(joint, lower + (upper - lower) * random.nextDouble());
+            }
+            double time = 0;
+            do {
+                servo.update(model, SETTLE_STEP_TIME);
+                model.step(SETTLE_STEP_TIME);
+                time += SETTLE_STEP_TIME;
+            } while (time < SETTLE_TIMEOUT && (servo.isMoving() || !isSettled(model)));
+            if (time >= SETTLE_TIMEOUT) validation.unsettled++;
+
+            for (ArmJoint joint : ArmJoint.values()) batch.positions[joint.ordinal()][0] = model.getJointPosition(joint);
+            compute(batch, 0, 1);
+            for (int frame = 0; frame < bodies.length; frame++) {
+                Transform transform = bodies[frame].getTransform();
+                validation.add(batch, frame, transform.getTranslationX(), transform.getTranslationY(), transform.getRotation());
+            }
+            Vector2 tool = extension.getTransform().getTransformed(tip);
+            validation.add(batch, TOOL, tool.x, tool.y, extension.getTransform().getRotation());
+            validation.poses++;
+        }
+        return validation;
+    }
+
+    private static boolean isSettled(ArmModel model) {
+        for (ArmJoint joint : ArmJoint.values()) {
+            if (Math.abs(model.getJointSpeed(joint)) > SETTLED_SPEED) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Joint positions and the poses computed from them, one array per component.
+     */
+    public static final class Batch {
+        private final double[][] positions = new double[JOINT_COUNT][];
+        private final double[][] x = new double[FRAMES][];
+        private final double[][] y = new double[FRAMES][];
+        private final double[][] rotation = new double[FRAMES][];
+        private final boolean allFrames;
+        private final int capacity;
+        private int size;
+
+        /**
+         * @param allFrames false to only compute the tool, which takes a third of the memory
+         */
+        public Batch(int capacity, boolean allFrames) {
+            this.capacity = capacity;
+            this.size = capacity;
+            this.allFrames = allFrames;
+            for (int joint = 0; joint < JOINT_COUNT; joint++) positions[joint] = new double[capacity];
+            for (int frame = allFrames ? 0 : TOOL; frame < FRAMES; frame++) {
+                x[frame] = new double[capacity];
+                y[frame] = new double[capacity];
+                rotation[frame] = new double[capacity];
+            }
+        }
+
+        private void set(int frame, int sample, double x, double y, double rotation) {
+            this.x[frame][sample] = x;
+            this.y[frame][sample] = y;
+            this.rotation[frame][sample] = rotation;
+        }
+
+        /**
+         * Fills the batch with joint positions spread uniformly over the limits of the geometry.
+         */
+        public void fillRandom(ArmGeometry geometry, Random random) {
+            for (ArmJoint joint : ArmJoint.values()) {
+                double lower = geometry.getLowerLimit(joint);
+                double range = geometry.getUpperLimit(joint) - lower;
+                double[] values = positions[joint.ordinal()];
+                for (int i = 0; i < size; i++) values[i] = lower + range * random.nextDouble();
+            }
+        }
+
+        /**
+         * @return the positions of the joint for every sample, to be filled in before computing
+         */
+        public double[] getPositions(ArmJoint joint) {
+            return positions[joint.ordinal()];
+        }
+
+        /**
+         * @return the x coordinate of the frame for every sample, or null if the batch only holds the tool
+         */
+        public double[] getX(int frame) {
+            return x[frame];
+        }
+
+        public double[] getY(int frame) {
+            return y[frame];
+        }
+
+        public double[] getRotation(int frame) {
+            return rotation[frame];
+        }
+
+        public boolean hasAllFrames() {
+            return allFrames;
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        /**
+         * Limits computing to the first samples, the arrays keep their capacity.
+         */
+        public void setSize(int size) {
+            if (size < 0 || size > capacity) throw new IllegalArgumentException("Size must be within the capacity");
+            this.size = size;
+        }
+    }
+
+    /**
+     * The largest difference between computed poses and the physics world.
+     */
+    public static final class Validation {
+        private int poses;
+        private int unsettled;
+        private double maximumPositionError;
+        private double maximumRotationError;
+
+        private void add(Batch batch, int frame, double x, double y, double rotation) {
+            double position = Math.hypot(batch.x[frame][0] - x, batch.y[frame][0] - y);
+            double angle = Math.abs(Math.IEEEremainder(batch.rotation[frame][0] - rotation, 2 * Math.PI));
+            maximumPositionError = Math.max(maximumPositionError, position);
+            maximumRotationError = Math.max(maximumRotationError, angle);
+        }
+
+        public int getPoses() {
+            return poses;
+        }
+
+        /**
+         * @return the number of poses the world did not settle in within the timeout, they are compared anyway
+         */
+        public int getUnsettled() {
+            return unsettled;
+        }
+
+        public double getMaximumPositionError() {
+            return maximumPositionError;
+        }
+
+        public double getMaximumRotationError() {
+            return maximumRotationError;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%d poses (%d unsettled): largest position error %.2e m, rotation error "
+                    + "%.2e rad", poses, unsettled, maximumPositionError, maximumRotationError);
+        }
+    }
+
+}
@@ -0,0 +1,295 @@
+package roboticarm.kinematics;
+
+import roboticarm.simulation.ArmJoint;
+
+/**
+ * Finds joint positions that put the tool on a target. The two large links are solved in closed form; the base
+ * translation, the rotation of the small segment and, when the tool rotation is free, the head angle are redundant
+ * and are chosen as close as possible to a seed pose, normally the current one. Solutions always lie within the joint
+ * limits.
+ * <p>
+ * Starting from the seed, a pattern search over the redundant variables converges in about a hundred closed form
+ * evaluations. Only when the seed leads to no valid solution at all is a start looked up in the
+ * {@link ReachabilityMap}, or without one a coarse grid searched. Nothing is allocated while solving, so an instance
+ * must not be shared between threads.
+ *
+ * @since 2026-10-17
+ */
+public class InverseKinematics {
+    private static final int JOINT_COUNT = ArmJoint.values().length;
+    private static final int GRID_BASE = 9;
+    private static final int GRID_ANGLE = 24;
+    private static final int GRID_HEAD = 5;
+    private static final int MAX_ITERATIONS = 100;
+    private static final double BASE_STEP = 0.1;
+    private static final double ANGLE_STEP = 0.05;
+    private static final double TOLERANCE = 1e-4;
+    // Moving the base is heavier than turning a joint, a meter weighs as much as two radians
+    private static final double BASE_WEIGHT = 4;
+    private final ArmGeometry geometry;
+    private final double[] lower = new double[JOINT_COUNT];
+    private final double[] upper = new double[JOINT_COUNT];
+    private final double[] candidate = new double[JOINT_COUNT];
+    private final double[] best = new double[JOINT_COUNT];
+    private final double[] point = new double[3];
+    private final double[] steps = new double[3];
+    private final double[] mapSeed = new double[JOINT_COUNT];
+    private ReachabilityMap reachabilityMap;
+    private final double linkAngle1;
+    private final double linkAngle2;
+    private final double length1;
+    private final double length2;
+    // The world rotations the small segment can reach within the joint limits
+    private final double minimumSmallRotation;
+    private final double maximumSmallRotation;
+    private final double reach;
+    private double[] seed;
+    private double targetX;
+    private double targetY;
+    private double targetRotation;
+    private boolean rotationFree;
+    private int evaluations;
+
+    public InverseKinematics(ArmGeometry geometry) {
+        this.geometry = geometry;
+        for (ArmJoint joint : ArmJoint.values()) {
+            lower[joint.ordinal()] = geometry.getLowerLimit(joint);
+            upper[joint.ordinal()] = geometry.getUpperLimit(joint);
+        }
+        linkAngle1 = Math.atan2(geometry.getOffsetY(1), geometry.getOffsetX(1));
+        linkAngle2 = Math.atan2(geometry.getOffsetY(2), geometry.getOffsetX(2));
+        length1 = geometry.getLength(1);
+        length2 = geometry.getLength(2);
+        minimumSmallRotation = -(upper[1] + upper[2] + upper[3]);
+        maximumSmallRotation = -(lower[1] + lower[2] + lower[3]);
+        reach = length1 + length2 + geometry.getLength(3) + geometry.getLength(4);
+    }
+
+    /**
+     * Solves for a tool position, leaving the tool rotation free.
+     *
+     * @param seed   the joint positions to stay close to, indexed by {@link ArmJoint#ordinal()}
+     * @param result receives the joint positions, may be the seed array
+     * @return false if the target cannot be reached, the result is then left untouched
+     */
+    public boolean solve(double x, double y, double[] seed, double[] result) {
+        return solve(x, y, Double.NaN, seed, result);
+    }
+
+    /**
+     * Solves for a tool position and world rotation. A NaN rotation leaves the rotation free.
+     *
+     * @return false if the target cannot be reached, the result is then left untouched
+     */
+    public boolean solve(double x, double y, double rotation, double[] seed, double[] result) {
+        this.seed = seed;
+        targetX = x;
+        targetY = y;
+        targetRotation = rotation;
+        rotationFree = Double.isNaN(rotation);
+        evaluations = 0;
+        int dimensions = rotationFree ? 3 : 2;
+        if (!isInReach(x, y)) return false;
+
+        // Start at the seed, fall back to the pose of the map or the best grid point if the seed has no valid solution
+        setPoint(seed);
+        double cost = evaluate();
+        if (cost < Double.POSITIVE_INFINITY) System.arraycopy(candidate, 0, best, 0, JOINT_COUNT);
+        else if (reachabilityMap != null) cost = searchMap();
+        else cost = searchGrid();
+        if (cost == Double.POSITIVE_INFINITY) {
+            this.seed = null;
+            return false;
+        }
+
+        // Pattern search over the redundant variables
+        steps[0] = BASE_STEP;
+        steps[1] = ANGLE_STEP;
+        steps[2] = ANGLE_STEP;
+        for (int iteration = 0; iteration < MAX_ITERATIONS && steps[1] > TOLERANCE; iteration++) {
+            boolean improved = false;
+            for (int k = 0; k < dimensions; k++) {
+                for (int direction = -1; direction <= 1; direction += 2) {
+                    double original = point[k];
+                    point[k] = original + direction * steps[k];
+                    double next = evaluate();
+                    if (next < cost) {
+                        // Keep going this way with a longer step
+                        cost = next;
+                        System.arraycopy(candidate, 0, best, 0, JOINT_COUNT);
+                        steps[k] *= 2;
+                        improved = true;
+                        break;
+                    }
+                    point[k] = original;
+                }
+            }
+            if (!improved) {
+                for (int k = 0; k < dimensions; k++) steps[k] *= 0.25;
+            }
+        }
+
+        System.arraycopy(best, 0, result, 0, JOINT_COUNT);
+        this.seed = null;
+        return true;
+    }
+
+    /**
+     * @return false if the target is further away than the stretched arm reaches from anywhere along the base
+     */
+    private boolean isInReach(double x, double y) {
+        double minimumX = geometry.getBaseX() + geometry.getOffsetX(0) + lower[0];
+        double maximumX = geometry.getBaseX() + geometry.getOffsetX(0) + upper[0];
+        double dx = x - Math.max(minimumX, Math.min(maximumX, x));
+        double dy = y - geometry.getBaseY() - geometry.getOffsetY(0);
+        return dx * dx + dy * dy <= reach * reach;
+    }
+
+    private void setPoint(double[] positions) {
+        point[0] = clamp(positions[0], lower[0], upper[0]);
+        point[1] = -(positions[1] + positions[2] + positions[3]);
+        point[2] = clamp(positions[4], lower[4], upper[4]);
+    }
+
+    /**
+     * Starts from the sampled pose nearest to the target, a target without one is taken as out of reach.
+     */
+    private double searchMap() {
+        if (!reachabilityMap.findSeed(targetX, targetY, targetRotation, mapSeed)) return Double.POSITIVE_INFINITY;
+        setPoint(mapSeed);
+        double cost = evaluate();
+        if (cost == Double.POSITIVE_INFINITY) cost = searchGrid();
+        else System.arraycopy(candidate, 0, best, 0, JOINT_COUNT);
+        return cost;
+    }
+
+    private double searchGrid() {
+        double cost = Double.POSITIVE_INFINITY;
+        double bestBase = 0;
+        double bestSmall = 0;
+        double bestHead = 0;
+        int headSamples = rotationFree ? GRID_HEAD : 1;
+        for (int i = 0; i < GRID_BASE; i++) {
+            point[0] = lower[0] + (upper[0] - lower[0]) * i / (GRID_BASE - 1);
+            for (int j = 0; j < GRID_ANGLE; j++) {
+                point[1] = minimumSmallRotation + (maximumSmallRotation - minimumSmallRotation) * j / (GRID_ANGLE - 1);
+                for (int k = 0; k < headSamples; k++) {
+                    point[2] = lower[4] + (upper[4] - lower[4]) * k / (GRID_HEAD - 1);
+                    double next = evaluate();
+                    if (next < cost) {
+                        cost = next;
+                        bestBase = point[0];
+                        bestSmall = point[1];
+                        bestHead = point[2];
+                        System.arraycopy(candidate, 0, best, 0, JOINT_COUNT);
+                    }
+                }
+            }
+        }
+        point[0] = bestBase;
+        point[1] = bestSmall;
+        point[2] = bestHead;
+        return cost;
+    }
+
+    /**
+     * Solves both elbow configurations for the current point and keeps the valid one closest to the seed.
+     *
+     * @return the weighted squared distance to the seed, or infinity if neither configuration is valid
+     */
+    private double evaluate() {
+        evaluations++;
+        double base = point[0];
+        double smallRotation = point[1];
+        double toolRotation = rotationFree ? smallRotation - point[2] : targetRotation;
+        if (base < lower[0] || base > upper[0]) return Double.POSITIVE_INFINITY;
+
+        // Walk back from the tool to the small joint
+        double cos = Math.cos(toolRotation);
+        double sin = Math.sin(toolRotation);
+        double headX = targetX - (cos * geometry.getOffsetX(4) - sin * geometry.getOffsetY(4));
+        double headY = targetY - (sin * geometry.getOffsetX(4) + cos * geometry.getOffsetY(4));
+        cos = Math.cos(smallRotation);
+        sin = Math.sin(smallRotation);
+        double smallX = headX - (cos * geometry.getOffsetX(3) - sin * geometry.getOffsetY(3));
+        double smallY = headY - (sin * geometry.getOffsetX(3) + cos * geometry.getOffsetY(3));
+
+        // Two link solution between the large joint and the small joint
+        double largeX = geometry.getBaseX() + base + geometry.getOffsetX(0);
+        double largeY = geometry.getBaseY() + geometry.getOffsetY(0);
+        double dx = smallX - largeX;
+        double dy = smallY - largeY;
+        double distance = Math.sqrt(dx * dx + dy * dy);
+        if (distance < 1e-9) return Double.POSITIVE_INFINITY;
+        double cosine = (length1 * length1 + distance * distance - length2 * length2) / (2 * length1 * distance);
+        if (cosine < -1 || cosine > 1) return Double.POSITIVE_INFINITY;
+        double direction = Math.atan2(dy, dx);
+        double spread = Math.acos(cosine);
+
+        double cost = Double.POSITIVE_INFINITY;
+        for (int elbow = -1; elbow <= 1; elbow += 2) {
+            double angle1 = direction + elbow * spread;
+            double elbowX = largeX + length1 * Math.cos(angle1);
+            double elbowY = largeY + length1 * Math.sin(angle1);
+            double angle2 = Math.atan2(smallY - elbowY, smallX - elbowX);
+            double largeRotation = angle1 - linkAngle1;
+            double mediumRotation = angle2 - linkAngle2;
+
+            double q1 = wrap(-largeRotation);
+            double q2 = wrap(largeRotation - mediumRotation);
+            double q3 = wrap(mediumRotation - smallRotation);
+            double q4 = wrap(smallRotation - toolRotation);
+            if (q1 < lower[1] || q1 > upper[1] || q2 < lower[2] || q2 > upper[2]
+                    || q3 < lower[3] || q3 > upper[3] || q4 < lower[4] || q4 > upper[4]) continue;
+
+            double next = BASE_WEIGHT * square(base - seed[0]) + square(q1 - seed[1]) + square(q2 - seed[2])
+                    + square(q3 - seed[3]) + square(q4 - seed[4]);
+            if (next < cost) {
+                cost = next;
+                candidate[0] = base;
+                candidate[1] = q1;
+                candidate[2] = q2;
+                candidate[3] = q3;
+                candidate[4] = q4;
+            }
+        }
+        return cost;
+    }
+
+    /**
+     * @return the number of closed form evaluations the last solve needed
+     */
+    public int getEvaluations() {
+        return evaluations;
+    }
+
+    /**
+     * Looks up starting poses in the map instead of searching a grid, the map must be built for the same geometry.
+     */
+    public void setReachabilityMap(ReachabilityMap reachabilityMap) {
+        if (reachabilityMap != null && !reachabilityMap.getKey().equals(geometry.getKey())) {
+            throw new IllegalArgumentException("The reachability map was built for another geometry");
+        }
+        this.reachabilityMap = reachabilityMap;
+    }
+
+    public ArmGeometry getGeometry() {
+        return geometry;
+    }
+
+    private static double wrap(double angle) {
+        angle %= 2 * Math.PI;
+        if (angle > Math.PI) angle -= 2 * Math.PI;
+        else if (angle < -Math.PI) angle += 2 * Math.PI;
+        return angle;
+    }
+
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    private static double square(double value) {
+        return value * value;
+    }
+
+}
@@ -0,0 +1,114 @@
+package roboticarm.kinematics;
+
+import roboticarm.simulation.ArmJoint;
+
+/**
+ * A synchronized point-to-point move of all joints. Every joint follows the same trapezoidal velocity profile, scaled
+ * to its own distance, so all joints start and stop together and the arm moves along a straight line in joint space.
+ * The profile is as fast as the slowest joint allows: the joint that needs the most time at its
+ * {@link ArmGeometry#getMaximumSpeed(ArmJoint) maximum speed} and
+ * {@link ArmGeometry#getMaximumAcceleration(ArmJoint) acceleration} sets the pace for the others.
+ * <p>
+ * A trajectory can be planned again at any time without allocating.
+ *
+ * @since 2026-10-17
+ */
+public class JointTrajectory {
+    private static final int JOINT_COUNT = ArmJoint.values().length;
+    private final double[] maximumSpeeds = new double[JOINT_COUNT];
+    private final double[] maximumAccelerations = new double[JOINT_COUNT];
+    private final double[] start = new double[JOINT_COUNT];
+    private final double[] distances = new double[JOINT_COUNT];
+    // Profile of the fraction of the move covered, from 0 to 1
+    private double speed;
+    private double acceleration;
+    private double accelerationTime;
+    private double duration;
+
+    public JointTrajectory(ArmGeometry geometry) {
+        for (ArmJoint joint : ArmJoint.values()) {
+            maximumSpeeds[joint.ordinal()] = geometry.getMaximumSpeed(joint);
+            maximumAccelerations[joint.ordinal()] = geometry.getMaximumAcceleration(joint);
+        }
+    }
+
+    /**
+     * Plans the fastest synchronized move between two poses, both at rest.
+     *
+     * @return the duration of the move in seconds
+     */
+    public double plan(double[] from, double[] to) {
+        speed = Double.POSITIVE_INFINITY;
+        acceleration = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < JOINT_COUNT; i++) {
+            start[i] = from[i];
+            distances[i] = to[i] - from[i];
+            double distance = Math.abs(distances[i]);
+            if (distance == 0) continue;
+            speed = Math.min(speed, maximumSpeeds[i] / distance);
+            acceleration = Math.min(acceleration, maximumAccelerations[i] / distance);
+        }
+
+        if (speed == Double.POSITIVE_INFINITY) {
+            accelerationTime = 0;
+            duration = 0;
+        } else if (speed * speed / acceleration >= 1) {
+            // Triangular: the cruise speed is never reached
+            accelerationTime = Math.sqrt(1 / acceleration);
+            speed = acceleration * accelerationTime;
+            duration = 2 * accelerationTime;
+        } else {
+            accelerationTime = speed / acceleration;
+            duration = accelerationTime + 1 / speed;
+        }
+        return duration;
+    }
+
+    public double getPosition(ArmJoint joint, double time) {
+        return start[joint.ordinal()] + distances[joint.ordinal()] * getProgress(time);
+    }
+
+    public double getVelocity(ArmJoint joint, double time) {
+        return distances[joint.ordinal()] * getProgressSpeed(time);
+    }
+
+    public double getAcceleration(ArmJoint joint, double time) {
+        if (time <= 0 || time >= duration) return 0;
+        if (time < accelerationTime) return distances[joint.ordinal()] * acceleration;
+        if (time > duration - accelerationTime) return -distances[joint.ordinal()] * acceleration;
+        return 0;
+    }
+
+    public double getTarget(ArmJoint joint) {
+        return start[joint.ordinal()] + distances[joint.ordinal()];
+    }
+
+    /**
+     * @return the fraction of the move covered at the given time
+     */
+    private double getProgress(double time) {
+        if (time <= 0) return 0;
+        if (time >= duration) return 1;
+        if (time < accelerationTime) return 0.5 * acceleration * time * time;
+        double remaining = duration - time;
+        if (remaining < accelerationTime) return 1 - 0.5 * acceleration * remaining * remaining;
+        return 0.5 * speed * accelerationTime + speed * (time - accelerationTime);
+    }
+
+    private double getProgressSpeed(double time) {
+        if (time <= 0 || time >= duration) return 0;
+        if (time < accelerationTime) return acceleration * time;
+        double remaining = duration - time;
+        if (remaining < accelerationTime) return acceleration * remaining;
+        return speed;
+    }
+
+    public double getDuration() {
+        return duration;
+    }
+
+    public boolean isFinished(double time) {
+        return time >= duration;
+    }
+
+}
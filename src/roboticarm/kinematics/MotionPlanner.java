@@ -0,0 +1,839 @@
+package roboticarm.kinematics;
+
+import org.dyn4j.collision.Filter;
+import org.dyn4j.collision.narrowphase.Gjk;
+import org.dyn4j.dynamics.Body;
+import org.dyn4j.dynamics.BodyFixture;
+import org.dyn4j.dynamics.World;
+import org.dyn4j.geometry.AABB;
+import org.dyn4j.geometry.Convex;
+import org.dyn4j.geometry.Geometry;
+import org.dyn4j.geometry.MassType;
+import org.dyn4j.geometry.Transform;
+import org.dyn4j.geometry.Vector2;
+import roboticarm.simulation.ArmJoint;
+import roboticarm.simulation.ArmModel;
+import roboticarm.simulation.StressScene;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Plans moves of the arm in joint space that keep the arm clear of the other bodies in the world. The arm is tested
+ * with the shapes of its own fixtures, placed by forward kinematics, against a snapshot of the fixtures of every body
+ * that is not held by a joint. Shapes are shared, not copied, and every thread tests with its own transforms.
+ * <p>
+ * A move that is clear along the straight line in joint space is taken as it is. Otherwise the planner searches a
+ * probabilistic roadmap: collision-free poses sampled over the joint limits, each connected to its nearest neighbours
+ * by straight moves that are clear. Sampling and validating the connections run on a fork-join pool. The roadmap is
+ * kept for as long as the obstacles do not move, so further plans in a static scene only connect the start and the
+ * goal and search the graph. The path found is shortened by replacing stretches of it with straight moves where
+ * those are clear.
+ * <p>
+ * The moves between waypoints are straight in joint space, as {@link roboticarm.simulation.JointServo} drives them.
+ * The arm is not tested against itself, its joint limits keep the segments apart.
+ * <pre>
+ * java roboticarm.kinematics.MotionPlanner [--parts n] [--queries n] [--nodes n] [--threads n] [--seed n]
+ * </pre>
+ *
+ * @since 2026-10-17
+ */
+public class MotionPlanner {
+    private static final int JOINT_COUNT = ArmJoint.values().length;
+    public static final int DEFAULT_NODES = 1000;
+    public static final int DEFAULT_NEIGHBOURS = 10;
+    private static final int MAX_NODES = 4000;
+    private static final double BEAM_WIDTH = 2;
+    private static final double BEAM_HEIGHT = 1;
+    private static final double BEAM_Y = 5;
+    private static final double TARGET_X = 9;
+    private static final double TARGET_Y = -2;
+    private static final int SAMPLE_ATTEMPTS = 50;
+    private static final int SHORTCUT_ATTEMPTS = 60;
+    // Largest change of a joint between two tested poses of a move, in meters and radians
+    private static final double BASE_RESOLUTION = 0.02;
+    private static final double ANGLE_RESOLUTION = 0.01;
+    // Moving the base is heavier than turning a joint, as in the inverse kinematics
+    private static final double BASE_WEIGHT = 4;
+    private static final double GRID_CELL_SIZE = 1;
+    private static final double SAME_POSITION = 1e-6;
+    private final ArmGeometry geometry;
+    private final ForkJoinPool pool;
+    private final double[] lower = new double[JOINT_COUNT];
+    private final double[] upper = new double[JOINT_COUNT];
+    // The fixtures of the moving bodies of the arm, the first five follow the frames of BatchKinematics and the last
+    // one the head extension
+    private final Body[] armBodies;
+    private final Convex[][] armShapes;
+    private final Filter[][] armFilters;
+    private final double[][] armCenterX;
+    private final double[][] armCenterY;
+    private final double[][] armRadius;
+    private final double extensionX;
+    private final double extensionY;
+    private final double extensionRotation;
+    private final BatchKinematics kinematics;
+    private int nodeCount = DEFAULT_NODES;
+    private int neighbours = DEFAULT_NEIGHBOURS;
+    private Roadmap roadmap;
+
+    /**
+     * Measures the arm of the model, call this before the model is stepped on another thread.
+     */
+    public MotionPlanner(ArmModel model, ForkJoinPool pool) {
+        this.geometry = ArmGeometry.of(model);
+        this.pool = pool;
+        this.kinematics = new BatchKinematics(geometry, pool);
+        for (ArmJoint joint : ArmJoint.values()) {
+            lower[joint.ordinal()] = geometry.getLowerLimit(joint);
+            upper[joint.ordinal()] = geometry.getUpperLimit(joint);
+        }
+
+        armBodies = new Body[]{model.getUpperBase(), model.getLargeSegment(), model.getMediumSegment(),
+                model.getSmallSegment(), model.getHeadSegment(), model.getHeadExtension()};
+        armShapes = new Convex[armBodies.length][];
+        armFilters = new Filter[armBodies.length][];
+        armCenterX = new double[armBodies.length][];
+        armCenterY = new double[armBodies.length][];
+        armRadius = new double[armBodies.length][];
+        for (int i = 0; i < armBodies.length; i++) {
+            int count = armBodies[i].getFixtureCount();
+            armShapes[i] = new Convex[count];
+            armFilters[i] = new Filter[count];
+            armCenterX[i] = new double[count];
+            armCenterY[i] = new double[count];
+            armRadius[i] = new double[count];
+            for (int j = 0; j < count; j++) {
+                BodyFixture fixture = armBodies[i].getFixture(j);
+                Convex shape = fixture.getShape();
+                armShapes[i][j] = shape;
+                armFilters[i][j] = fixture.isSensor() ? null : fixture.getFilter();
+                armCenterX[i][j] = shape.getCenter().x;
+                armCenterY[i][j] = shape.getCenter().y;
+                armRadius[i][j] = shape.getRadius();
+            }
+        }
+
+        // The head extension is welded to the head segment
+        Transform head = model.getHeadSegment().getTransform();
+        Transform extension = model.getHeadExtension().getTransform();
+        Vector2 local = head.getInverseTransformed(extension.getTranslation());
+        extensionX = local.x;
+        extensionY = local.y;
+        extensionRotation = extension.getRotation() - head.getRotation();
+    }
+
+    public static void main(String[] args) {
+        int parts = 300;
+        int queries = 20;
+        int nodes = DEFAULT_NODES;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long seed = 1;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--parts":
+                    parts = Integer.parseInt(args[++i]);
+                    break;
+                case "--queries":
+                    queries = Integer.parseInt(args[++i]);
+                    break;
+                case "--nodes":
+                    nodes = Integer.parseInt(args[++i]);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        // A beam above the upright arm blocks the straight moves between the two sides, the parts settle into piles
+        // before planning around them
+        ArmModel model = new ArmModel();
+        StressScene.populate(model, parts, seed);
+        Body beam = new Body();
+        beam.addFixture(Geometry.createRectangle(BEAM_WIDTH, BEAM_HEIGHT));
+        beam.translate(0, BEAM_Y);
+        beam.setMass(MassType.INFINITE);
+        model.getWorld().addBody(beam);
+        for (int step = 0; step < 5 * 240; step++) model.step(1.0 / 240);
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        MotionPlanner planner = new MotionPlanner(model, pool);
+        planner.setNodeCount(nodes);
+        Obstacles obstacles = planner.capture(model.getWorld());
+        InverseKinematics inverseKinematics = new InverseKinematics(planner.getGeometry());
+        Random random = new Random(seed);
+        double[] start = new double[JOINT_COUNT];
+        for (ArmJoint joint : ArmJoint.values()) start[joint.ordinal()] = model.getJointPosition(joint);
+        inverseKinematics.solve(-TARGET_X, TARGET_Y, start, start);
+        double[] goal = new double[JOINT_COUNT];
+        // Straight, built and reused plans, and failures
+        int[] counts = new int[4];
+        double[] millis = new double[4];
+        double[] maxMillis = new double[4];
+        System.out.println(String.format(Locale.ROOT, "%d obstacle fixtures, %d threads", obstacles.size(), threads));
+        for (int query = 0; query < queries; query++) {
+            // Targets just above the piles, alternating between the sides so every move has to get past the beam
+            double x = (query % 2 == 0 ? 1 : -1) * (TARGET_X - 2 + 5 * random.nextDouble());
+            double y = TARGET_Y - 1 + 2 * random.nextDouble();
+            if (!inverseKinematics.solve(x, y, start, goal)) {
+                query--;
+                continue;
+            }
+            Plan plan = planner.plan(obstacles, start, goal);
+            System.out.println(plan);
+            int kind = !plan.isFound() ? 3 : plan.getRoadmapSize() == 0 ? 0 : plan.isRoadmapReused() ? 2 : 1;
+            counts[kind]++;
+            millis[kind] += plan.getPlanningNanos() / 1e6;
+            maxMillis[kind] = Math.max(maxMillis[kind], plan.getPlanningNanos() / 1e6);
+            if (plan.isFound()) plan.getWaypoint(plan.getWaypointCount() - 1, start);
+        }
+        String[] kinds = {"straight", "roadmap built", "roadmap reused", "failed"};
+        for (int kind = 0; kind < kinds.length; kind++) {
+            if (counts[kind] == 0) continue;
+            System.out.println(String.format(Locale.ROOT, "%-15s %3d plans, mean %8.2f ms, max %8.2f ms", kinds[kind],
+                    counts[kind], millis[kind] / counts[kind], maxMillis[kind]));
+        }
+        pool.shutdown();
+    }
+
+    /**
+     * Takes the fixtures and transforms of every body that is not held by a joint, call this on the thread that steps
+     * the world. Bodies of the arm and a body dragged with the mouse are held by joints.
+     */
+    public Obstacles capture(World world) {
+        List<Convex> shapes = new ArrayList<>();
+        List<Filter> filters = new ArrayList<>();
+        List<Transform> transforms = new ArrayList<>();
+        for (int i = 0; i < world.getBodyCount(); i++) {
+            Body body = world.getBody(i);
+            if (!body.isActive() || !body.getJoints().isEmpty()) continue;
+            Transform transform = new Transform();
+            transform.set(body.getTransform());
+            for (int j = 0; j < body.getFixtureCount(); j++) {
+                BodyFixture fixture = body.getFixture(j);
+                if (fixture.isSensor()) continue;
+                shapes.add(fixture.getShape());
+                filters.add(fixture.getFilter());
+                transforms.add(transform);
+            }
+        }
+        return new Obstacles(shapes, filters, transforms);
+    }
+
+    /**
+     * Plans a clear move from the start to the goal, reusing the roadmap if the obstacles are where they were the last
+     * time.
+     *
+     * @param start joint positions indexed by {@link ArmJoint#ordinal()}
+     */
+    public synchronized Plan plan(Obstacles obstacles, double[] start, double[] goal) {
+        long begin = System.nanoTime();
+        Checker checker = new Checker(obstacles);
+        if (checker.collides(start)) return Plan.failed("the start pose collides", System.nanoTime() - begin);
+        if (!geometry.isWithinLimits(goal) || checker.collides(goal)) {
+            return Plan.failed("the goal pose collides", System.nanoTime() - begin);
+        }
+        if (checker.isClear(start, goal)) return new Plan(new double[][]{start.clone(), goal.clone()}, false, 0,
+                System.nanoTime() - begin);
+
+        boolean reused = roadmap != null && roadmap.obstacles.matches(obstacles);
+        if (!reused) roadmap = build(obstacles, nodeCount);
+        double[][] path = search(roadmap, checker, start, goal);
+
+        // Grow the number of poses asked for rather than found, a crowded scene may yield few or none
+        int requested = Math.max(nodeCount, roadmap.size);
+        while (path == null && requested < MAX_NODES) {
+            requested = Math.min(MAX_NODES, requested * 2);
+            roadmap = build(obstacles, requested);
+            reused = false;
+            path = search(roadmap, checker, start, goal);
+        }
+        if (path == null) return Plan.failed("no clear path in " + roadmap.size + " poses", System.nanoTime() - begin);
+        return new Plan(shortcut(path, checker), reused, roadmap.size, System.nanoTime() - begin);
+    }
+
+    /**
+     * Samples clear poses and connects each to its nearest neighbours, both in parallel.
+     */
+    private Roadmap build(Obstacles obstacles, int count) {
+        int tasks = Math.max(1, Math.min(count, pool.getParallelism() * 4));
+        List<ForkJoinTask<double[]>> sampling = new ArrayList<>(tasks);
+        for (int task = 0; task < tasks; task++) {
+            int share = count / tasks + (task < count % tasks ? 1 : 0);
+            long seed = task;
+            sampling.add(pool.submit(() -> sample(obstacles, share, seed)));
+        }
+        double[] flat = new double[count * JOINT_COUNT];
+        int size = 0;
+        for (ForkJoinTask<double[]> task : sampling) {
+            double[] samples = task.join();
+            System.arraycopy(samples, 0, flat, size * JOINT_COUNT, samples.length);
+            size += samples.length / JOINT_COUNT;
+        }
+        Roadmap roadmap = new Roadmap(obstacles, Arrays.copyOf(flat, size * JOINT_COUNT), size);
+
+        List<ForkJoinTask<long[]>> connecting = new ArrayList<>(tasks);
+        int chunk = (size + tasks - 1) / tasks;
+        for (int from = 0; from < size; from += chunk) {
+            int first = from;
+            int last = Math.min(size, from + chunk);
+            connecting.add(pool.submit(() -> connect(roadmap, first, last)));
+        }
+        List<long[]> edges = new ArrayList<>(connecting.size());
+        for (ForkJoinTask<long[]> task : connecting) edges.add(task.join());
+        roadmap.setEdges(edges);
+        return roadmap;
+    }
+
+    private double[] sample(Obstacles obstacles, int count, long seed) {
+        Checker checker = new Checker(obstacles);
+        SplittableRandom random = new SplittableRandom(seed);
+        double[] samples = new double[count * JOINT_COUNT];
+        double[] pose = new double[JOINT_COUNT];
+        int found = 0;
+        for (int attempt = 0; attempt < count * SAMPLE_ATTEMPTS && found < count; attempt++) {
+            for (int i = 0; i < JOINT_COUNT; i++) pose[i] = lower[i] + (upper[i] - lower[i]) * random.nextDouble();
+            if (checker.collides(pose)) continue;
+            System.arraycopy(pose, 0, samples, found * JOINT_COUNT, JOINT_COUNT);
+            found++;
+        }
+        return Arrays.copyOf(samples, found * JOINT_COUNT);
+    }
+
+    /**
+     * Tests the moves from the nodes in the range to their nearest neighbours.
+     *
+     * @return the clear edges, each as the lower node index in the high half and the higher in the low half
+     */
+    private long[] connect(Roadmap roadmap, int first, int last) {
+        Checker checker = new Checker(roadmap.obstacles);
+        int[] nearest = new int[neighbours];
+        double[] distances = new double[neighbours];
+        double[] from = new double[JOINT_COUNT];
+        double[] to = new double[JOINT_COUNT];
+        long[] edges = new long[(last - first) * neighbours];
+        int count = 0;
+        for (int i = first; i < last; i++) {
+            roadmap.get(i, from);
+            int found = findNearest(roadmap, from, i, nearest, distances);
+            for (int k = 0; k < found; k++) {
+                int j = nearest[k];
+                roadmap.get(j, to);
+                if (checker.isClear(from, to)) edges[count++] = (long) Math.min(i, j) << 32 | Math.max(i, j);
+            }
+        }
+        return Arrays.copyOf(edges, count);
+    }
+
+    /**
+     * @return the number of neighbours found, nearest first
+     */
+    private int findNearest(Roadmap roadmap, double[] pose, int exclude, int[] nearest, double[] distances) {
+        int found = 0;
+        for (int j = 0; j < roadmap.size; j++) {
+            if (j == exclude) continue;
+            double distance = roadmap.distance(j, pose);
+            if (found == nearest.length && distance >= distances[found - 1]) continue;
+            int k = found < nearest.length ? found++ : found - 1;
+            while (k > 0 && distances[k - 1] > distance) {
+                nearest[k] = nearest[k - 1];
+                distances[k] = distances[k - 1];
+                k--;
+            }
+            nearest[k] = j;
+            distances[k] = distance;
+        }
+        return found;
+    }
+
+    /**
+     * Connects the start and the goal to the roadmap and finds the shortest path between them through it.
+     *
+     * @return the poses of the path, or null if there is none
+     */
+    private double[][] search(Roadmap roadmap, Checker checker, double[] start, double[] goal) {
+        int[] nearest = new int[neighbours];
+        double[] distances = new double[neighbours];
+        double[] pose = new double[JOINT_COUNT];
+        int size = roadmap.size;
+
+        // Dijkstra over the nodes, seeded with the clear moves from the start
+        double[] cost = new double[size];
+        int[] previous = new int[size];
+        boolean[] done = new boolean[size];
+        Arrays.fill(cost, Double.POSITIVE_INFINITY);
+        Arrays.fill(previous, -1);
+        int found = findNearest(roadmap, start, -1, nearest, distances);
+        for (int k = 0; k < found; k++) {
+            roadmap.get(nearest[k], pose);
+            if (checker.isClear(start, pose)) cost[nearest[k]] = distances[k];
+        }
+
+        // The goal is reached through the clear moves to it
+        double[] goalCost = new double[size];
+        Arrays.fill(goalCost, Double.POSITIVE_INFINITY);
+        found = findNearest(roadmap, goal, -1, nearest, distances);
+        for (int k = 0; k < found; k++) {
+            roadmap.get(nearest[k], pose);
+            if (checker.isClear(pose, goal)) goalCost[nearest[k]] = distances[k];
+        }
+
+        double best = Double.POSITIVE_INFINITY;
+        int last = -1;
+        while (true) {
+            int node = -1;
+            for (int i = 0; i < size; i++) {
+                if (!done[i] && cost[i] < Double.POSITIVE_INFINITY && (node < 0 || cost[i] < cost[node])) node = i;
+            }
+            if (node < 0 || cost[node] >= best) break;
+            done[node] = true;
+            if (cost[node] + goalCost[node] < best) {
+                best = cost[node] + goalCost[node];
+                last = node;
+            }
+            for (int edge = roadmap.offsets[node]; edge < roadmap.offsets[node + 1]; edge++) {
+                int next = roadmap.targets[edge];
+                double nextCost = cost[node] + roadmap.costs[edge];
+                if (!done[next] && nextCost < cost[next]) {
+                    cost[next] = nextCost;
+                    previous[next] = node;
+                }
+            }
+        }
+        if (last < 0) return null;
+
+        int length = 2;
+        for (int node = last; node >= 0; node = previous[node]) length++;
+        double[][] path = new double[length][];
+        path[0] = start.clone();
+        path[length - 1] = goal.clone();
+        int index = length - 2;
+        for (int node = last; node >= 0; node = previous[node]) {
+            path[index] = new double[JOINT_COUNT];
+            roadmap.get(node, path[index--]);
+        }
+        return path;
+    }
+
+    /**
+     * Replaces stretches of the path with straight moves where those are clear, the same pairs are tried on every
+     * run so a plan is repeatable.
+     */
+    private double[][] shortcut(double[][] path, Checker checker) {
+        List<double[]> poses = new ArrayList<>(Arrays.asList(path));
+        SplittableRandom random = new SplittableRandom(poses.size());
+        for (int attempt = 0; attempt < SHORTCUT_ATTEMPTS && poses.size() > 2; attempt++) {
+            int i = random.nextInt(poses.size() - 2);
+            int j = i + 2 + random.nextInt(poses.size() - i - 2);
+            if (checker.isClear(poses.get(i), poses.get(j))) poses.subList(i + 1, j).clear();
+        }
+        // Finish greedily from the start, which also catches pairs the random attempts missed
+        for (int i = 0; i < poses.size() - 2; i++) {
+            for (int j = poses.size() - 1; j > i + 1; j--) {
+                if (!checker.isClear(poses.get(i), poses.get(j))) continue;
+                poses.subList(i + 1, j).clear();
+                break;
+            }
+        }
+        return poses.toArray(new double[poses.size()][]);
+    }
+
+    /**
+     * @return true if the arm in the pose overlaps none of the obstacles
+     */
+    public boolean isClear(Obstacles obstacles, double[] pose) {
+        return !new Checker(obstacles).collides(pose);
+    }
+
+    public ArmGeometry getGeometry() {
+        return geometry;
+    }
+
+    /**
+     * Sets the number of poses sampled for a new roadmap, which is doubled while no path is found.
+     */
+    public void setNodeCount(int nodeCount) {
+        if (nodeCount < 2) throw new IllegalArgumentException("A roadmap needs at least two poses");
+        this.nodeCount = nodeCount;
+    }
+
+    public void setNeighbours(int neighbours) {
+        if (neighbours < 1) throw new IllegalArgumentException("Every pose needs at least one neighbour");
+        this.neighbours = neighbours;
+    }
+
+    /**
+     * The fixtures the arm has to stay clear of, as they were when captured. Their bounds are sorted into a grid, so
+     * a test only reaches the fixtures near the arm.
+     */
+    public static class Obstacles {
+        private final Convex[] shapes;
+        private final Filter[] filters;
+        private final Transform[] transforms;
+        private final double[] minX;
+        private final double[] minY;
+        private final double[] maxX;
+        private final double[] maxY;
+        private double gridX;
+        private double gridY;
+        private int columns;
+        private int rows;
+        private int[] cellOffsets;
+        private int[] cellObstacles;
+
+        private Obstacles(List<Convex> shapes, List<Filter> filters, List<Transform> transforms) {
+            int count = shapes.size();
+            this.shapes = shapes.toArray(new Convex[count]);
+            this.filters = filters.toArray(new Filter[count]);
+            this.transforms = transforms.toArray(new Transform[count]);
+            minX = new double[count];
+            minY = new double[count];
+            maxX = new double[count];
+            maxY = new double[count];
+            for (int i = 0; i < count; i++) {
+                AABB bounds = this.shapes[i].createAABB(this.transforms[i]);
+                minX[i] = bounds.getMinX();
+                minY[i] = bounds.getMinY();
+                maxX[i] = bounds.getMaxX();
+                maxY[i] = bounds.getMaxY();
+            }
+            buildGrid();
+        }
+
+        private void buildGrid() {
+            int count = shapes.length;
+            if (count == 0) {
+                cellOffsets = new int[1];
+                cellObstacles = new int[0];
+                return;
+            }
+            double left = Double.POSITIVE_INFINITY;
+            double bottom = Double.POSITIVE_INFINITY;
+            double right = Double.NEGATIVE_INFINITY;
+            double top = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < count; i++) {
+                left = Math.min(left, minX[i]);
+                bottom = Math.min(bottom, minY[i]);
+                right = Math.max(right, maxX[i]);
+                top = Math.max(top, maxY[i]);
+            }
+            gridX = left;
+            gridY = bottom;
+            columns = (int) ((right - left) / GRID_CELL_SIZE) + 1;
+            rows = (int) ((top - bottom) / GRID_CELL_SIZE) + 1;
+
+            // Count the obstacles per cell, then fill them in behind the offsets
+            cellOffsets = new int[columns * rows + 1];
+            for (int pass = 0; pass < 2; pass++) {
+                int[] fill = pass == 0 ? null : Arrays.copyOf(cellOffsets, cellOffsets.length - 1);
+                for (int i = 0; i < count; i++) {
+                    for (int row = getRow(minY[i]); row <= getRow(maxY[i]); row++) {
+                        for (int column = getColumn(minX[i]); column <= getColumn(maxX[i]); column++) {
+                            int cell = row * columns + column;
+                            if (pass == 0) cellOffsets[cell + 1]++;
+                            else cellObstacles[fill[cell]++] = i;
+                        }
+                    }
+                }
+                if (pass == 0) {
+                    for (int cell = 0; cell < columns * rows; cell++) cellOffsets[cell + 1] += cellOffsets[cell];
+                    cellObstacles = new int[cellOffsets[columns * rows]];
+                }
+            }
+        }
+
+        private int getColumn(double x) {
+            return Math.max(0, Math.min(columns - 1, (int) ((x - gridX) / GRID_CELL_SIZE)));
+        }
+
+        private int getRow(double y) {
+            return Math.max(0, Math.min(rows - 1, (int) ((y - gridY) / GRID_CELL_SIZE)));
+        }
+
+        /**
+         * @return true if both hold the same shapes at the same places
+         */
+        public boolean matches(Obstacles other) {
+            if (other.shapes.length != shapes.length) return false;
+            for (int i = 0; i < shapes.length; i++) {
+                if (other.shapes[i] != shapes[i]) return false;
+                Transform a = transforms[i];
+                Transform b = other.transforms[i];
+                if (Math.abs(a.getTranslationX() - b.getTranslationX()) > SAME_POSITION
+                        || Math.abs(a.getTranslationY() - b.getTranslationY()) > SAME_POSITION
+                        || Math.abs(a.getRotation() - b.getRotation()) > SAME_POSITION) return false;
+            }
+            return true;
+        }
+
+        /**
+         * @return the number of obstacle fixtures
+         */
+        public int size() {
+            return shapes.length;
+        }
+    }
+
+    /**
+     * Collision tests of arm poses against the obstacles, for one thread.
+     */
+    private class Checker {
+        private final Obstacles obstacles;
+        private final Gjk gjk = new Gjk();
+        private final Transform[] armTransforms = new Transform[armBodies.length];
+        private final double[] armCos = new double[armBodies.length];
+        private final double[] armSin = new double[armBodies.length];
+        private final BatchKinematics.Batch batch = new BatchKinematics.Batch(1, true);
+        private final double[] pose = new double[JOINT_COUNT];
+        // Obstacles already tested for the current fixture, by stamp
+        private final int[] tested;
+        private int stamp = 0;
+
+        private Checker(Obstacles obstacles) {
+            this.obstacles = obstacles;
+            this.tested = new int[obstacles.size()];
+            for (int i = 0; i < armTransforms.length; i++) armTransforms[i] = new Transform();
+        }
+
+        private boolean collides(double[] positions) {
+            if (obstacles.size() == 0) return false;
+            for (ArmJoint joint : ArmJoint.values()) batch.getPositions(joint)[0] = positions[joint.ordinal()];
+            kinematics.compute(batch, 0, 1);
+            for (int frame = 0; frame < BatchKinematics.TOOL; frame++) {
+                armTransforms[frame].identity();
+                armTransforms[frame].setTranslation(batch.getX(frame)[0], batch.getY(frame)[0]);
+                armTransforms[frame].setRotation(batch.getRotation(frame)[0]);
+            }
+            // The head extension sits at a fixed place on the head segment
+            Transform head = armTransforms[BatchKinematics.HEAD_SEGMENT];
+            double rotation = head.getRotation();
+            double cos = Math.cos(rotation);
+            double sin = Math.sin(rotation);
+            Transform extension = armTransforms[armTransforms.length - 1];
+            extension.identity();
+            extension.setTranslation(head.getTranslationX() + cos * extensionX - sin * extensionY,
+                    head.getTranslationY() + sin * extensionX + cos * extensionY);
+            extension.setRotation(rotation + extensionRotation);
+
+            for (int body = 0; body < armTransforms.length; body++) {
+                armCos[body] = Math.cos(armTransforms[body].getRotation());
+                armSin[body] = Math.sin(armTransforms[body].getRotation());
+                for (int fixture = 0; fixture < armShapes[body].length; fixture++) {
+                    if (armFilters[body][fixture] != null && collides(body, fixture)) return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean collides(int body, int fixture) {
+            Transform transform = armTransforms[body];
+            double centerX = armCenterX[body][fixture];
+            double centerY = armCenterY[body][fixture];
+            double x = transform.getTranslationX() + armCos[body] * centerX - armSin[body] * centerY;
+            double y = transform.getTranslationY() + armSin[body] * centerX + armCos[body] * centerY;
+            double radius = armRadius[body][fixture];
+            stamp++;
+            for (int row = obstacles.getRow(y - radius); row <= obstacles.getRow(y + radius); row++) {
+                for (int column = obstacles.getColumn(x - radius); column <= obstacles.getColumn(x + radius); column++) {
+                    int cell = row * obstacles.columns + column;
+                    for (int k = obstacles.cellOffsets[cell]; k < obstacles.cellOffsets[cell + 1]; k++) {
+                        int i = obstacles.cellObstacles[k];
+                        if (tested[i] == stamp) continue;
+                        tested[i] = stamp;
+                        // Bounding circle against bounding box before the exact test
+                        double dx = x - Math.max(obstacles.minX[i], Math.min(obstacles.maxX[i], x));
+                        double dy = y - Math.max(obstacles.minY[i], Math.min(obstacles.maxY[i], y));
+                        if (dx * dx + dy * dy > radius * radius) continue;
+                        if (!armFilters[body][fixture].isAllowed(obstacles.filters[i])) continue;
+                        if (gjk.detect(armShapes[body][fixture], transform, obstacles.shapes[i], obstacles.transforms[i])) return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        /**
+         * @return true if every pose along the straight move between the two, exclusive, is clear
+         */
+        private boolean isClear(double[] from, double[] to) {
+            double steps = Math.abs(to[0] - from[0]) / BASE_RESOLUTION;
+            for (int i = 1; i < JOINT_COUNT; i++) steps = Math.max(steps, Math.abs(to[i] - from[i]) / ANGLE_RESOLUTION);
+            int count = (int) Math.ceil(steps);
+            // Test the middle first, a blocked move is usually blocked there
+            for (int stride = Integer.highestOneBit(Math.max(1, count)); stride >= 1; stride /= 2) {
+                for (int step = stride; step < count; step += 2 * stride) {
+                    double t = step / (double) count;
+                    for (int i = 0; i < JOINT_COUNT; i++) pose[i] = from[i] + (to[i] - from[i]) * t;
+                    if (collides(pose)) return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Clear poses and the clear moves between them, as adjacency arrays.
+     */
+    private static class Roadmap {
+        private final Obstacles obstacles;
+        private final double[] poses;
+        private final int size;
+        private int[] offsets;
+        private int[] targets;
+        private double[] costs;
+
+        private Roadmap(Obstacles obstacles, double[] poses, int size) {
+            this.obstacles = obstacles;
+            this.poses = poses;
+            this.size = size;
+        }
+
+        private void get(int node, double[] result) {
+            System.arraycopy(poses, node * JOINT_COUNT, result, 0, JOINT_COUNT);
+        }
+
+        private double distance(int node, double[] pose) {
+            int offset = node * JOINT_COUNT;
+            double sum = BASE_WEIGHT * square(poses[offset] - pose[0]);
+            for (int i = 1; i < JOINT_COUNT; i++) sum += square(poses[offset + i] - pose[i]);
+            return Math.sqrt(sum);
+        }
+
+        /**
+         * Takes the edges found by every task, found twice when both ends are among each other's neighbours.
+         */
+        private void setEdges(List<long[]> found) {
+            int total = 0;
+            for (long[] edges : found) total += edges.length;
+            long[] edges = new long[total];
+            int count = 0;
+            for (long[] part : found) {
+                System.arraycopy(part, 0, edges, count, part.length);
+                count += part.length;
+            }
+            Arrays.sort(edges);
+
+            offsets = new int[size + 1];
+            int unique = 0;
+            for (int i = 0; i < edges.length; i++) {
+                if (i > 0 && edges[i] == edges[i - 1]) continue;
+                edges[unique++] = edges[i];
+                offsets[(int) (edges[i] >>> 32) + 1]++;
+                offsets[(int) edges[i] + 1]++;
+            }
+            for (int node = 0; node < size; node++) offsets[node + 1] += offsets[node];
+            targets = new int[offsets[size]];
+            costs = new double[offsets[size]];
+            int[] fill = Arrays.copyOf(offsets, size);
+            double[] pose = new double[JOINT_COUNT];
+            for (int i = 0; i < unique; i++) {
+                int a = (int) (edges[i] >>> 32);
+                int b = (int) edges[i];
+                get(b, pose);
+                double cost = distance(a, pose);
+                targets[fill[a]] = b;
+                costs[fill[a]++] = cost;
+                targets[fill[b]] = a;
+                costs[fill[b]++] = cost;
+            }
+        }
+
+        private static double square(double value) {
+            return value * value;
+        }
+    }
+
+    /**
+     * The outcome of planning: the waypoints of a clear path, or why there is none.
+     */
+    public static class Plan {
+        private final double[][] waypoints;
+        private final boolean roadmapReused;
+        private final int roadmapSize;
+        private final long planningNanos;
+        private final String failure;
+
+        private Plan(double[][] waypoints, boolean roadmapReused, int roadmapSize, long planningNanos) {
+            this.waypoints = waypoints;
+            this.roadmapReused = roadmapReused;
+            this.roadmapSize = roadmapSize;
+            this.planningNanos = planningNanos;
+            this.failure = null;
+        }
+
+        private Plan(String failure, long planningNanos) {
+            this.waypoints = new double[0][];
+            this.roadmapReused = false;
+            this.roadmapSize = 0;
+            this.planningNanos = planningNanos;
+            this.failure = failure;
+        }
+
+        private static Plan failed(String failure, long planningNanos) {
+            return new Plan(failure, planningNanos);
+        }
+
+        public boolean isFound() {
+            return failure == null;
+        }
+
+        /**
+         * @return the number of waypoints, including the start and the goal
+         */
+        public int getWaypointCount() {
+            return waypoints.length;
+        }
+
+        /**
+         * @param result receives the joint positions of the waypoint, indexed by {@link ArmJoint#ordinal()}
+         */
+        public void getWaypoint(int index, double[] result) {
+            System.arraycopy(waypoints[index], 0, result, 0, JOINT_COUNT);
+        }
+
+        /**
+         * @return true if the roadmap of an earlier plan was searched instead of building one
+         */
+        public boolean isRoadmapReused() {
+            return roadmapReused;
+        }
+
+        /**
+         * @return the number of poses in the searched roadmap, 0 when the straight move was clear
+         */
+        public int getRoadmapSize() {
+            return roadmapSize;
+        }
+
+        public long getPlanningNanos() {
+            return planningNanos;
+        }
+
+        /**
+         * @return why no path was found, or null
+         */
+        public String getFailure() {
+            return failure;
+        }
+
+        @Override
+        public String toString() {
+            if (!isFound()) return String.format(Locale.ROOT, "no plan (%s) in %.2f ms", failure, planningNanos / 1e6);
+            String search = roadmapSize == 0 ? "straight" : roadmapSize + (roadmapReused ? " poses, reused" : " poses, built");
+            return String.format(Locale.ROOT, "%d waypoints (%s) in %.2f ms", waypoints.length, search, planningNanos / 1e6);
+        }
+    }
+
+}
@@ -0,0 +1,449 @@
+package roboticarm.kinematics;
+
+import roboticarm.simulation.ArmJoint;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * A grid of the tool poses the arm can reach, with for each cell the joint positions that put the tool closest to its
+ * center. Cells are square in position and divide the tool rotation into equal bins. Lookups read a memory-mapped
+ * file directly, so they take constant time and the map is only paged in where it is used.
+ * <p>
+ * The map is built by sampling every joint over its limits on a regular grid, the revolute joints split over a
+ * fork-join pool. The file starts with a {@value #HEADER_SIZE} byte header holding the grid dimensions and the
+ * {@link ArmGeometry#getKey() key} of the geometry it was built for, followed by a record per cell of a float score
+ * and the five joint positions as floats, little-endian. Empty cells have an infinite score.
+ * <pre>
+ * java roboticarm.kinematics.ReachabilityMap [--cell meters] [--bins n] [--samples n] [--threads n] [--out directory]
+ * </pre>
+ *
+ * @since 2026-10-17
+ */
+public class ReachabilityMap {
+    static final int MAGIC = 0x52454143;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 512;
+    private static final int KEY_OFFSET = 48;
+    private static final int JOINT_COUNT = ArmJoint.values().length;
+    private static final int RECORD_SIZE = (1 + JOINT_COUNT) * Float.BYTES;
+    public static final double DEFAULT_CELL_SIZE = 0.25;
+    public static final int DEFAULT_BINS = 16;
+    public static final int DEFAULT_SAMPLES = 24;
+    private final ByteBuffer buffer;
+    private final int columns;
+    private final int rows;
+    private final int bins;
+    private final double minX;
+    private final double minY;
+    private final double cellSize;
+    private final double binWidth;
+    private final String key;
+
+    private ReachabilityMap(ByteBuffer buffer) {
+        this.buffer = buffer;
+        if (buffer.getInt(0) != MAGIC) throw new IllegalArgumentException("Not a reachability map");
+        if (buffer.getInt(4) != VERSION) throw new IllegalArgumentException("Unsupported version " + buffer.getInt(4));
+        columns = buffer.getInt(8);
+        rows = buffer.getInt(12);
+        bins = buffer.getInt(16);
+        minX = buffer.getDouble(24);
+        minY = buffer.getDouble(32);
+        cellSize = buffer.getDouble(40);
+        binWidth = 2 * Math.PI / bins;
+        byte[] keyBytes = new byte[buffer.getInt(20)];
+        for (int i = 0; i < keyBytes.length; i++) keyBytes[i] = buffer.get(KEY_OFFSET + i);
+        key = new String(keyBytes, StandardCharsets.UTF_8);
+        if (buffer.capacity() < HEADER_SIZE + (long) columns * rows * bins * RECORD_SIZE) {
+            throw new IllegalArgumentException("Reachability map is truncated");
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        double cellSize = DEFAULT_CELL_SIZE;
+        int bins = DEFAULT_BINS;
+        int samples = DEFAULT_SAMPLES;
+        int threads = Runtime.getRuntime().availableProcessors();
+        Path directory = Paths.get(".");
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--cell":
+                    cellSize = Double.parseDouble(args[++i]);
+                    break;
+                case "--bins":
+                    bins = Integer.parseInt(args[++i]);
+                    break;
+                case "--samples":
+                    samples = Integer.parseInt(args[++i]);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--out":
+                    directory = Paths.get(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        ArmGeometry geometry = ArmGeometry.createDefault();
+        Path file = getFile(directory, geometry);
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        ReachabilityMap map = build(geometry, cellSize, bins, samples, pool, file);
+        pool.shutdown();
+        System.out.println(String.format(Locale.ROOT, "%s: %d x %d cells, %d bins, %d reachable, built in %.2f s",
+                file, map.columns, map.rows, map.bins, map.countReachable(), (System.nanoTime() - start) / 1e9));
+    }
+
+    /**
+     * @return the file in the directory that holds the map of the geometry
+     */
+    public static Path getFile(Path directory, ArmGeometry geometry) {
+        return directory.resolve(String.format("reachability-%08x.bin", geometry.hashCode()));
+    }
+
+    /**
+     * Maps the file of the geometry in the directory.
+     *
+     * @return the map, or null if there is none or it was built for another geometry
+     */
+    public static ReachabilityMap load(Path directory, ArmGeometry geometry) throws IOException {
+        Path file = getFile(directory, geometry);
+        if (!Files.isRegularFile(file)) return null;
+        ReachabilityMap map = open(file);
+        return map.key.equals(geometry.getKey()) ? map : null;
+    }
+
+    /**
+     * Loads the map of the geometry from the directory, or builds it there with the default resolution.
+     */
+    public static ReachabilityMap loadOrBuild(Path directory, ArmGeometry geometry) throws IOException {
+        ReachabilityMap map = load(directory, geometry);
+        if (map != null) return map;
+        Files.createDirectories(directory);
+        return build(geometry, DEFAULT_CELL_SIZE, DEFAULT_BINS, DEFAULT_SAMPLES, ForkJoinPool.commonPool(),
+                getFile(directory, geometry));
+    }
+
+    public static ReachabilityMap open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return new ReachabilityMap(buffer);
+        }
+    }
+
+    /**
+     * Samples the joints of the geometry and writes the map to the file. The map is written to a temporary file in the
+     * same directory and moved over the file once it is complete, so a map that is being built is never loaded.
+     *
+     * @param samples the number of positions sampled over the limits of each revolute joint, the base is sampled
+     *                every half cell
+     */
+    public static ReachabilityMap build(ArmGeometry geometry, double cellSize, int bins, int samples, ForkJoinPool pool,
+                                        Path file) throws IOException {
+        byte[] key = geometry.getKey().getBytes(StandardCharsets.UTF_8);
+        if (KEY_OFFSET + key.length > HEADER_SIZE) throw new IllegalArgumentException("Geometry key is too long");
+        Grid grid = new Grid(geometry, cellSize, bins, samples);
+
+        // Every task samples a share of the large joint positions into a grid of its own
+        int tasks = Math.min(samples, pool.getParallelism());
+        List<ForkJoinTask<Cells>> results = new ArrayList<>(tasks);
+        for (int task = 0; task < tasks; task++) {
+            int first = task;
+            results.add(pool.submit(() -> grid.sample(first, tasks)));
+        }
+        Cells cells = results.get(0).join();
+        for (int task = 1; task < tasks; task++) cells.merge(results.get(task).join());
+
+        long size = HEADER_SIZE + (long) grid.columns * grid.rows * bins * RECORD_SIZE;
+        // Another instance may load the map while it is built, so it only appears under its name once complete
+        Path temporary = file.resolveSibling(String.format("%s.%x.tmp", file.getFileName(), System.nanoTime()));
+        try {
+            MappedByteBuffer buffer;
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                buffer.order(ByteOrder.LITTLE_ENDIAN);
+                buffer.putInt(MAGIC).putInt(VERSION).putInt(grid.columns).putInt(grid.rows).putInt(bins).putInt(key.length);
+                buffer.putDouble(grid.minX).putDouble(grid.minY).putDouble(cellSize);
+                buffer.put(key);
+                buffer.position(HEADER_SIZE);
+                for (int cell = 0; cell < cells.scores.length; cell++) {
+                    buffer.putFloat(cells.scores[cell]);
+                    for (int joint = 0; joint < JOINT_COUNT; joint++) buffer.putFloat(cells.positions[cell * JOINT_COUNT + joint]);
+                }
+                buffer.force();
+                channel.force(true);
+            }
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            buffer.position(0);
+            return new ReachabilityMap(buffer);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+    }
+
+    /**
+     * @return true if a sampled pose put the tool in the cell of the position, with any rotation
+     */
+    public boolean isReachable(double x, double y) {
+        return isReachable(x, y, Double.NaN);
+    }
+
+    /**
+     * @param rotation the world rotation of the tool, or NaN for any rotation
+     * @return true if a sampled pose put the tool in the cell of the pose
+     */
+    public boolean isReachable(double x, double y, double rotation) {
+        int column = getColumn(x);
+        int row = getRow(y);
+        if (column < 0 || column >= columns || row < 0 || row >= rows) return false;
+        if (!Double.isNaN(rotation)) return getScore(getCell(column, row, getBin(rotation))) < Float.POSITIVE_INFINITY;
+        for (int bin = 0; bin < bins; bin++) {
+            if (getScore(getCell(column, row, bin)) < Float.POSITIVE_INFINITY) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Finds the sampled joint positions whose tool pose is nearest to the target, searching the cell of the target
+     * and the cells around it.
+     *
+     * @param rotation the world rotation of the tool, or NaN for any rotation
+     * @param result   receives the joint positions, indexed by {@link ArmJoint#ordinal()}
+     * @return false if none of these cells is reachable, the result is then left untouched
+     */
+    public boolean findSeed(double x, double y, double rotation, double[] result) {
+        int column = getColumn(x);
+        int row = getRow(y);
+        boolean rotationFree = Double.isNaN(rotation);
+        int targetBin = rotationFree ? 0 : getBin(rotation);
+        int binRange = rotationFree ? bins : 3;
+        int best = -1;
+        double bestDistance = Double.POSITIVE_INFINITY;
+        for (int r = Math.max(0, row - 1); r <= Math.min(rows - 1, row + 1); r++) {
+            for (int c = Math.max(0, column - 1); c <= Math.min(columns - 1, column + 1); c++) {
+                for (int b = 0; b < binRange; b++) {
+                    int bin = rotationFree ? b : Math.floorMod(targetBin + b - 1, bins);
+                    int cell = getCell(c, r, bin);
+                    if (getScore(cell) == Float.POSITIVE_INFINITY) continue;
+                    // Rank the cells by how far their center lies from the target, the score only ranks within a cell
+                    double dx = minX + (c + 0.5) * cellSize - x;
+                    double dy = minY + (r + 0.5) * cellSize - y;
+                    double distance = dx * dx + dy * dy + getScore(cell);
+                    if (distance < bestDistance) {
+                        bestDistance = distance;
+                        best = cell;
+                    }
+                }
+            }
+        }
+        if (best < 0) return false;
+
+        int offset = HEADER_SIZE + best * RECORD_SIZE + Float.BYTES;
+        for (int joint = 0; joint < JOINT_COUNT; joint++) result[joint] = buffer.getFloat(offset + joint * Float.BYTES);
+        return true;
+    }
+
+    private int getColumn(double x) {
+        return (int) Math.floor((x - minX) / cellSize);
+    }
+
+    private int getRow(double y) {
+        return (int) Math.floor((y - minY) / cellSize);
+    }
+
+    private int getBin(double rotation) {
+        return Math.floorMod((int) Math.floor((rotation + Math.PI) / binWidth), bins);
+    }
+
+    private int getCell(int column, int row, int bin) {
+        return (row * columns + column) * bins + bin;
+    }
+
+    private float getScore(int cell) {
+        return buffer.getFloat(HEADER_SIZE + cell * RECORD_SIZE);
+    }
+
+    public int countReachable() {
+        int count = 0;
+        for (int cell = 0; cell < columns * rows * bins; cell++) {
+            if (getScore(cell) < Float.POSITIVE_INFINITY) count++;
+        }
+        return count;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getBins() {
+        return bins;
+    }
+
+    public double getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * @return the key of the geometry the map was built for
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * The dimensions of the grid and the sampling of the joints.
+     */
+    private static class Grid {
+        private final double[] lower = new double[JOINT_COUNT];
+        private final double[] upper = new double[JOINT_COUNT];
+        private final double[] offsetX = new double[ArmGeometry.LINKS + 2];
+        private final double[] offsetY = new double[ArmGeometry.LINKS + 2];
+        private final double originX;
+        private final double originY;
+        private final double minX;
+        private final double minY;
+        private final double cellSize;
+        private final double binWidth;
+        private final int columns;
+        private final int rows;
+        private final int bins;
+        private final int samples;
+        private final int baseSamples;
+
+        private Grid(ArmGeometry geometry, double cellSize, int bins, int samples) {
+            for (ArmJoint joint : ArmJoint.values()) {
+                lower[joint.ordinal()] = geometry.getLowerLimit(joint);
+                upper[joint.ordinal()] = geometry.getUpperLimit(joint);
+            }
+            double reach = 0;
+            for (int link = 0; link < offsetX.length; link++) {
+                offsetX[link] = geometry.getOffsetX(link);
+                offsetY[link] = geometry.getOffsetY(link);
+                if (link > 0) reach += geometry.getLength(link);
+            }
+            originX = geometry.getBaseX() + offsetX[0];
+            originY = geometry.getBaseY() + offsetY[0];
+            this.cellSize = cellSize;
+            this.bins = bins;
+            this.samples = samples;
+            binWidth = 2 * Math.PI / bins;
+            minX = originX + lower[0] - reach;
+            minY = originY - reach;
+            columns = (int) Math.ceil((upper[0] - lower[0] + 2 * reach) / cellSize) + 1;
+            rows = (int) Math.ceil(2 * reach / cellSize) + 1;
+            baseSamples = (int) Math.ceil((upper[0] - lower[0]) / (cellSize / 2)) + 1;
+        }
+
+        private double getSample(int joint, int index, int count) {
+            return lower[joint] + (upper[joint] - lower[joint]) * index / (count - 1);
+        }
+
+        /**
+         * Walks the revolute joints link by link, so every level only adds one rotation, and slides the resulting
+         * pose along the base.
+         *
+         * @param first the first large joint sample of this task, every stride-th sample after it is taken as well
+         */
+        private Cells sample(int first, int stride) {
+            Cells cells = new Cells(columns * rows * bins);
+            double[] positions = new double[JOINT_COUNT];
+            for (int i1 = first; i1 < samples; i1 += stride) {
+                positions[1] = getSample(1, i1, samples);
+                double r1 = -positions[1];
+                double x1 = Math.cos(r1) * offsetX[1] - Math.sin(r1) * offsetY[1];
+                double y1 = Math.sin(r1) * offsetX[1] + Math.cos(r1) * offsetY[1];
+                for (int i2 = 0; i2 < samples; i2++) {
+                    positions[2] = getSample(2, i2, samples);
+                    double r2 = r1 - positions[2];
+                    double x2 = x1 + Math.cos(r2) * offsetX[2] - Math.sin(r2) * offsetY[2];
+                    double y2 = y1 + Math.sin(r2) * offsetX[2] + Math.cos(r2) * offsetY[2];
+                    for (int i3 = 0; i3 < samples; i3++) {
+                        positions[3] = getSample(3, i3, samples);
+                        double r3 = r2 - positions[3];
+                        double x3 = x2 + Math.cos(r3) * offsetX[3] - Math.sin(r3) * offsetY[3];
+                        double y3 = y2 + Math.sin(r3) * offsetX[3] + Math.cos(r3) * offsetY[3];
+                        for (int i4 = 0; i4 < samples; i4++) {
+                            positions[4] = getSample(4, i4, samples);
+                            double r4 = r3 - positions[4];
+                            double x4 = x3 + Math.cos(r4) * offsetX[4] - Math.sin(r4) * offsetY[4];
+                            double y4 = y3 + Math.sin(r4) * offsetX[4] + Math.cos(r4) * offsetY[4];
+                            addAlongBase(cells, positions, originX + x4, originY + y4, r4);
+                        }
+                    }
+                }
+            }
+            return cells;
+        }
+
+        private void addAlongBase(Cells cells, double[] positions, double x, double y, double rotation) {
+            int row = (int) Math.floor((y - minY) / cellSize);
+            double dy = y - (minY + (row + 0.5) * cellSize);
+            double wrapped = rotation - 2 * Math.PI * Math.floor((rotation + Math.PI) / (2 * Math.PI));
+            int bin = Math.min(bins - 1, (int) Math.floor((wrapped + Math.PI) / binWidth));
+            // The rotation error is scaled so a bin weighs as much as a cell
+            double rotationError = (wrapped - (-Math.PI + (bin + 0.5) * binWidth)) * cellSize / binWidth;
+            double partial = dy * dy + rotationError * rotationError;
+            for (int i0 = 0; i0 < baseSamples; i0++) {
+                positions[0] = getSample(0, i0, baseSamples);
+                double baseX = x + positions[0];
+                int column = (int) Math.floor((baseX - minX) / cellSize);
+                double dx = baseX - (minX + (column + 0.5) * cellSize);
+                cells.offer((row * columns + column) * bins + bin, (float) (partial + dx * dx), positions);
+            }
+        }
+    }
+
+    /**
+     * The best sample found so far for every cell.
+     */
+    private static class Cells {
+        private final float[] scores;
+        private final float[] positions;
+
+        private Cells(int count) {
+            scores = new float[count];
+            positions = new float[count * JOINT_COUNT];
+            Arrays.fill(scores, Float.POSITIVE_INFINITY);
+        }
+
+        private void offer(int cell, float score, double[] sample) {
+            if (score >= scores[cell]) return;
+            scores[cell] = score;
+            for (int joint = 0; joint < JOINT_COUNT; joint++) positions[cell * JOINT_COUNT + joint] = (float) sample[joint];
+        }
+
+        private void merge(Cells other) {
+            for (int cell = 0; cell < scores.length; cell++) {
+                if (other.scores[cell] >= scores[cell]) continue;
+                scores[cell] = other.scores[cell];
+                System.arraycopy(other.positions, cell * JOINT_COUNT, positions, cell * JOINT_COUNT, JOINT_COUNT);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,39 @@
+package roboticarm.simulation;
+
+/**
+ * The motorised joints of the arm, ordered from the base to the head.
+ *
+ * @since 2026-10-17
+ */
+public enum ArmJoint {
+    BASE("base"),
+    LARGE("large"),
+    MEDIUM("medium"),
+    SMALL("small"),
+    HEAD("head");
+
+    private final String name;
+
+    ArmJoint(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return true for the prismatic base joint, whose position is a translation instead of an angle
+     */
+    public boolean isPrismatic() {
+        return this == BASE;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public static ArmJoint fromName(String name) {
+        for (ArmJoint joint : values()) {
+            if (joint.name.equalsIgnoreCase(name)) return joint;
+        }
+        throw new IllegalArgumentException("Unknown joint: " + name);
+    }
+
+}
@@ -0,0 +1,289 @@
+package roboticarm.simulation;
+
+import org.dyn4j.dynamics.Body;
+import org.dyn4j.dynamics.World;
+import org.dyn4j.dynamics.joint.PrismaticJoint;
+import org.dyn4j.dynamics.joint.RevoluteJoint;
+import org.dyn4j.dynamics.joint.WeldJoint;
+import org.dyn4j.geometry.Geometry;
+import org.dyn4j.geometry.Mass;
+import org.dyn4j.geometry.MassType;
+import org.dyn4j.geometry.Vector2;
+
+/**
+ * The physical model of the robotic arm: its bodies, joints, limits and motors. Has no UI dependencies, so it can be
+ * stepped without starting JavaFX.
+ *
+ * @since 2026-10-17
+ */
+public class ArmModel {
+    public static final double GRAVITY = 9.81;
+    public static final double MAX_BASE_SPEED = 5;
+    public static final double MAX_ROTATION_SPEED = 2;
+    private final World world = new World();
+    private final Body lowerBase;
+    private final Body upperBase;
+    private final Body largeSegment;
+    private final Body mediumSegment;
+    private final Body smallSegment;
+    private final Body headSegment;
+    private final Body headExtension;
+    private final PrismaticJoint baseJoint;
+    private final RevoluteJoint baseLargeJoint;
+    private final RevoluteJoint largeMediumJoint;
+    private final RevoluteJoint mediumSmallJoint;
+    private final RevoluteJoint smallHeadJoint;
+
+    public ArmModel() {
+        // Set world attribute
+        world.setGravity(new Vector2(0, -GRAVITY));
+
+        // ### BODIES ###
+
+        // Create lower base
+        lowerBase = new Body();
+        lowerBase.addFixture(Geometry.createRectangle(10, 0.6));
+        lowerBase.getTransform().setTranslationY(-5.1);
+        lowerBase.setMass(MassType.INFINITE);
+        world.addBody(lowerBase);
+
+        // Create upper base
+        upperBase = new Body();
+        upperBase.addFixture(Geometry.createRectangle(1.35, 0.55));
+        upperBase.getTransform().setTranslationY(-4.5);
+        upperBase.setMassType(MassType.NORMAL);
+        upperBase.setMass(new Mass(upperBase.getWorldCenter(), 100, 0));
+        world.addBody(upperBase);
+
+        // Create large segment
+        largeSegment = new Body();
+        largeSegment.addFixture(Geometry.createCircle(0.72));
+        largeSegment.getTransform().setTranslationY(-3.42);
+        largeSegment.setMass(MassType.NORMAL);
+        world.addBody(largeSegment);
+
+        // Create medium segment
+        mediumSegment = new Body();
+        mediumSegment.addFixture(Geometry.createCircle(0.65));
+        mediumSegment.getTransform().setTranslationY(-0.15);
+        mediumSegment.setMass(MassType.NORMAL);
+        world.addBody(mediumSegment);
+
+        // Create small segment
+        smallSegment = new Body();
+        smallSegment.addFixture(Geometry.createCircle(0.5));
+        smallSegment.getTransform().setTranslationY(2.78);
+        smallSegment.setMass(MassType.NORMAL);
+        world.addBody(smallSegment);
+
+        // Create head segment
+        headSegment = new Body();
+        headSegment.addFixture(Geometry.createCircle(0.4));
+        headSegment.getTransform().setTranslationY(5.08);
+        headSegment.setMass(MassType.NORMAL);
+        world.addBody(headSegment);
+
+        // Create head extension
+        headExtension = new Body();
+        headExtension.addFixture(Geometry.createRectangle(0.35, 0.84));
+        headExtension.getTransform().setTranslationY(6.14);
+        headExtension.setMass(MassType.NORMAL);
+        world.addBody(headExtension);
+
+        // ### JOINTS ###
+
+        // Join lower and upper base
+        baseJoint = new PrismaticJoint(lowerBase, upperBase, upperBase.getWorldCenter(), new Vector2(1, 0));
+        final double movementLimit = 4.1;
+        baseJoint.setLimitEnabled(true);
+        baseJoint.setUpperLimit(movementLimit);
+        baseJoint.setLowerLimit(-movementLimit);
+        baseJoint.setMotorEnabled(true);
+        baseJoint.setMotorSpeed(0);
+        baseJoint.setMaximumMotorForce(1000);
+        world.addJoint(baseJoint);
+
+        // Join upper base and large segment
+        baseLargeJoint = new RevoluteJoint(upperBase, largeSegment, largeSegment.getWorldCenter());
+        baseLargeJoint.setLimitEnabled(true);
+        final double rotationLimitLargeSegment = 0.75;
+        baseLargeJoint.setUpperLimit(rotationLimitLargeSegment);
+        baseLargeJoint.setLowerLimit(-rotationLimitLargeSegment);
+        baseLargeJoint.setMotorEnabled(true);
+        baseLargeJoint.setMotorSpeed(0);
+        baseLargeJoint.setMaximumMotorTorque(200);
+        world.addJoint(baseLargeJoint);
+
+        // Join large and medium segments
+        largeMediumJoint = new RevoluteJoint(largeSegment, mediumSegment, mediumSegment.getWorldCenter());
+        largeMediumJoint.setLimitEnabled(true);
+        final double rotationLimitMediumSegment = 1.1;
+        largeMediumJoint.setUpperLimit(rotationLimitMediumSegment);
+        largeMediumJoint.setLowerLimit(-rotationLimitMediumSegment);
+        largeMediumJoint.setMotorEnabled(true);
+        largeMediumJoint.setMotorSpeed(0);
+        largeMediumJoint.setMaximumMotorTorque(100);
+        world.addJoint(largeMediumJoint);
+
+        // Join medium and small segments
+        mediumSmallJoint = new RevoluteJoint(mediumSegment, smallSegment, smallSegment.getWorldCenter());
+        mediumSmallJoint.setLimitEnabled(true);
+        final double rotationLimitSmallSegment = 0.95;
+        mediumSmallJoint.setUpperLimit(rotationLimitSmallSegment);
+        mediumSmallJoint.setLowerLimit(-rotationLimitSmallSegment);
+        mediumSmallJoint.setMotorEnabled(true);
+        mediumSmallJoint.setMotorSpeed(0);
+        mediumSmallJoint.setMaximumMotorTorque(30);
+        world.addJoint(mediumSmallJoint);
+
+        // Join small and head segments
+        smallHeadJoint = new RevoluteJoint(smallSegment, headSegment, headSegment.getWorldCenter());
+        smallHeadJoint.setLimitEnabled(true);
+        final double rotationLimitHeadSegment = 1.1;
+        smallHeadJoint.setUpperLimit(rotationLimitHeadSegment);
+        smallHeadJoint.setLowerLimit(-rotationLimitHeadSegment);
+        smallHeadJoint.setMotorEnabled(true);
+        smallHeadJoint.setMotorSpeed(0);
+        smallHeadJoint.setMaximumMotorTorque(25);
+        world.addJoint(smallHeadJoint);
+
+        // Join head segment and extension
+        WeldJoint headExtensionJoint = new WeldJoint(headSegment, headExtension, headSegment.getWorldCenter());
+        world.addJoint(headExtensionJoint);
+    }
+
+    /**
+     * Advances the world by exactly one step of the given length.
+     */
+    public void step(double stepTime) {
+        world.step(1, stepTime);
+    }
+
+    public void setMotorSpeed(ArmJoint joint, double speed) {
+        if (joint.isPrismatic()) baseJoint.setMotorSpeed(speed);
+        else getRevoluteJoint(joint).setMotorSpeed(speed);
+    }
+
+    public double getMotorSpeed(ArmJoint joint) {
+        if (joint.isPrismatic()) return baseJoint.getMotorSpeed();
+        return getRevoluteJoint(joint).getMotorSpeed();
+    }
+
+    /**
+     * Stops every joint motor.
+     */
+    public void stopMotors() {
+        for (ArmJoint joint : ArmJoint.values()) setMotorSpeed(joint, 0);
+    }
+
+    /**
+     * @return the translation of the base in meters, or the angle of a revolute joint in radians
+     */
+    public double getJointPosition(ArmJoint joint) {
+        if (joint.isPrismatic()) return baseJoint.getJointTranslation();
+        return getRevoluteJoint(joint).getJointAngle();
+    }
+
+    /**
+     * @return the fastest the joint is driven, in meters or radians per second
+     */
+    public double getMaximumSpeed(ArmJoint joint) {
+        return joint.isPrismatic() ? MAX_BASE_SPEED : MAX_ROTATION_SPEED;
+    }
+
+    /**
+     * @return the sign of the change in joint position that a positive motor speed causes
+     */
+    public double getMotorDirection(ArmJoint joint) {
+        // The prismatic joint reports its translation along the axis but drives its motor against it
+        return joint.isPrismatic() ? -1 : 1;
+    }
+
+    public double getJointSpeed(ArmJoint joint) {
+        if (joint.isPrismatic()) return baseJoint.getJointSpeed();
+        return getRevoluteJoint(joint).getJointSpeed();
+    }
+
+    public double getLowerLimit(ArmJoint joint) {
+        if (joint.isPrismatic()) return baseJoint.getLowerLimit();
+        return getRevoluteJoint(joint).getLowerLimit();
+    }
+
+    public double getUpperLimit(ArmJoint joint) {
+        if (joint.isPrismatic()) return baseJoint.getUpperLimit();
+        return getRevoluteJoint(joint).getUpperLimit();
+    }
+
+    /**
+     * @return the maximum motor force of the base in newtons, or the maximum motor torque of a revolute joint
+     */
+    public double getMaximumMotorEffort(ArmJoint joint) {
+        if (joint.isPrismatic()) return baseJoint.getMaximumMotorForce();
+        return getRevoluteJoint(joint).getMaximumMotorTorque();
+    }
+
+    /**
+     * Changes the maximum motor force of the base or the maximum motor torque of a revolute joint.
+     */
+    public void setMaximumMotorEffort(ArmJoint joint, double effort) {
+        if (joint.isPrismatic()) baseJoint.setMaximumMotorForce(effort);
+        else getRevoluteJoint(joint).setMaximumMotorTorque(effort);
+    }
+
+    public void setLimits(ArmJoint joint, double lower, double upper) {
+        if (joint.isPrismatic()) baseJoint.setLimits(lower, upper);
+        else getRevoluteJoint(joint).setLimits(lower, upper);
+    }
+
+    public PrismaticJoint getBaseJoint() {
+        return baseJoint;
+    }
+
+    public RevoluteJoint getRevoluteJoint(ArmJoint joint) {
+        switch (joint) {
+            case LARGE:
+                return baseLargeJoint;
+            case MEDIUM:
+                return largeMediumJoint;
+            case SMALL:
+                return mediumSmallJoint;
+            case HEAD:
+                return smallHeadJoint;
+            default:
+                throw new IllegalArgumentException("Not a revolute joint: " + joint);
+        }
+    }
+
+    public World getWorld() {
+        return world;
+    }
+
+    public Body getLowerBase() {
+        return lowerBase;
+    }
+
+    public Body getUpperBase() {
+        return upperBase;
+    }
+
+    public Body getLargeSegment() {
+        return largeSegment;
+    }
+
+    public Body getMediumSegment() {
+        return mediumSegment;
+    }
+
+    public Body getSmallSegment() {
+        return smallSegment;
+    }
+
+    public Body getHeadSegment() {
+        return headSegment;
+    }
+
+    public Body getHeadExtension() {
+        return headExtension;
+    }
+
+}
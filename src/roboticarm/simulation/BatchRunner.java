@@ -0,0 +1,178 @@
+package roboticarm.simulation;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+
+/**
+ * Runs many independent arms at once, each in its own world with its own motion script, spread over the cores by a
+ * fork-join pool. Used to sweep motor efforts and joint limits and to validate motion programs without rendering.
+ * <pre>
+ * java roboticarm.simulation.BatchRunner [--rate hz] [--duration seconds] [--threads n] [--copies n]
+ *     [--effort-scale a,b,...] [--limit-scale a,b,...] [script...]
+ * </pre>
+ * Every script is run once for every combination of effort and limit scale, and that as many times as there are
+ * copies.
+ *
+ * @since 2026-10-17
+ */
+public class BatchRunner {
+    private static final double SETTLE_TIME = 1;
+    private static final double IDLE_TIME = 10;
+    private final HeadlessRunner runner;
+    private final ForkJoinPool pool;
+
+    public BatchRunner(double stepRate, int threads) {
+        this.runner = new HeadlessRunner(stepRate);
+        this.pool = new ForkJoinPool(threads);
+    }
+
+    public static void main(String[] args) throws IOException {
+        double stepRate = HeadlessRunner.DEFAULT_STEP_RATE;
+        double duration = -1;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int copies = 1;
+        double[] effortScales = {1};
+        double[] limitScales = {1};
+        List<String> scripts = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--rate":
+                    stepRate = Double.parseDouble(args[++i]);
+                    break;
+                case "--duration":
+                    duration = Double.parseDouble(args[++i]);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--copies":
+                    copies = Integer.parseInt(args[++i]);
+                    break;
+                case "--effort-scale":
+                    effortScales = parseList(args[++i]);
+                    break;
+                case "--limit-scale":
+                    limitScales = parseList(args[++i]);
+                    break;
+                default:
+                    scripts.add(args[i]);
+            }
+        }
+
+        List<MotionScript> programs = new ArrayList<>();
+        for (String script : scripts) programs.add(MotionScript.load(Paths.get(script)));
+        if (scripts.isEmpty()) {
+            scripts.add("idle");
+            programs.add(new MotionScript(Collections.<MotionScript.Command>emptyList()));
+        }
+
+        List<Job> jobs = new ArrayList<>();
+        for (int i = 0; i < programs.size(); i++) {
+            MotionScript program = programs.get(i);
+            double runTime = duration >= 0 ? duration : program.size() == 0 ? IDLE_TIME : program.getDuration() + SETTLE_TIME;
+            for (double effortScale : effortScales) {
+                for (double limitScale : limitScales) {
+                    for (int copy = 0; copy < copies; copy++) {
+                        String name = String.format(Locale.ROOT, "%s effort*%.2f limits*%.2f #%d", scripts.get(i),
+                                effortScale, limitScale, copy);
+                        jobs.add(new Job(name, program, runTime, scale(effortScale, limitScale)));
+                    }
+                }
+            }
+        }
+
+        BatchRunner batch = new BatchRunner(stepRate, threads);
+        long start = System.nanoTime();
+        List<HeadlessRunner.Result> results = batch.run(jobs);
+        long elapsed = System.nanoTime() - start;
+        batch.shutdown();
+
+        long steps = 0;
+        for (int i = 0; i < jobs.size(); i++) {
+            System.out.println(results.get(i).format(jobs.get(i).getName()));
+            steps += results.get(i).getSteps();
+        }
+        System.out.println(String.format(Locale.ROOT, "%d worlds on %d threads: %d steps in %.1f ms (%.0f steps/s)",
+                jobs.size(), threads, steps, elapsed / 1e6, steps / (elapsed / 1e9)));
+    }
+
+    /**
+     * @return a setup that scales the motor effort and the limits of every joint
+     */
+    public static Consumer<ArmModel> scale(double effortScale, double limitScale) {
+        return model -> {
+            for (ArmJoint joint : ArmJoint.values()) {
+                model.setMaximumMotorEffort(joint, model.getMaximumMotorEffort(joint) * effortScale);
+                model.setLimits(joint, model.getLowerLimit(joint) * limitScale, model.getUpperLimit(joint) * limitScale);
+            }
+        };
+    }
+
+    private static double[] parseList(String list) {
+        String[] parts = list.split(",");
+        double[] values = new double[parts.length];
+        for (int i = 0; i < parts.length; i++) values[i] = Double.parseDouble(parts[i].trim());
+        return values;
+    }
+
+    /**
+     * Runs every job on its own arm, in parallel.
+     *
+     * @return the results, in the order of the jobs
+     */
+    public List<HeadlessRunner.Result> run(List<Job> jobs) {
+        List<ForkJoinTask<HeadlessRunner.Result>> tasks = new ArrayList<>(jobs.size());
+        for (Job job : jobs) tasks.add(pool.submit(() -> job.run(runner)));
+
+        List<HeadlessRunner.Result> results = new ArrayList<>(jobs.size());
+        for (ForkJoinTask<HeadlessRunner.Result> task : tasks) results.add(task.join());
+        return results;
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    public static class Job {
+        private final String name;
+        private final MotionScript script;
+        private final double duration;
+        private final Consumer<ArmModel> setup;
+
+        /**
+         * @param setup changes the arm before the script starts, for example its motor efforts or limits
+         */
+        public Job(String name, MotionScript script, double duration, Consumer<ArmModel> setup) {
+            this.name = name;
+            this.script = script;
+            this.duration = duration;
+            this.setup = setup;
+        }
+
+        private HeadlessRunner.Result run(HeadlessRunner runner) {
+            ArmModel model = new ArmModel();
+            setup.accept(model);
+            return runner.run(model, script, duration);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public MotionScript getScript() {
+            return script;
+        }
+
+        public double getDuration() {
+            return duration;
+        }
+    }
+
+}
@@ -0,0 +1,177 @@
+package roboticarm.simulation;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A bounded, lock-free queue of timestamped arm commands for many producers and one consumer. Commands are stored in
+ * preallocated primitive arrays, so neither offering nor draining allocates. The consumer drains the queue at the
+ * start of every physics step.
+ * <p>
+ * The timestamp is the time the command was issued in nanoseconds, on the clock of the producer.
+ *
+ * @since 2026-10-17
+ */
+public class CommandQueue {
+    private static final int MOTOR_SPEED = 0;
+    private static final int PICK = 1;
+    private static final int RELEASE = 2;
+    private static final int JOINT_TARGET = 3;
+    private static final int PICK_BODY = 4;
+    private static final ArmJoint[] JOINTS = ArmJoint.values();
+    private final int mask;
+    private final AtomicLongArray sequences;
+    private final long[] timestamps;
+    private final int[] types;
+    // The joint ordinal, or the body index of a body pick
+    private final int[] joints;
+    private final double[] firstValues;
+    private final double[] secondValues;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private long head = 0;
+
+    /**
+     * @param capacity the maximum number of queued commands, rounded up to a power of two
+     */
+    public CommandQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        mask = size - 1;
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) sequences.set(i, i);
+        timestamps = new long[size];
+        types = new int[size];
+        joints = new int[size];
+        firstValues = new double[size];
+        secondValues = new double[size];
+    }
+
+    /**
+     * @return false if the queue is full and the command was dropped
+     */
+    public boolean offerMotorSpeed(long timestamp, ArmJoint joint, double speed) {
+        return offer(timestamp, MOTOR_SPEED, joint.ordinal(), speed, 0);
+    }
+
+    /**
+     * Servos a joint to a position, until a motor speed command for the joint takes over again. Targets drained in
+     * the same step are reached in one synchronized move.
+     *
+     * @param position the translation of the base in meters, or the angle of a revolute joint in radians
+     */
+    public boolean offerJointTarget(long timestamp, ArmJoint joint, double position) {
+        return offer(timestamp, JOINT_TARGET, joint.ordinal(), position, 0);
+    }
+
+    /**
+     * Moves the mouse pick target to the given world position, starting a pick if none is active.
+     */
+    public boolean offerPick(long timestamp, double x, double y) {
+        return offer(timestamp, PICK, -1, x, y);
+    }
+
+    /**
+     * Starts dragging the body with the given index in the world towards the given world position, replacing any
+     * active pick.
+     */
+    public boolean offerPickBody(long timestamp, int body, double x, double y) {
+        return offer(timestamp, PICK_BODY, body, x, y);
+    }
+
+    /**
+     * Releases the picked body.
+     */
+    public boolean offerRelease(long timestamp) {
+        return offer(timestamp, RELEASE, -1, 0, 0);
+    }
+
+    private boolean offer(long timestamp, int type, int joint, double first, double second) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) break;
+                position = tail.get();
+            } else if (difference < 0) {
+                dropped.incrementAndGet();
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+
+        int index = (int) (position & mask);
+        timestamps[index] = timestamp;
+        types[index] = type;
+        joints[index] = joint;
+        firstValues[index] = first;
+        secondValues[index] = second;
+        sequences.lazySet(index, position + 1);
+        return true;
+    }
+
+    /**
+     * Hands every queued command to the handler, only call from the consumer thread.
+     *
+     * @return the number of commands handled
+     */
+    public int drain(Handler handler) {
+        int count = 0;
+        while (true) {
+            int index = (int) (head & mask);
+            if (sequences.get(index) != head + 1) return count;
+
+            long timestamp = timestamps[index];
+            int type = types[index];
+            int joint = joints[index];
+            double first = firstValues[index];
+            double second = secondValues[index];
+            sequences.lazySet(index, head + mask + 1);
+            head++;
+            count++;
+
+            switch (type) {
+                case MOTOR_SPEED:
+                    handler.onMotorSpeed(timestamp, JOINTS[joint], first);
+                    break;
+                case PICK:
+                    handler.onPick(timestamp, first, second);
+                    break;
+                case RELEASE:
+                    handler.onRelease(timestamp);
+                    break;
+                case JOINT_TARGET:
+                    handler.onJointTarget(timestamp, JOINTS[joint], first);
+                    break;
+                case PICK_BODY:
+                    handler.onPickBody(timestamp, joint, first, second);
+                    break;
+            }
+        }
+    }
+
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    /**
+     * @return the number of commands that were dropped because the queue was full
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public interface Handler {
+        void onMotorSpeed(long timestamp, ArmJoint joint, double speed);
+
+        void onJointTarget(long timestamp, ArmJoint joint, double position);
+
+        void onPick(long timestamp, double x, double y);
+
+        void onPickBody(long timestamp, int body, double x, double y);
+
+        void onRelease(long timestamp);
+    }
+
+}
@@ -0,0 +1,66 @@
+package roboticarm.simulation;
+
+import org.dyn4j.dynamics.contact.ContactAdapter;
+import org.dyn4j.dynamics.contact.ContactPoint;
+import org.dyn4j.geometry.Vector2;
+
+/**
+ * Keeps the points and normals of the contacts solved in the most recent step, up to a fixed number, for the debug
+ * overlay. It is added to the world as a listener and {@link #clear() cleared} before every step, on the thread
+ * that steps the world.
+ *
+ * @since 2026-10-17
+ */
+public class ContactCollector extends ContactAdapter {
+    private final double[] x;
+    private final double[] y;
+    private final double[] normalX;
+    private final double[] normalY;
+    private int count = 0;
+
+    public ContactCollector(int capacity) {
+        x = new double[capacity];
+        y = new double[capacity];
+        normalX = new double[capacity];
+        normalY = new double[capacity];
+    }
+
+    @Override
+    public boolean preSolve(ContactPoint point) {
+        if (count < x.length && !point.isSensor()) {
+            Vector2 position = point.getPoint();
+            Vector2 normal = point.getNormal();
+            x[count] = position.x;
+            y[count] = position.y;
+            normalX[count] = normal.x;
+            normalY[count] = normal.y;
+            count++;
+        }
+        return true;
+    }
+
+    public void clear() {
+        count = 0;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public double getX(int index) {
+        return x[index];
+    }
+
+    public double getY(int index) {
+        return y[index];
+    }
+
+    public double getNormalX(int index) {
+        return normalX[index];
+    }
+
+    public double getNormalY(int index) {
+        return normalY[index];
+    }
+
+}
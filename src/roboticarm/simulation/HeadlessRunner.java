@@ -0,0 +1,128 @@
+package roboticarm.simulation;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Steps the arm model as fast as the CPU allows, without JavaFX. Every script given on the command line is run on a
+ * fresh arm and the achieved steps per second are reported.
+ * <pre>
+ * java roboticarm.simulation.HeadlessRunner [--rate hz] [--duration seconds] [script...]
+ * </pre>
+ *
+ * @since 2026-10-17
+ */
+public class HeadlessRunner {
+    public static final double DEFAULT_STEP_RATE = 240;
+    private static final double SETTLE_TIME = 1;
+    private static final int COMMAND_CAPACITY = 256;
+    private final double stepTime;
+
+    public HeadlessRunner(double stepRate) {
+        this.stepTime = 1 / stepRate;
+    }
+
+    public static void main(String[] args) throws IOException {
+        double stepRate = DEFAULT_STEP_RATE;
+        double duration = -1;
+        List<String> scripts = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--rate":
+                    stepRate = Double.parseDouble(args[++i]);
+                    break;
+                case "--duration":
+                    duration = Double.parseDouble(args[++i]);
+                    break;
+                default:
+                    scripts.add(args[i]);
+            }
+        }
+
+        HeadlessRunner runner = new HeadlessRunner(stepRate);
+        if (scripts.isEmpty()) {
+            MotionScript idle = new MotionScript(Collections.<MotionScript.Command>emptyList());
+            System.out.println(runner.run(idle, duration < 0 ? 10 : duration).format("idle"));
+        }
+        for (String script : scripts) {
+            MotionScript motionScript = MotionScript.load(Paths.get(script));
+            double runTime = duration < 0 ? motionScript.getDuration() + SETTLE_TIME : duration;
+            System.out.println(runner.run(motionScript, runTime).format(script));
+        }
+    }
+
+    /**
+     * Runs the script on a new arm for the given amount of simulated time.
+     */
+    public Result run(MotionScript script, double duration) {
+        return run(new ArmModel(), script, duration);
+    }
+
+    /**
+     * Runs the script on the given arm for the given amount of simulated time.
+     */
+    public Result run(ArmModel model, MotionScript script, double duration) {
+        CommandQueue queue = new CommandQueue(COMMAND_CAPACITY);
+        ModelCommandHandler handler = new ModelCommandHandler(model);
+        long steps = (long) Math.ceil(duration / stepTime);
+        int index = 0;
+
+        long start = System.nanoTime();
+        for (long step = 0; step < steps; step++) {
+            index = script.feed(queue, step * stepTime, index);
+            queue.drain(handler);
+            handler.getServo().update(model, stepTime);
+            model.step(stepTime);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        double[] positions = new double[ArmJoint.values().length];
+        for (ArmJoint joint : ArmJoint.values()) positions[joint.ordinal()] = model.getJointPosition(joint);
+        return new Result(steps, elapsed, positions);
+    }
+
+    public static class Result {
+        private final long steps;
+        private final long elapsedNanos;
+        private final double[] jointPositions;
+
+        public Result(long steps, long elapsedNanos, double[] jointPositions) {
+            this.steps = steps;
+            this.elapsedNanos = elapsedNanos;
+            this.jointPositions = jointPositions;
+        }
+
+        public long getSteps() {
+            return steps;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public double getStepsPerSecond() {
+            return steps / (elapsedNanos / 1e9);
+        }
+
+        /**
+         * @return the final joint positions, indexed by {@link ArmJoint#ordinal()}
+         */
+        public double[] getJointPositions() {
+            return jointPositions;
+        }
+
+        public String format(String name) {
+            StringBuilder builder = new StringBuilder(String.format(Locale.ROOT, "%s: %d steps in %.1f ms (%.0f steps/s)",
+                    name, steps, elapsedNanos / 1e6, getStepsPerSecond()));
+            for (ArmJoint joint : ArmJoint.values()) {
+                builder.append(String.format(Locale.ROOT, " %s=%.3f", joint.getName(), jointPositions[joint.ordinal()]));
+            }
+            return builder.toString();
+        }
+    }
+
+}
@@ -0,0 +1,136 @@
+package roboticarm.simulation;
+
+import roboticarm.kinematics.ArmGeometry;
+import roboticarm.kinematics.JointTrajectory;
+import roboticarm.kinematics.MotionPlanner;
+
+/**
+ * Drives joints towards target positions by setting their motor speeds every step. Whenever targets change, one
+ * {@link JointTrajectory synchronized move} of all targeted joints is planned from their current positions; the motors
+ * then follow it with the profile velocity as feed-forward plus a correction proportional to the tracking error.
+ * A joint without a target keeps whatever motor speed it was given.
+ * <p>
+ * A {@link MotionPlanner.Plan planned path} is followed one waypoint after the other, each as a synchronized move
+ * that comes to rest at the waypoint, so the arm stays on the straight moves the planner checked. A new target or a
+ * cancelled joint abandons the path.
+ *
+ * @since 2026-10-17
+ */
+public class JointServo {
+    private static final double GAIN = 8;
+    private static final double TOLERANCE = 1e-3;
+    private static final ArmJoint[] JOINTS = ArmJoint.values();
+    private final JointTrajectory trajectory;
+    private final double[] targets = new double[JOINTS.length];
+    private final boolean[] active = new boolean[JOINTS.length];
+    private final double[] from = new double[JOINTS.length];
+    private final double[] to = new double[JOINTS.length];
+    private double[][] path = new double[0][];
+    private int pathIndex = 0;
+    private boolean replan = false;
+    private double time = 0;
+
+    public JointServo(ArmGeometry geometry) {
+        this.trajectory = new JointTrajectory(geometry);
+    }
+
+    /**
+     * @param position the translation of the base in meters, or the angle of a revolute joint in radians
+     */
+    public void setTarget(ArmJoint joint, double position) {
+        pathIndex = path.length;
+        targets[joint.ordinal()] = position;
+        active[joint.ordinal()] = true;
+        replan = true;
+    }
+
+    /**
+     * Moves every joint through the waypoints of the plan after its start, starting right away.
+     */
+    public void followPath(MotionPlanner.Plan plan) {
+        path = new double[plan.getWaypointCount()][JOINTS.length];
+        for (int i = 0; i < path.length; i++) plan.getWaypoint(i, path[i]);
+        pathIndex = 1;
+        nextWaypoint();
+    }
+
+    private void nextWaypoint() {
+        if (pathIndex >= path.length) return;
+        System.arraycopy(path[pathIndex++], 0, targets, 0, JOINTS.length);
+        for (int i = 0; i < active.length; i++) active[i] = true;
+        replan = true;
+    }
+
+    /**
+     * @return true until the last waypoint of the path is targeted
+     */
+    public boolean isFollowingPath() {
+        return pathIndex < path.length;
+    }
+
+    /**
+     * Lets go of a joint, its motor keeps the speed it had.
+     */
+    public void cancel(ArmJoint joint) {
+        pathIndex = path.length;
+        active[joint.ordinal()] = false;
+    }
+
+    public void cancelAll() {
+        pathIndex = path.length;
+        for (int i = 0; i < active.length; i++) active[i] = false;
+    }
+
+    public boolean isActive(ArmJoint joint) {
+        return active[joint.ordinal()];
+    }
+
+    public double getTarget(ArmJoint joint) {
+        return targets[joint.ordinal()];
+    }
+
+    /**
+     * @return true while the planned move has not reached its end, or waypoints of a path are left
+     */
+    public boolean isMoving() {
+        return replan || !trajectory.isFinished(time) || isFollowingPath();
+    }
+
+    /**
+     * @return the duration of the current move in seconds
+     */
+    public double getMoveDuration() {
+        return trajectory.getDuration();
+    }
+
+    /**
+     * Sets the motor speed of every joint with a target, call before each step.
+     */
+    public void update(ArmModel model, double stepTime) {
+        if (!replan && trajectory.isFinished(time)) nextWaypoint();
+        if (replan) {
+            for (ArmJoint joint : JOINTS) {
+                from[joint.ordinal()] = model.getJointPosition(joint);
+                to[joint.ordinal()] = active[joint.ordinal()] ? targets[joint.ordinal()] : from[joint.ordinal()];
+            }
+            trajectory.plan(from, to);
+            time = 0;
+            replan = false;
+        }
+
+        for (ArmJoint joint : JOINTS) {
+            if (!active[joint.ordinal()]) continue;
+            double maxSpeed = model.getMaximumSpeed(joint);
+            double feedForward = trajectory.getVelocity(joint, time);
+            double error = trajectory.getPosition(joint, time) - model.getJointPosition(joint);
+            double speed = feedForward == 0 && Math.abs(error) < TOLERANCE ? 0
+                    : Math.max(-maxSpeed, Math.min(maxSpeed, feedForward + GAIN * error));
+
+            // Setting a motor speed wakes the arm, so leave it alone once the joint holds still
+            speed *= model.getMotorDirection(joint);
+            if (speed != model.getMotorSpeed(joint)) model.setMotorSpeed(joint, speed);
+        }
+        time += stepTime;
+    }
+
+}
@@ -0,0 +1,61 @@
+package roboticarm.simulation;
+
+import org.dyn4j.dynamics.World;
+import roboticarm.kinematics.ArmGeometry;
+
+/**
+ * Applies drained commands to an arm model: motor speeds go to the joints, joint targets to a {@link JointServo} and
+ * picks to an optional pick handler. The servo has to be {@link JointServo#update(ArmModel, double) updated} before every step.
+ *
+ * @since 2026-10-17
+ */
+public class ModelCommandHandler implements CommandQueue.Handler {
+    private final ArmModel model;
+    private final JointServo servo;
+    private PickHandler pickHandler;
+
+    public ModelCommandHandler(ArmModel model) {
+        this.model = model;
+        this.servo = new JointServo(ArmGeometry.of(model));
+    }
+
+    public void setPickHandler(PickHandler pickHandler) {
+        this.pickHandler = pickHandler;
+    }
+
+    public PickHandler getPickHandler() {
+        return pickHandler;
+    }
+
+    public JointServo getServo() {
+        return servo;
+    }
+
+    @Override
+    public void onMotorSpeed(long timestamp, ArmJoint joint, double speed) {
+        servo.cancel(joint);
+        model.setMotorSpeed(joint, speed);
+    }
+
+    @Override
+    public void onJointTarget(long timestamp, ArmJoint joint, double position) {
+        servo.setTarget(joint, position);
+    }
+
+    @Override
+    public void onPick(long timestamp, double x, double y) {
+        if (pickHandler != null) pickHandler.pick(model.getWorld(), true, x, y);
+    }
+
+    @Override
+    public void onPickBody(long timestamp, int body, double x, double y) {
+        World world = model.getWorld();
+        if (pickHandler != null && body >= 0 && body < world.getBodyCount()) pickHandler.pick(world, world.getBody(body), x, y);
+    }
+
+    @Override
+    public void onRelease(long timestamp) {
+        if (pickHandler != null) pickHandler.pick(model.getWorld(), false, 0, 0);
+    }
+
+}
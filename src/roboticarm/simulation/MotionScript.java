@@ -0,0 +1,114 @@
+package roboticarm.simulation;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A timed list of joint motor commands, the motion program format of the arm. The text format has one command per line: the time in seconds, the joint
+ * name and the motor speed, separated by whitespace. Empty lines and lines starting with {@code #} are ignored.
+ * <pre>
+ * # time joint speed
+ * 0.0    base  5
+ * 0.8    base  0
+ * 0.8    large -2
+ * </pre>
+ *
+ * @since 2026-10-17
+ */
+public class MotionScript {
+    private final List<Command> commands;
+
+    public MotionScript(List<Command> commands) {
+        this.commands = new ArrayList<>(commands);
+        this.commands.sort(Comparator.comparingDouble(Command::getTime));
+    }
+
+    public static MotionScript load(Path path) throws IOException {
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return parse(reader);
+        }
+    }
+
+    public static MotionScript parse(Reader reader) throws IOException {
+        BufferedReader lines = new BufferedReader(reader);
+        List<Command> commands = new ArrayList<>();
+        String line;
+        int lineNumber = 0;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+
+            String[] parts = line.split("\\s+");
+            if (parts.length != 3) throw new IOException("Line " + lineNumber + ": expected <time> <joint> <speed>");
+            try {
+                commands.add(new Command(Double.parseDouble(parts[0]), ArmJoint.fromName(parts[1]), Double.parseDouble(parts[2])));
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Line " + lineNumber + ": " + e.getMessage(), e);
+            }
+        }
+        return new MotionScript(commands);
+    }
+
+    /**
+     * Offers every command from {@code index} onwards whose time has been reached to the queue, timestamped with their
+     * script time. A command that does not fit is retried on the next call.
+     *
+     * @return the index of the first command that has not been queued yet
+     */
+    public int feed(CommandQueue queue, double time, int index) {
+        while (index < commands.size() && commands.get(index).time <= time) {
+            Command command = commands.get(index);
+            if (!queue.offerMotorSpeed((long) (command.time * 1e9), command.joint, command.speed)) break;
+            index++;
+        }
+        return index;
+    }
+
+    public List<Command> getCommands() {
+        return commands;
+    }
+
+    public int size() {
+        return commands.size();
+    }
+
+    /**
+     * @return the time of the last command, or 0 for an empty script
+     */
+    public double getDuration() {
+        return commands.isEmpty() ? 0 : commands.get(commands.size() - 1).time;
+    }
+
+    public static class Command {
+        private final double time;
+        private final ArmJoint joint;
+        private final double speed;
+
+        public Command(double time, ArmJoint joint, double speed) {
+            this.time = time;
+            this.joint = joint;
+            this.speed = speed;
+        }
+
+        public double getTime() {
+            return time;
+        }
+
+        public ArmJoint getJoint() {
+            return joint;
+        }
+
+        public double getSpeed() {
+            return speed;
+        }
+    }
+
+}
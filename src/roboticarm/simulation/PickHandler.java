@@ -0,0 +1,31 @@
+package roboticarm.simulation;
+
+import org.dyn4j.dynamics.Body;
+import org.dyn4j.dynamics.World;
+
+/**
+ * Drags a body of the world towards a target, driven by pick and release commands on the simulation thread.
+ *
+ * @since 2026-10-17
+ */
+public interface PickHandler {
+    /**
+     * @param active false once the pick is released, the coordinates are meaningless then
+     */
+    void pick(World world, boolean active, double x, double y);
+
+    /**
+     * Drags the given body towards the target, replacing the current pick.
+     */
+    void pick(World world, Body body, double x, double y);
+
+    /**
+     * @return the body being dragged, or null if nothing is picked
+     */
+    Body getPickedBody();
+
+    /**
+     * @return the body the picked body is pulled towards, which the handler added to the world, or null
+     */
+    Body getAnchorBody();
+}
@@ -0,0 +1,370 @@
+package roboticarm.simulation;
+
+import org.dyn4j.dynamics.Body;
+import org.dyn4j.dynamics.World;
+import org.dyn4j.dynamics.joint.Joint;
+import org.dyn4j.dynamics.joint.PrismaticJoint;
+import org.dyn4j.geometry.Transform;
+import org.dyn4j.geometry.Vector2;
+
+import java.util.Arrays;
+
+/**
+ * The transforms of every body in a world before and after the most recent physics step, stored in primitive arrays.
+ * Bodies are indexed by their position in the world, the arm joint positions after the step by their ordinal. The body references are only meant for reading immutable data
+ * such as fixtures.
+ * <p>
+ * For the debug overlay the snapshot also holds the joints of the world with their anchors in the first body, and the
+ * contact points of the step when a {@link ContactCollector} is given.
+ *
+ * @since 2026-10-17
+ */
+public class PoseSnapshot {
+    private int bodyCount = 0;
+    private int previousCount = 0;
+    private Body[] bodies = new Body[0];
+    private double[] previousX = new double[0];
+    private double[] previousY = new double[0];
+    private double[] previousRotation = new double[0];
+    private double[] x = new double[0];
+    private double[] y = new double[0];
+    private double[] rotation = new double[0];
+    private static final ArmJoint[] JOINTS = ArmJoint.values();
+    private final double[] jointPositions = new double[JOINTS.length];
+    private int awakeBodies = 0;
+    private long step = -1;
+    private long timeNanos = 0;
+    private double stepTime = 0;
+    private int jointCount = 0;
+    private Joint[] joints = new Joint[0];
+    private int[] jointBody1 = new int[0];
+    private int[] jointBody2 = new int[0];
+    private double[] jointAnchorX = new double[0];
+    private double[] jointAnchorY = new double[0];
+    private double[] jointAxisX = new double[0];
+    private double[] jointAxisY = new double[0];
+    private int contactCount = 0;
+    private double[] contactX = new double[0];
+    private double[] contactY = new double[0];
+    private double[] contactNormalX = new double[0];
+    private double[] contactNormalY = new double[0];
+
+    /**
+     * Records the transforms before a step.
+     */
+    public void capturePrevious(World world) {
+        ensureCapacity(world.getBodyCount());
+        previousCount = world.getBodyCount();
+        for (int i = 0; i < previousCount; i++) {
+            bodies[i] = world.getBody(i);
+            Transform transform = bodies[i].getTransform();
+            previousX[i] = transform.getTranslationX();
+            previousY[i] = transform.getTranslationY();
+            previousRotation[i] = transform.getRotation();
+        }
+    }
+
+    /**
+     * Records the transforms after a step. Bodies added during the step get their current transform as previous one.
+     */
+    public void captureCurrent(World world, long step, long timeNanos, double stepTime) {
+        bodyCount = world.getBodyCount();
+        ensureCapacity(bodyCount);
+        awakeBodies = 0;
+        for (int i = 0; i < bodyCount; i++) {
+            Body body = world.getBody(i);
+            Transform transform = body.getTransform();
+            boolean added = i >= previousCount || bodies[i] != body;
+            bodies[i] = body;
+            x[i] = transform.getTranslationX();
+            y[i] = transform.getTranslationY();
+            rotation[i] = transform.getRotation();
+            if (added) {
+                previousX[i] = x[i];
+                previousY[i] = y[i];
+                previousRotation[i] = rotation[i];
+            }
+            if (!body.isAsleep() && !body.isStatic()) awakeBodies++;
+        }
+        for (int i = bodyCount; i < bodies.length; i++) bodies[i] = null;
+        this.step = step;
+        this.timeNanos = timeNanos;
+        this.stepTime = stepTime;
+        contactCount = 0;
+        captureJointAnchors(world);
+    }
+
+    /**
+     * Records the joints of the world and the indices of their bodies, after the bodies have been captured. Anchors
+     * are fixed in the bodies, so they are only worked out when a joint is first seen.
+     */
+    public void captureJointAnchors(World world) {
+        int count = world.getJointCount();
+        ensureJointCapacity(count);
+        for (int i = 0; i < count; i++) {
+            Joint joint = world.getJoint(i);
+            Body body1 = joint.getBody1();
+            if (joints[i] != joint) {
+                joints[i] = joint;
+                Vector2 anchor = body1.getLocalPoint(joint.getAnchor1());
+                jointAnchorX[i] = anchor.x;
+                jointAnchorY[i] = anchor.y;
+                if (joint instanceof PrismaticJoint) {
+                    Vector2 axis = body1.getLocalVector(((PrismaticJoint) joint).getAxis());
+                    jointAxisX[i] = axis.x;
+                    jointAxisY[i] = axis.y;
+                } else {
+                    jointAxisX[i] = 0;
+                    jointAxisY[i] = 0;
+                }
+            }
+            jointBody1[i] = indexOf(body1, jointBody1[i]);
+            jointBody2[i] = indexOf(joint.getBody2(), jointBody2[i]);
+        }
+        for (int i = count; i < jointCount; i++) joints[i] = null;
+        jointCount = count;
+    }
+
+    /**
+     * Copies the contact points of the step that was just captured.
+     */
+    public void captureContacts(ContactCollector contacts) {
+        contactCount = contacts.getCount();
+        if (contactCount > contactX.length) {
+            contactX = new double[contactCount];
+            contactY = new double[contactCount];
+            contactNormalX = new double[contactCount];
+            contactNormalY = new double[contactCount];
+        }
+        for (int i = 0; i < contactCount; i++) {
+            contactX[i] = contacts.getX(i);
+            contactY[i] = contacts.getY(i);
+            contactNormalX[i] = contacts.getNormalX(i);
+            contactNormalY[i] = contacts.getNormalY(i);
+        }
+    }
+
+    /**
+     * @param hint the index the body had before, checked first
+     * @return the index of the body in this snapshot, or -1 if it is not in it
+     */
+    private int indexOf(Body body, int hint) {
+        if (hint >= 0 && hint < bodyCount && bodies[hint] == body) return hint;
+        for (int i = 0; i < bodyCount; i++) {
+            if (bodies[i] == body) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Records the joint positions of the arm after a step.
+     */
+    public void captureJoints(ArmModel model) {
+        for (ArmJoint joint : JOINTS) jointPositions[joint.ordinal()] = model.getJointPosition(joint);
+    }
+
+    /**
+     * Starts filling the snapshot from a recording instead of a world, followed by a
+     * {@link #setPose(int, Body, double, double, double, double, double, double) pose} for every body.
+     */
+    public void setFrame(int bodyCount, long step, long timeNanos, double stepTime) {
+        ensureCapacity(bodyCount);
+        for (int i = bodyCount; i < this.bodyCount; i++) bodies[i] = null;
+        this.bodyCount = bodyCount;
+        previousCount = bodyCount;
+        awakeBodies = 0;
+        contactCount = 0;
+        this.step = step;
+        this.timeNanos = timeNanos;
+        this.stepTime = stepTime;
+    }
+
+    public void setPose(int index, Body body, double previousX, double previousY, double previousRotation,
+                        double x, double y, double rotation) {
+        bodies[index] = body;
+        this.previousX[index] = previousX;
+        this.previousY[index] = previousY;
+        this.previousRotation[index] = previousRotation;
+        this.x[index] = x;
+        this.y[index] = y;
+        this.rotation[index] = rotation;
+        if (x != previousX || y != previousY || rotation != previousRotation) awakeBodies++;
+    }
+
+    public void setJointPosition(ArmJoint joint, double position) {
+        jointPositions[joint.ordinal()] = position;
+    }
+
+    private void ensureCapacity(int count) {
+        if (count <= bodies.length) return;
+        int capacity = Math.max(count, bodies.length * 2);
+        bodies = Arrays.copyOf(bodies, capacity);
+        previousX = Arrays.copyOf(previousX, capacity);
+        previousY = Arrays.copyOf(previousY, capacity);
+        previousRotation = Arrays.copyOf(previousRotation, capacity);
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        rotation = Arrays.copyOf(rotation, capacity);
+    }
+
+    private void ensureJointCapacity(int count) {
+        if (count <= joints.length) return;
+        joints = Arrays.copyOf(joints, count);
+        jointBody1 = Arrays.copyOf(jointBody1, count);
+        jointBody2 = Arrays.copyOf(jointBody2, count);
+        jointAnchorX = Arrays.copyOf(jointAnchorX, count);
+        jointAnchorY = Arrays.copyOf(jointAnchorY, count);
+        jointAxisX = Arrays.copyOf(jointAxisX, count);
+        jointAxisY = Arrays.copyOf(jointAxisY, count);
+    }
+
+    /**
+     * @return how far the given time is between this step and the next one, in the range [0, 1]
+     */
+    public double getAlpha(long nowNanos) {
+        if (stepTime <= 0) return 1;
+        return Math.max(0, Math.min(1, (nowNanos - timeNanos) / (stepTime * 1e9)));
+    }
+
+    /**
+     * Sets the transform to the pose of a body interpolated between the previous and the current step.
+     */
+    public void getTransform(int index, double alpha, Transform result) {
+        double angle = rotation[index] - previousRotation[index];
+        if (angle < -Math.PI) angle += 2 * Math.PI;
+        if (angle > Math.PI) angle -= 2 * Math.PI;
+        result.identity();
+        result.rotate(previousRotation[index] + angle * alpha);
+        result.translate(previousX[index] + (x[index] - previousX[index]) * alpha,
+                previousY[index] + (y[index] - previousY[index]) * alpha);
+    }
+
+    public int getBodyCount() {
+        return bodyCount;
+    }
+
+    public Body getBody(int index) {
+        return bodies[index];
+    }
+
+    public double getPreviousX(int index) {
+        return previousX[index];
+    }
+
+    public double getPreviousY(int index) {
+        return previousY[index];
+    }
+
+    public double getPreviousRotation(int index) {
+        return previousRotation[index];
+    }
+
+    public double getX(int index) {
+        return x[index];
+    }
+
+    public double getY(int index) {
+        return y[index];
+    }
+
+    public double getRotation(int index) {
+        return rotation[index];
+    }
+
+    public double getJointPosition(ArmJoint joint) {
+        return jointPositions[joint.ordinal()];
+    }
+
+    /**
+     * Copies the joint positions after the step into the array, indexed by {@link ArmJoint#ordinal()}.
+     */
+    public void getJointPositions(double[] result) {
+        System.arraycopy(jointPositions, 0, result, 0, jointPositions.length);
+    }
+
+    /**
+     * @return the number of dynamic bodies that were awake after the step
+     */
+    public int getAwakeBodies() {
+        return awakeBodies;
+    }
+
+    /**
+     * @return the number of the step, or -1 if nothing has been captured yet
+     */
+    public long getStep() {
+        return step;
+    }
+
+    public long getTimeNanos() {
+        return timeNanos;
+    }
+
+    public int getJointCount() {
+        return jointCount;
+    }
+
+    /**
+     * The joint is only meant for reading its settings, such as the limits.
+     */
+    public Joint getJoint(int index) {
+        return joints[index];
+    }
+
+    /**
+     * @return the index of the first body of the joint, or -1 if it is not in the snapshot
+     */
+    public int getJointBody1(int index) {
+        return jointBody1[index];
+    }
+
+    /**
+     * @return the index of the second body of the joint, or -1 if it is not in the snapshot
+     */
+    public int getJointBody2(int index) {
+        return jointBody2[index];
+    }
+
+    /**
+     * @return the x of the anchor of the joint in the first body
+     */
+    public double getJointAnchorX(int index) {
+        return jointAnchorX[index];
+    }
+
+    public double getJointAnchorY(int index) {
+        return jointAnchorY[index];
+    }
+
+    /**
+     * @return the x of the axis of a prismatic joint in the first body, 0 for other joints
+     */
+    public double getJointAxisX(int index) {
+        return jointAxisX[index];
+    }
+
+    public double getJointAxisY(int index) {
+        return jointAxisY[index];
+    }
+
+    public int getContactCount() {
+        return contactCount;
+    }
+
+    public double getContactX(int index) {
+        return contactX[index];
+    }
+
+    public double getContactY(int index) {
+        return contactY[index];
+    }
+
+    public double getContactNormalX(int index) {
+        return contactNormalX[index];
+    }
+
+    public double getContactNormalY(int index) {
+        return contactNormalY[index];
+    }
+
+}
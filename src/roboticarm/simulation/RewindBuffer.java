@@ -0,0 +1,82 @@
+package roboticarm.simulation;
+
+/**
+ * Keeps the most recent world states in a ring, so the simulation can be wound back by a few seconds. All states are
+ * preallocated and overwritten in place.
+ *
+ * @since 2026-10-17
+ */
+public class RewindBuffer {
+    private final WorldState[] states;
+    private final int interval;
+    private int newest = -1;
+    private int size = 0;
+
+    /**
+     * @param capacity the number of states kept
+     * @param interval the number of steps between two kept states
+     */
+    public RewindBuffer(int capacity, int interval) {
+        if (capacity < 1 || interval < 1) throw new IllegalArgumentException("Capacity and interval must be positive");
+        this.states = new WorldState[capacity];
+        for (int i = 0; i < capacity; i++) states[i] = new WorldState();
+        this.interval = interval;
+    }
+
+    /**
+     * @return a buffer that covers the given number of seconds
+     */
+    public static RewindBuffer forDuration(double seconds, double stepRate, int interval) {
+        return new RewindBuffer((int) Math.ceil(seconds * stepRate / interval) + 1, interval);
+    }
+
+    /**
+     * Captures the state after a step if the step falls on the interval.
+     */
+    public void record(ArmModel model, PickHandler pickHandler, long step) {
+        if (step % interval != 0) return;
+        newest = (newest + 1) % states.length;
+        states[newest].capture(model, pickHandler, step);
+        size = Math.min(size + 1, states.length);
+    }
+
+    /**
+     * @param age 0 for the newest state, up to {@link #size()} - 1 for the oldest
+     */
+    public WorldState get(int age) {
+        if (age < 0 || age >= size) throw new IndexOutOfBoundsException("Age " + age + " of " + size);
+        return states[(newest - age + states.length) % states.length];
+    }
+
+    /**
+     * Drops every state newer than the one at or before the given step and returns that one, so recording can
+     * continue from it.
+     *
+     * @return the state, or the oldest one if the step lies further back than the buffer reaches, or null if empty
+     */
+    public WorldState rewindTo(long step) {
+        while (size > 1 && states[newest].getStep() > step) {
+            newest = (newest - 1 + states.length) % states.length;
+            size--;
+        }
+        return size == 0 ? null : states[newest];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return states.length;
+    }
+
+    public int getInterval() {
+        return interval;
+    }
+
+    public void clear() {
+        newest = -1;
+        size = 0;
+    }
+
+}
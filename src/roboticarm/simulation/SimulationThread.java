@@ -0,0 +1,286 @@
+package roboticarm.simulation;
+
+import roboticarm.kinematics.MotionPlanner;
+import roboticarm.utility.FixedTimestep;
+import roboticarm.utility.FrameProfiler;
+
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Steps an arm model in real time on its own thread. After every batch of steps the body transforms are published as
+ * a {@link PoseSnapshot} through a {@link TripleBuffer}, so a renderer can read them without locking. Once started,
+ * the model belongs to this thread: joint and pick commands reach it through the {@link CommandQueue}, which is
+ * drained at the start of every step, anything else through {@link #submit(Consumer)}.
+ *
+ * @since 2026-10-17
+ */
+public class SimulationThread {
+    private static final int CONTACT_CAPACITY = 64;
+    private final ArmModel model;
+    private final FixedTimestep timestep;
+    private final TripleBuffer<PoseSnapshot> snapshots = new TripleBuffer<>(PoseSnapshot::new);
+    private final Queue<Consumer<ArmModel>> tasks = new ConcurrentLinkedQueue<>();
+    private final CommandQueue commandQueue;
+    private final ModelCommandHandler commandHandler;
+    private MotionScript program;
+    private TrajectoryRecorder recorder;
+    private TelemetryServer telemetry;
+    private RewindBuffer rewindBuffer;
+    private FrameProfiler profiler = FrameProfiler.NONE;
+    private final ContactCollector contacts = new ContactCollector(CONTACT_CAPACITY);
+    private int programIndex;
+    private double programTime;
+    private final Thread thread;
+    private volatile boolean running = false;
+    private long step = 0;
+    private volatile double stepTime;
+    private volatile long busyNanos = 0;
+
+    public SimulationThread(ArmModel model, double stepRate, int maxStepsPerFrame, int commandCapacity) {
+        this.model = model;
+        this.commandQueue = new CommandQueue(commandCapacity);
+        this.commandHandler = new ModelCommandHandler(model);
+        this.timestep = new FixedTimestep(stepRate, maxStepsPerFrame);
+        this.stepTime = timestep.getStepTime();
+        this.thread = new Thread(this::run, "simulation");
+        this.thread.setDaemon(true);
+        model.getWorld().addListener(contacts);
+
+        // Publish the initial pose so the renderer never sees an empty snapshot
+        PoseSnapshot snapshot = snapshots.getBackBuffer();
+        snapshot.capturePrevious(model.getWorld());
+        snapshot.captureCurrent(model.getWorld(), step, System.nanoTime(), timestep.getStepTime());
+        snapshot.captureJoints(model);
+        snapshots.publish();
+    }
+
+    public void start() {
+        running = true;
+        thread.start();
+    }
+
+    public void stop() {
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Queues a task, it runs on the simulation thread before the next step. Joint commands should go through the
+     * {@link #getCommandQueue() command queue} instead, which does not allocate.
+     */
+    public void submit(Consumer<ArmModel> task) {
+        tasks.add(task);
+    }
+
+    /**
+     * Plays a motion program from the next step on, replacing the program that is playing.
+     */
+    public void play(MotionScript program) {
+        submit(model -> {
+            this.program = program;
+            programIndex = 0;
+            programTime = 0;
+        });
+    }
+
+    /**
+     * Lets the servo follow a planned path from the next step on, replacing any move in progress.
+     */
+    public void followPath(MotionPlanner.Plan plan) {
+        submit(model -> commandHandler.getServo().followPath(plan));
+    }
+
+    /**
+     * Sets the handler for pick commands, must be called before {@link #start()}.
+     */
+    public void setPickHandler(PickHandler pickHandler) {
+        commandHandler.setPickHandler(pickHandler);
+    }
+
+    /**
+     * Records the state after every step, must be called before {@link #start()}. The recorder is closed when the
+     * thread stops.
+     */
+    public void setRecorder(TrajectoryRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    /**
+     * Sends the state after every step to the clients of the server, must be called before {@link #start()}. The
+     * server is not closed when the thread stops.
+     */
+    public void setTelemetry(TelemetryServer telemetry) {
+        this.telemetry = telemetry;
+    }
+
+    /**
+     * Keeps the states of the last seconds so the simulation can be {@link #rewind(double) rewound}, must be called
+     * before {@link #start()}.
+     */
+    public void enableRewind(double seconds) {
+        enableRewind(seconds, 1);
+    }
+
+    /**
+     * @param interval the number of steps between kept states, larger scenes need fewer of them
+     */
+    public void enableRewind(double seconds, int interval) {
+        rewindBuffer = RewindBuffer.forDuration(seconds, timestep.getStepRate(), interval);
+    }
+
+    /**
+     * Changes the world settings before the next step.
+     */
+    public void applySettings(WorldSettings settings) {
+        WorldSettings copy = settings.copy();
+        submit(model -> copy.apply(model.getWorld()));
+    }
+
+    /**
+     * Changes the number of steps per simulated second from the next step on. Playing programs keep their timing, but
+     * a {@link #rewind(double) rewind} converts seconds to steps at the new rate and a recording keeps the step time
+     * it was started with, so the rate should stay fixed while recording.
+     */
+    public void setStepRate(double stepRate) {
+        if (stepRate <= 0) throw new IllegalArgumentException("Step rate must be positive: " + stepRate);
+        submit(model -> {
+            timestep.setStepRate(stepRate);
+            stepTime = timestep.getStepTime();
+        });
+    }
+
+    /**
+     * Puts the arm back into the state it had the given number of seconds ago, as far as the rewind buffer reaches.
+     * Joint targets and the playing program are dropped. The step count goes back with it, so recordings, snapshots
+     * and later rewinds continue from the restored step.
+     */
+    public void rewind(double seconds) {
+        submit(model -> {
+            if (rewindBuffer == null) return;
+            WorldState state = rewindBuffer.rewindTo(step - Math.round(seconds / timestep.getStepTime()));
+            if (state == null) return;
+            state.restore(model, commandHandler.getPickHandler());
+            step = state.getStep();
+            commandHandler.getServo().cancelAll();
+            program = null;
+        });
+    }
+
+    /**
+     * Captures the state before the next step, for example to {@link WorldState#branch(Supplier) branch} a what-if
+     * simulation from it.
+     */
+    public CompletableFuture<WorldState> captureState() {
+        CompletableFuture<WorldState> future = new CompletableFuture<>();
+        submit(model -> {
+            WorldState state = new WorldState();
+            state.capture(model, commandHandler.getPickHandler(), step);
+            future.complete(state);
+        });
+        return future;
+    }
+
+    /**
+     * Times the command handling and the world step of every step.
+     */
+    public void setProfiler(FrameProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    public CommandQueue getCommandQueue() {
+        return commandQueue;
+    }
+
+    /**
+     * @return the latest published poses, only call from the rendering thread
+     */
+    public PoseSnapshot getSnapshot() {
+        return snapshots.acquire();
+    }
+
+    public double getStepTime() {
+        return stepTime;
+    }
+
+    /**
+     * @return the total time spent stepping so far, in nanoseconds. The difference between two calls tells how busy
+     * the simulation thread was in between.
+     */
+    public long getBusyNanos() {
+        return busyNanos;
+    }
+
+    private void run() {
+        long last = System.nanoTime();
+        while (running) {
+            long now = System.nanoTime();
+            int steps = timestep.advance((now - last) / 1e9);
+            last = now;
+
+            for (int i = 0; i < steps; i++) {
+                long busyStart = System.nanoTime();
+                long start = profiler.begin();
+                Consumer<ArmModel> task;
+                while ((task = tasks.poll()) != null) task.accept(model);
+                if (program != null) {
+                    programIndex = program.feed(commandQueue, programTime, programIndex);
+                    if (programIndex == program.size()) program = null;
+                }
+                commandQueue.drain(commandHandler);
+                commandHandler.getServo().update(model, timestep.getStepTime());
+                profiler.end(FrameProfiler.Phase.COMMANDS, start);
+
+                if (i == steps - 1) snapshots.getBackBuffer().capturePrevious(model.getWorld());
+                start = profiler.begin();
+                contacts.clear();
+                model.step(timestep.getStepTime());
+                profiler.end(FrameProfiler.Phase.STEP, start);
+                step++;
+                if (program != null) programTime += timestep.getStepTime();
+                if (recorder != null) record();
+                if (telemetry != null) telemetry.publish(step);
+                if (rewindBuffer != null) rewindBuffer.record(model, commandHandler.getPickHandler(), step);
+                busyNanos += System.nanoTime() - busyStart;
+            }
+            if (steps > 0) {
+                snapshots.getBackBuffer().captureCurrent(model.getWorld(), step, System.nanoTime(), timestep.getStepTime());
+                snapshots.getBackBuffer().captureJoints(model);
+                snapshots.getBackBuffer().captureContacts(contacts);
+                snapshots.publish();
+            }
+
+            // Sleep until the next step is due
+            long wait = (long) ((1 - timestep.getAlpha()) * timestep.getStepTime() * 1e9);
+            if (wait > 0) LockSupport.parkNanos(wait);
+        }
+
+        if (recorder != null) {
+            try {
+                recorder.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void record() {
+        try {
+            recorder.record(step, model.getWorld(), model);
+        } catch (IOException e) {
+            e.printStackTrace();
+            recorder = null;
+        }
+    }
+
+}
@@ -0,0 +1,167 @@
+package roboticarm.simulation;
+
+import roboticarm.utility.PhaseTimer;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Locale;
+
+/**
+ * Steps the arm in a {@link StressScene} for every combination of part count, broadphase and continuous collision
+ * mode given on the command line, and reports the step time percentiles, the number of bodies, how many of them were
+ * awake and how many contacts were solved per step. Other world settings apply to every run.
+ * <pre>
+ * java roboticarm.simulation.StressRunner [--rate hz] [--duration seconds] [--seed n] [--parts n,n,...]
+ *     [--broadphase tree,sap] [--ccd none,bullets,all] [--velocity-iterations n] [--position-iterations n]
+ *     [--sleep on|off] [--sleep-linear v] [--sleep-angular v] [--sleep-time seconds] [script]
+ * </pre>
+ *
+ * @since 2026-10-17
+ */
+public class StressRunner {
+    private static final double DEFAULT_DURATION = 10;
+    private static final double WARMUP_DURATION = 2;
+    private static final long DEFAULT_SEED = 1;
+    private static final int COMMAND_CAPACITY = 256;
+    private static final int CONTACT_CAPACITY = 1 << 16;
+    private final double stepTime;
+    private final ContactCollector contacts = new ContactCollector(CONTACT_CAPACITY);
+
+    public StressRunner(double stepRate) {
+        this.stepTime = 1 / stepRate;
+    }
+
+    public static void main(String[] args) throws IOException {
+        double stepRate = HeadlessRunner.DEFAULT_STEP_RATE;
+        double duration = DEFAULT_DURATION;
+        long seed = DEFAULT_SEED;
+        String[] parts = {"500", "1000", "2000"};
+        String[] broadphases = {"tree", "sap"};
+        String[] modes = {"bullets"};
+        WorldSettings settings = new WorldSettings();
+        MotionScript script = new MotionScript(Collections.<MotionScript.Command>emptyList());
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--rate":
+                    stepRate = Double.parseDouble(args[++i]);
+                    break;
+                case "--duration":
+                    duration = Double.parseDouble(args[++i]);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                case "--parts":
+                    parts = args[++i].split(",");
+                    break;
+                case "--broadphase":
+                    broadphases = args[++i].split(",");
+                    break;
+                case "--ccd":
+                    modes = args[++i].split(",");
+                    break;
+                default:
+                    if (args[i].startsWith("--") && i + 1 < args.length && settings.set(args[i].substring(2), args[i + 1])) i++;
+                    else script = MotionScript.load(Paths.get(args[i]));
+            }
+        }
+
+        System.out.println(settings);
+        StressRunner runner = new StressRunner(stepRate);
+        // Let the JIT compile the step before anything is reported
+        runner.run(Integer.parseInt(parts[0].trim()), seed, settings, script, WARMUP_DURATION);
+        for (String count : parts) {
+            for (String broadphase : broadphases) {
+                for (String mode : modes) {
+                    WorldSettings run = settings.copy();
+                    run.setBroadphase(WorldSettings.Broadphase.of(broadphase.trim()));
+                    run.setContinuousDetectionMode(WorldSettings.parseContinuousDetectionMode(mode.trim()));
+                    String name = String.format(Locale.ROOT, "parts=%s broadphase=%s ccd=%s", count.trim(),
+                            broadphase.trim(), mode.trim());
+                    System.out.println(runner.run(Integer.parseInt(count.trim()), seed, run, script, duration).format(name));
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs the script on a new arm in a stress scene with the given number of parts.
+     */
+    public Result run(int parts, long seed, WorldSettings settings, MotionScript script, double duration) {
+        ArmModel model = new ArmModel();
+        StressScene.populate(model, parts, seed);
+        settings.apply(model.getWorld());
+        model.getWorld().addListener(contacts);
+
+        CommandQueue queue = new CommandQueue(COMMAND_CAPACITY);
+        ModelCommandHandler handler = new ModelCommandHandler(model);
+        int steps = (int) Math.ceil(duration / stepTime);
+        PhaseTimer timer = new PhaseTimer(Math.max(1, steps));
+        long awake = 0;
+        long contactCount = 0;
+        int index = 0;
+        for (int step = 0; step < steps; step++) {
+            index = script.feed(queue, step * stepTime, index);
+            queue.drain(handler);
+            handler.getServo().update(model, stepTime);
+            contacts.clear();
+            long start = System.nanoTime();
+            model.step(stepTime);
+            timer.record(System.nanoTime() - start);
+
+            contactCount += contacts.getCount();
+            for (int i = 0; i < model.getWorld().getBodyCount(); i++) {
+                if (!model.getWorld().getBody(i).isAsleep() && !model.getWorld().getBody(i).isStatic()) awake++;
+            }
+        }
+        model.getWorld().removeListener(contacts);
+        timer.update();
+        return new Result(model.getWorld().getBodyCount(), awake / (double) steps, contactCount / (double) steps, timer);
+    }
+
+    public static class Result {
+        private final int bodies;
+        private final double meanAwake;
+        private final double meanContacts;
+        private final PhaseTimer stepTimes;
+
+        public Result(int bodies, double meanAwake, double meanContacts, PhaseTimer stepTimes) {
+            this.bodies = bodies;
+            this.meanAwake = meanAwake;
+            this.meanContacts = meanContacts;
+            this.stepTimes = stepTimes;
+        }
+
+        public int getBodies() {
+            return bodies;
+        }
+
+        /**
+         * @return the mean number of dynamic bodies awake after a step
+         */
+        public double getMeanAwake() {
+            return meanAwake;
+        }
+
+        /**
+         * @return the mean number of contact points solved per step, counting at most
+         * {@value StressRunner#CONTACT_CAPACITY} per step
+         */
+        public double getMeanContacts() {
+            return meanContacts;
+        }
+
+        public PhaseTimer getStepTimes() {
+            return stepTimes;
+        }
+
+        public String format(String name) {
+            return String.format(Locale.ROOT, "%s: %d bodies, %.1f awake, %.1f contacts per step; step p50 %.3f ms, "
+                            + "p99 %.3f ms, max %.3f ms, mean %.3f ms (%.0f steps/s)", name, bodies, meanAwake, meanContacts,
+                    stepTimes.getPercentile(50) / 1e6, stepTimes.getPercentile(99) / 1e6, stepTimes.getMax() / 1e6,
+                    stepTimes.getWindowMean() / 1e6, 1e9 / stepTimes.getWindowMean());
+        }
+    }
+
+}
@@ -0,0 +1,70 @@
+package roboticarm.simulation;
+
+import org.dyn4j.dynamics.Body;
+import org.dyn4j.dynamics.World;
+import org.dyn4j.geometry.Geometry;
+import org.dyn4j.geometry.MassType;
+
+import java.util.Random;
+
+/**
+ * Surrounds the arm with a floor, two walls and piles of loose parts, to see how stepping and drawing scale with the
+ * number of bodies. The parts are small boxes and discs stacked in columns on both sides of the rail of the arm, the
+ * same seed always gives the same scene.
+ *
+ * @since 2026-10-17
+ */
+public class StressScene {
+    private static final double FLOOR_Y = -5.4;
+    private static final double FLOOR_THICKNESS = 0.5;
+    private static final double HALF_WIDTH = 30;
+    private static final double WALL_HEIGHT = 40;
+    // The parts stay clear of the rail of the arm, which is 10 wide
+    private static final double INNER_X = 6;
+    private static final double SPACING = 0.5;
+    private static final double MIN_SIZE = 0.15;
+    private static final double MAX_SIZE = 0.35;
+
+    /**
+     * Adds the floor, the walls and the parts after the bodies already in the world, so indices of the arm bodies do
+     * not change.
+     *
+     * @return the number of bodies added
+     */
+    public static int populate(ArmModel model, int parts, long seed) {
+        World world = model.getWorld();
+        int before = world.getBodyCount();
+        world.addBody(createStatic(0, FLOOR_Y - FLOOR_THICKNESS / 2, HALF_WIDTH * 2, FLOOR_THICKNESS));
+        world.addBody(createStatic(-HALF_WIDTH, FLOOR_Y + WALL_HEIGHT / 2, FLOOR_THICKNESS, WALL_HEIGHT));
+        world.addBody(createStatic(HALF_WIDTH, FLOOR_Y + WALL_HEIGHT / 2, FLOOR_THICKNESS, WALL_HEIGHT));
+
+        Random random = new Random(seed);
+        int columns = (int) ((HALF_WIDTH - INNER_X - SPACING) / SPACING);
+        for (int i = 0; i < parts; i++) {
+            // Alternate sides, fill a row of columns before stacking the next one
+            int side = i % 2 == 0 ? -1 : 1;
+            int slot = i / 2;
+            double x = side * (INNER_X + SPACING / 2 + (slot % columns) * SPACING);
+            double y = FLOOR_Y + SPACING / 2 + (slot / columns) * SPACING;
+            double size = MIN_SIZE + random.nextDouble() * (MAX_SIZE - MIN_SIZE);
+
+            Body part = new Body();
+            if (random.nextBoolean()) part.addFixture(Geometry.createRectangle(size, size * (0.5 + random.nextDouble() * 0.5)));
+            else part.addFixture(Geometry.createCircle(size / 2));
+            part.getTransform().setTranslation(x, y);
+            part.getTransform().setRotation(random.nextDouble() * Math.PI);
+            part.setMass(MassType.NORMAL);
+            world.addBody(part);
+        }
+        return world.getBodyCount() - before;
+    }
+
+    private static Body createStatic(double x, double y, double width, double height) {
+        Body body = new Body();
+        body.addFixture(Geometry.createRectangle(width, height));
+        body.getTransform().setTranslation(x, y);
+        body.setMass(MassType.INFINITE);
+        return body;
+    }
+
+}
@@ -0,0 +1,313 @@
+package roboticarm.simulation;
+
+import org.dyn4j.dynamics.Body;
+import org.dyn4j.geometry.Transform;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Streams the joints and the arm bodies to local tools over TCP and accepts joint commands on the same connection.
+ * The server only listens on the loopback address. Connections are accepted and read on a thread of the server, while
+ * telemetry is written from the simulation thread right after each step, into a preallocated buffer per client, so
+ * sending does not allocate. A client that can not keep up misses messages instead of slowing the simulation down.
+ * <p>
+ * Every message is an int with the length of the rest of the message, a type byte and the payload, little-endian. On
+ * connect the server sends {@link #HELLO} with the version, the number of joints, the number of arm bodies and the
+ * step time as a double. A client sends {@link #SUBSCRIBE} with a mask of fields and a decimation as ints, after which
+ * it receives {@link #TELEMETRY} every decimation steps: the step as a long, the mask as an int and then the
+ * subscribed fields in the order of their bits, as doubles. Joints are in the order of {@link ArmJoint}, bodies from
+ * the lower base to the head extension. {@link #MOTOR_SPEED} and {@link #JOINT_TARGET} carry the joint ordinal as a
+ * byte and the value as a double, and are queued like keyboard and mouse input. A malformed message closes the
+ * connection.
+ *
+ * @since 2026-10-17
+ */
+public class TelemetryServer implements Closeable {
+    public static final int VERSION = 1;
+    // Messages from the server
+    public static final byte HELLO = 1;
+    public static final byte TELEMETRY = 2;
+    // Messages from clients
+    public static final byte SUBSCRIBE = 16;
+    public static final byte MOTOR_SPEED = 17;
+    public static final byte JOINT_TARGET = 18;
+    // Fields of a telemetry message
+    public static final int JOINT_POSITIONS = 1;
+    public static final int JOINT_SPEEDS = 1 << 1;
+    public static final int MOTOR_SPEEDS = 1 << 2;
+    public static final int BODY_TRANSFORMS = 1 << 3;
+    public static final int ALL_FIELDS = JOINT_POSITIONS | JOINT_SPEEDS | MOTOR_SPEEDS | BODY_TRANSFORMS;
+    private static final int HEADER_SIZE = Integer.BYTES + 1;
+    private static final int OUTBOUND_SIZE = 64 << 10;
+    private static final int INBOUND_SIZE = 4 << 10;
+    private static final ArmJoint[] JOINTS = ArmJoint.values();
+    private final ServerSocketChannel serverChannel;
+    private final Selector selector;
+    private final CommandQueue commandQueue;
+    private final ArmModel model;
+    private final Body[] bodies;
+    private final double stepTime;
+    private final Thread thread;
+    private volatile Client[] clients = new Client[0];
+    private volatile boolean running = false;
+
+    /**
+     * @param port the port to listen on, or 0 for any free port
+     */
+    public TelemetryServer(int port, ArmModel model, CommandQueue commandQueue, double stepTime) throws IOException {
+        this.model = model;
+        this.commandQueue = commandQueue;
+        this.stepTime = stepTime;
+        this.bodies = new Body[]{model.getLowerBase(), model.getUpperBase(), model.getLargeSegment(),
+                model.getMediumSegment(), model.getSmallSegment(), model.getHeadSegment(), model.getHeadExtension()};
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        this.thread = new Thread(this::run, "telemetry");
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        running = true;
+        thread.start();
+    }
+
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    public int getClientCount() {
+        return clients.length;
+    }
+
+    /**
+     * @return the size in bytes of a telemetry message with the given fields, including the length
+     */
+    public int getMessageSize(int fields) {
+        int values = 0;
+        if ((fields & JOINT_POSITIONS) != 0) values += JOINTS.length;
+        if ((fields & JOINT_SPEEDS) != 0) values += JOINTS.length;
+        if ((fields & MOTOR_SPEEDS) != 0) values += JOINTS.length;
+        if ((fields & BODY_TRANSFORMS) != 0) values += bodies.length * 3;
+        return HEADER_SIZE + Long.BYTES + Integer.BYTES + values * Double.BYTES;
+    }
+
+    /**
+     * Sends the state after the given step to every client that is due, call this on the thread that steps the world.
+     */
+    public void publish(long step) {
+        Client[] current = clients;
+        for (Client client : current) {
+            int fields = client.fields;
+            if (fields == 0 || step % client.decimation != 0) continue;
+
+            ByteBuffer out = client.outbound;
+            int size = getMessageSize(fields);
+            if (out.remaining() < size) {
+                flush(client);
+                if (out.remaining() < size) {
+                    client.dropped++;
+                    continue;
+                }
+            }
+            out.putInt(size - Integer.BYTES).put(TELEMETRY).putLong(step).putInt(fields);
+            if ((fields & JOINT_POSITIONS) != 0) {
+                for (ArmJoint joint : JOINTS) out.putDouble(model.getJointPosition(joint));
+            }
+            if ((fields & JOINT_SPEEDS) != 0) {
+                for (ArmJoint joint : JOINTS) out.putDouble(model.getJointSpeed(joint));
+            }
+            if ((fields & MOTOR_SPEEDS) != 0) {
+                for (ArmJoint joint : JOINTS) out.putDouble(model.getMotorSpeed(joint));
+            }
+            if ((fields & BODY_TRANSFORMS) != 0) {
+                for (Body body : bodies) {
+                    Transform transform = body.getTransform();
+                    out.putDouble(transform.getTranslationX()).putDouble(transform.getTranslationY())
+                            .putDouble(transform.getRotation());
+                }
+            }
+            flush(client);
+        }
+    }
+
+    private void flush(Client client) {
+        ByteBuffer out = client.outbound;
+        out.flip();
+        try {
+            client.channel.write(out);
+        } catch (IOException e) {
+            // The client went away, the selector thread also notices when reading
+            out.clear();
+            remove(client);
+            return;
+        }
+        out.compact();
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) continue;
+                    if (key.isAcceptable()) accept();
+                    else if (key.isReadable()) read((Client) key.attachment());
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) return;
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        Client client = new Client(channel);
+        client.outbound.putInt(HEADER_SIZE - Integer.BYTES + 3 * Integer.BYTES + Double.BYTES).put(HELLO)
+                .putInt(VERSION).putInt(JOINTS.length).putInt(bodies.length).putDouble(stepTime);
+        client.outbound.flip();
+        channel.write(client.outbound);
+        client.outbound.compact();
+        channel.register(selector, SelectionKey.OP_READ, client);
+        add(client);
+    }
+
+    private void read(Client client) {
+        ByteBuffer in = client.inbound;
+        try {
+            if (client.channel.read(in) < 0) {
+                remove(client);
+                return;
+            }
+        } catch (IOException e) {
+            remove(client);
+            return;
+        }
+
+        in.flip();
+        while (in.remaining() >= Integer.BYTES) {
+            int length = in.getInt(in.position());
+            if (length < 1 || length > in.capacity() - Integer.BYTES) {
+                remove(client);
+                return;
+            }
+            if (in.remaining() < Integer.BYTES + length) break;
+            int start = in.position() + Integer.BYTES;
+            if (!handle(client, in.get(start), start + 1, length - 1)) {
+                remove(client);
+                return;
+            }
+            in.position(start + length);
+        }
+        in.compact();
+    }
+
+    /**
+     * @return false if the message is malformed
+     */
+    private boolean handle(Client client, byte type, int offset, int length) {
+        ByteBuffer in = client.inbound;
+        switch (type) {
+            case SUBSCRIBE:
+                if (length != 2 * Integer.BYTES) return false;
+                int fields = in.getInt(offset);
+                int decimation = in.getInt(offset + Integer.BYTES);
+                if ((fields & ~ALL_FIELDS) != 0 || decimation < 1) return false;
+                client.decimation = decimation;
+                client.fields = fields;
+                return true;
+            case MOTOR_SPEED:
+            case JOINT_TARGET:
+                if (length != 1 + Double.BYTES) return false;
+                int joint = in.get(offset);
+                double value = in.getDouble(offset + 1);
+                if (joint < 0 || joint >= JOINTS.length || Double.isNaN(value) || Double.isInfinite(value)) return false;
+                if (type == MOTOR_SPEED) commandQueue.offerMotorSpeed(System.nanoTime(), JOINTS[joint], value);
+                else commandQueue.offerJointTarget(System.nanoTime(), JOINTS[joint], value);
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private synchronized void add(Client client) {
+        Client[] current = clients;
+        Client[] next = Arrays.copyOf(current, current.length + 1);
+        next[current.length] = client;
+        clients = next;
+    }
+
+    private synchronized void remove(Client client) {
+        try {
+            client.channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        Client[] current = clients;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] != client) continue;
+            Client[] next = new Client[current.length - 1];
+            System.arraycopy(current, 0, next, 0, i);
+            System.arraycopy(current, i + 1, next, i, next.length - i);
+            clients = next;
+            return;
+        }
+    }
+
+    /**
+     * @return the number of telemetry messages not sent to connected clients because they fell behind
+     */
+    public long getDropped() {
+        long dropped = 0;
+        for (Client client : clients) dropped += client.dropped;
+        return dropped;
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        selector.wakeup();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Client client : clients) remove(client);
+        serverChannel.close();
+        selector.close();
+    }
+
+    private static class Client {
+        private final SocketChannel channel;
+        // Written by the simulation thread only, after the hello message
+        private final ByteBuffer outbound = ByteBuffer.allocateDirect(OUTBOUND_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        private final ByteBuffer inbound = ByteBuffer.allocateDirect(INBOUND_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        private volatile int fields = 0;
+        private volatile int decimation = 1;
+        private volatile long dropped = 0;
+
+        private Client(SocketChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+}
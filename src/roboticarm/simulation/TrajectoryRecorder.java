@@ -0,0 +1,146 @@
+package roboticarm.simulation;
+
+import org.dyn4j.dynamics.World;
+import org.dyn4j.geometry.Transform;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Records the transform of every body and the state of every joint after each step into a fixed-width binary log,
+ * which {@link TrajectoryReplay} plays back. Frames are collected in a preallocated ring buffer, which is copied into a
+ * memory-mapped file whenever it fills up, so recording a step does not allocate or touch the file system. The file is
+ * mapped in chunks of {@value #CHUNK_SIZE} bytes, a new chunk is only mapped once the current one is full, and closing
+ * the recorder cuts the file back to the header and the recorded frames.
+ * <p>
+ * The file starts with a {@value #HEADER_SIZE} byte header, followed by the frames in little-endian order. A frame
+ * holds the step number, x, y and rotation for each body and position, speed and motor speed for each joint, all as
+ * doubles. Only as many bodies as existed when recording started are recorded; when the world has fewer bodies later
+ * on, the indices past its body count repeat the last pose recorded for them.
+ *
+ * @since 2026-10-17
+ */
+public class TrajectoryRecorder implements Closeable {
+    static final int MAGIC = 0x52415452;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 64;
+    static final int FRAME_COUNT_OFFSET = 24;
+    // The size of the regions the recorder and a replay map at once
+    static final int CHUNK_SIZE = 64 << 20;
+    private static final ArmJoint[] JOINTS = ArmJoint.values();
+    private final FileChannel channel;
+    private final int bodyCount;
+    private final int frameSize;
+    private final ByteBuffer ring;
+    private final MappedByteBuffer header;
+    private MappedByteBuffer chunk;
+    private long chunkStart = HEADER_SIZE;
+    private final double[] lastPoses;
+    private long frameCount = 0;
+    private boolean closed = false;
+
+    /**
+     * @param ringFrames the number of frames collected before they are written to the file
+     */
+    public TrajectoryRecorder(Path file, World world, double stepTime, int ringFrames) throws IOException {
+        this.bodyCount = world.getBodyCount();
+        this.frameSize = getFrameSize(bodyCount);
+        this.lastPoses = new double[bodyCount * 3];
+        this.ring = ByteBuffer.allocateDirect(ringFrames * frameSize).order(ByteOrder.LITTLE_ENDIAN);
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        header.order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putInt(bodyCount).putInt(JOINTS.length).putDouble(stepTime);
+        header.putLong(FRAME_COUNT_OFFSET, 0);
+        capturePoses(world);
+    }
+
+    static int getFrameSize(int bodyCount) {
+        return Long.BYTES + bodyCount * 3 * Double.BYTES + JOINTS.length * 3 * Double.BYTES;
+    }
+
+    /**
+     * Adds the state after a step, flushing the ring buffer to the file when it is full.
+     */
+    public void record(long step, World world, ArmModel model) throws IOException {
+        if (closed) throw new IllegalStateException("The recorder is closed");
+        if (ring.remaining() < frameSize) flush();
+
+        ring.putLong(step);
+        capturePoses(world);
+        for (int i = 0; i < lastPoses.length; i++) ring.putDouble(lastPoses[i]);
+        for (ArmJoint joint : JOINTS) {
+            ring.putDouble(model.getJointPosition(joint));
+            ring.putDouble(model.getJointSpeed(joint));
+            ring.putDouble(model.getMotorSpeed(joint));
+        }
+    }
+
+    /**
+     * Takes over the poses of the recorded indices that still hold a body, the others keep their last pose.
+     */
+    private void capturePoses(World world) {
+        int count = Math.min(bodyCount, world.getBodyCount());
+        for (int i = 0; i < count; i++) {
+            Transform transform = world.getBody(i).getTransform();
+            lastPoses[3 * i] = transform.getTranslationX();
+            lastPoses[3 * i + 1] = transform.getTranslationY();
+            lastPoses[3 * i + 2] = transform.getRotation();
+        }
+    }
+
+    /**
+     * Copies the collected frames into the mapped file and updates the frame count in the header.
+     */
+    public void flush() throws IOException {
+        int frames = ring.position() / frameSize;
+        ring.flip();
+        while (ring.hasRemaining()) {
+            if (chunk == null || !chunk.hasRemaining()) {
+                if (chunk != null) chunkStart += CHUNK_SIZE;
+                chunk = channel.map(FileChannel.MapMode.READ_WRITE, chunkStart, CHUNK_SIZE);
+            }
+            // A frame may straddle two chunks
+            int limit = ring.limit();
+            ring.limit(ring.position() + Math.min(ring.remaining(), chunk.remaining()));
+            chunk.put(ring);
+            ring.limit(limit);
+        }
+        frameCount += frames;
+        ring.clear();
+        header.putLong(FRAME_COUNT_OFFSET, frameCount);
+    }
+
+    /**
+     * @return the number of frames recorded, including those not yet flushed
+     */
+    public long getFrameCount() {
+        return frameCount + ring.position() / frameSize;
+    }
+
+    public int getBodyCount() {
+        return bodyCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        flush();
+        if (chunk != null) chunk.force();
+        header.force();
+        // The last chunk reaches past the recorded frames
+        channel.truncate(HEADER_SIZE + frameCount * frameSize);
+        channel.force(true);
+        channel.close();
+        closed = true;
+    }
+
+}
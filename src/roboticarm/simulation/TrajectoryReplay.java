@@ -0,0 +1,180 @@
+package roboticarm.simulation;
+
+import org.dyn4j.dynamics.World;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a log written by {@link TrajectoryRecorder} straight from a memory-mapped file. Any frame can be read at any
+ * time, so a renderer can seek freely without running physics. The file is mapped in chunks as they are first read.
+ *
+ * @since 2026-10-17
+ */
+public class TrajectoryReplay implements Closeable {
+    private static final ArmJoint[] JOINTS = ArmJoint.values();
+    private final FileChannel channel;
+    private final int bodyCount;
+    private final int jointCount;
+    private final double stepTime;
+    private final long frameCount;
+    private final int frameSize;
+    private final int framesPerChunk;
+    private final MappedByteBuffer[] chunks;
+
+    private TrajectoryReplay(FileChannel channel) throws IOException {
+        this.channel = channel;
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, TrajectoryRecorder.HEADER_SIZE);
+        header.order(ByteOrder.LITTLE_ENDIAN);
+        if (header.getInt() != TrajectoryRecorder.MAGIC) throw new IOException("Not a trajectory recording");
+        int version = header.getInt();
+        if (version != TrajectoryRecorder.VERSION) throw new IOException("Unsupported recording version: " + version);
+        bodyCount = header.getInt();
+        jointCount = header.getInt();
+        stepTime = header.getDouble();
+        frameCount = header.getLong(TrajectoryRecorder.FRAME_COUNT_OFFSET);
+        if (jointCount != JOINTS.length) throw new IOException("Recording has " + jointCount + " joints");
+
+        frameSize = TrajectoryRecorder.getFrameSize(bodyCount);
+        framesPerChunk = TrajectoryRecorder.CHUNK_SIZE / frameSize;
+        chunks = new MappedByteBuffer[(int) ((frameCount + framesPerChunk - 1) / framesPerChunk)];
+    }
+
+    public static TrajectoryReplay open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new TrajectoryReplay(channel);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the byte offset of the frame within its chunk, mapping the chunk if needed
+     */
+    private int locate(long frame) {
+        if (frame < 0 || frame >= frameCount) throw new IndexOutOfBoundsException("Frame " + frame + " of " + frameCount);
+        int chunkIndex = (int) (frame / framesPerChunk);
+        if (chunks[chunkIndex] == null) {
+            long start = TrajectoryRecorder.HEADER_SIZE + chunkIndex * (long) framesPerChunk * frameSize;
+            long frames = Math.min(framesPerChunk, frameCount - chunkIndex * (long) framesPerChunk);
+            try {
+                chunks[chunkIndex] = channel.map(FileChannel.MapMode.READ_ONLY, start, frames * frameSize);
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not map frame " + frame, e);
+            }
+            chunks[chunkIndex].order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return (int) (frame % framesPerChunk) * frameSize;
+    }
+
+    private double getDouble(long frame, int offset) {
+        int base = locate(frame);
+        return chunks[(int) (frame / framesPerChunk)].getDouble(base + offset);
+    }
+
+    private static int bodyOffset(int body) {
+        return Long.BYTES + body * 3 * Double.BYTES;
+    }
+
+    private int jointOffset(ArmJoint joint) {
+        return Long.BYTES + bodyCount * 3 * Double.BYTES + joint.ordinal() * 3 * Double.BYTES;
+    }
+
+    public long getStep(long frame) {
+        int base = locate(frame);
+        return chunks[(int) (frame / framesPerChunk)].getLong(base);
+    }
+
+    public double getX(long frame, int body) {
+        return getDouble(frame, bodyOffset(body));
+    }
+
+    public double getY(long frame, int body) {
+        return getDouble(frame, bodyOffset(body) + Double.BYTES);
+    }
+
+    public double getRotation(long frame, int body) {
+        return getDouble(frame, bodyOffset(body) + 2 * Double.BYTES);
+    }
+
+    public double getJointPosition(long frame, ArmJoint joint) {
+        return getDouble(frame, jointOffset(joint));
+    }
+
+    public double getJointSpeed(long frame, ArmJoint joint) {
+        return getDouble(frame, jointOffset(joint) + Double.BYTES);
+    }
+
+    public double getMotorSpeed(long frame, ArmJoint joint) {
+        return getDouble(frame, jointOffset(joint) + 2 * Double.BYTES);
+    }
+
+    /**
+     * Fills the snapshot with a frame, with the frame before it as previous pose. Body references are taken from the
+     * world, which should hold the same bodies as the recorded one.
+     */
+    public void read(long frame, World world, PoseSnapshot snapshot) {
+        long previous = Math.max(0, frame - 1);
+        long step = getStep(frame);
+        snapshot.setFrame(bodyCount, step, (long) (step * stepTime * 1e9), stepTime);
+        for (int i = 0; i < bodyCount; i++) {
+            snapshot.setPose(i, i < world.getBodyCount() ? world.getBody(i) : null,
+                    getX(previous, i), getY(previous, i), getRotation(previous, i),
+                    getX(frame, i), getY(frame, i), getRotation(frame, i));
+        }
+        for (ArmJoint joint : JOINTS) snapshot.setJointPosition(joint, getJointPosition(frame, joint));
+        snapshot.captureJointAnchors(world);
+    }
+
+    /**
+     * @return the last frame recorded at or before the given time since the start of the recording
+     */
+    public long getFrameAt(double time) {
+        if (frameCount == 0) return -1;
+        long first = getStep(0);
+        long target = first + (long) Math.floor(time / stepTime);
+
+        // Steps only increase from frame to frame
+        long low = 0;
+        long high = frameCount - 1;
+        while (low < high) {
+            long middle = (low + high + 1) >>> 1;
+            if (getStep(middle) <= target) low = middle;
+            else high = middle - 1;
+        }
+        return low;
+    }
+
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    public int getBodyCount() {
+        return bodyCount;
+    }
+
+    public double getStepTime() {
+        return stepTime;
+    }
+
+    /**
+     * @return the time between the first and the last frame in seconds
+     */
+    public double getDuration() {
+        if (frameCount == 0) return 0;
+        return (getStep(frameCount - 1) - getStep(0)) * stepTime;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+}
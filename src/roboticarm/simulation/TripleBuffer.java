@@ -0,0 +1,49 @@
+package roboticarm.simulation;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Lock-free hand-over of the latest value from one writer thread to one reader thread. Next to the front buffer of
+ * the reader and the back buffer of the writer there is a spare buffer; publishing and acquiring atomically swap their
+ * buffer with the spare, so neither thread ever waits and neither ever sees a buffer the other one is working on.
+ *
+ * @since 2026-10-17
+ */
+public class TripleBuffer<T> {
+    private static final int INDEX_MASK = 0b11;
+    private static final int FRESH = 0b100;
+    private final Object[] buffers = new Object[3];
+    private final AtomicInteger spare = new AtomicInteger(1);
+    private int back = 0;
+    private int front = 2;
+
+    public TripleBuffer(Supplier<T> factory) {
+        for (int i = 0; i < buffers.length; i++) buffers[i] = factory.get();
+    }
+
+    /**
+     * @return the buffer the writer may fill, only call from the writer thread
+     */
+    @SuppressWarnings("unchecked")
+    public T getBackBuffer() {
+        return (T) buffers[back];
+    }
+
+    /**
+     * Makes the back buffer the latest value, the writer continues with another buffer.
+     */
+    public void publish() {
+        back = spare.getAndSet(back | FRESH) & INDEX_MASK;
+    }
+
+    /**
+     * @return the latest published value, only call from the reader thread. The value stays valid until the next call.
+     */
+    @SuppressWarnings("unchecked")
+    public T acquire() {
+        if ((spare.get() & FRESH) != 0) front = spare.getAndSet(front) & INDEX_MASK;
+        return (T) buffers[front];
+    }
+
+}
@@ -0,0 +1,251 @@
+package roboticarm.simulation;
+
+import org.dyn4j.collision.broadphase.BroadphaseDetector;
+import org.dyn4j.collision.broadphase.DynamicAABBTree;
+import org.dyn4j.collision.broadphase.Sap;
+import org.dyn4j.dynamics.Body;
+import org.dyn4j.dynamics.BodyFixture;
+import org.dyn4j.dynamics.ContinuousDetectionMode;
+import org.dyn4j.dynamics.Settings;
+import org.dyn4j.dynamics.World;
+
+import java.util.Locale;
+
+/**
+ * The tunable settings of a world: broadphase, solver iterations, sleeping and continuous collision detection. A
+ * settings object is only a description, {@link #apply(World)} it on the thread that steps the world.
+ * <p>
+ * Options are named as on the command line, {@code broadphase=tree|sap}, {@code velocity-iterations},
+ * {@code position-iterations}, {@code sleep=on|off}, {@code sleep-linear}, {@code sleep-angular}, {@code sleep-time}
+ * and {@code ccd=none|bullets|all}.
+ *
+ * @since 2026-10-17
+ */
+public class WorldSettings {
+    private Broadphase broadphase = Broadphase.TREE;
+    private int velocityIterations = Settings.DEFAULT_SOLVER_ITERATIONS;
+    private int positionIterations = Settings.DEFAULT_SOLVER_ITERATIONS;
+    private boolean sleeping = true;
+    private double sleepLinearVelocity = Settings.DEFAULT_SLEEP_LINEAR_VELOCITY;
+    private double sleepAngularVelocity = Settings.DEFAULT_SLEEP_ANGULAR_VELOCITY;
+    private double sleepTime = Settings.DEFAULT_SLEEP_TIME;
+    private ContinuousDetectionMode continuousDetectionMode = ContinuousDetectionMode.BULLETS_ONLY;
+
+    public enum Broadphase {
+        TREE("tree"),
+        SAP("sap");
+
+        private final String name;
+
+        Broadphase(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public static Broadphase of(String name) {
+            for (Broadphase broadphase : values()) {
+                if (broadphase.name.equalsIgnoreCase(name)) return broadphase;
+            }
+            throw new IllegalArgumentException("Unknown broadphase: " + name);
+        }
+
+        private BroadphaseDetector<Body, BodyFixture> create(int capacity) {
+            switch (this) {
+                case SAP:
+                    return new Sap<>(capacity);
+                default:
+                    return new DynamicAABBTree<>(capacity);
+            }
+        }
+
+        private boolean isUsedBy(World world) {
+            BroadphaseDetector<Body, BodyFixture> detector = world.getBroadphaseDetector();
+            return this == SAP ? detector instanceof Sap : detector instanceof DynamicAABBTree;
+        }
+    }
+
+    /**
+     * @return the settings the world uses now
+     */
+    public static WorldSettings of(World world) {
+        WorldSettings result = new WorldSettings();
+        Settings settings = world.getSettings();
+        result.broadphase = world.getBroadphaseDetector() instanceof Sap ? Broadphase.SAP : Broadphase.TREE;
+        result.velocityIterations = settings.getVelocityConstraintSolverIterations();
+        result.positionIterations = settings.getPositionConstraintSolverIterations();
+        result.sleeping = settings.isAutoSleepingEnabled();
+        result.sleepLinearVelocity = settings.getSleepLinearVelocity();
+        result.sleepAngularVelocity = settings.getSleepAngularVelocity();
+        result.sleepTime = settings.getSleepTime();
+        result.continuousDetectionMode = settings.getContinuousDetectionMode();
+        return result;
+    }
+
+    /**
+     * Changes the world to these settings. A different broadphase is built with all bodies of the world in it.
+     */
+    public void apply(World world) {
+        Settings settings = world.getSettings();
+        settings.setVelocityConstraintSolverIterations(velocityIterations);
+        settings.setPositionConstraintSolverIterations(positionIterations);
+        settings.setAutoSleepingEnabled(sleeping);
+        settings.setSleepLinearVelocity(sleepLinearVelocity);
+        settings.setSleepAngularVelocity(sleepAngularVelocity);
+        settings.setSleepTime(sleepTime);
+        settings.setContinuousDetectionMode(continuousDetectionMode);
+        if (!broadphase.isUsedBy(world)) world.setBroadphaseDetector(broadphase.create(Math.max(64, world.getBodyCount() * 2)));
+
+        // Without sleeping every body takes part in every step, also the ones asleep now
+        if (!sleeping) {
+            for (int i = 0; i < world.getBodyCount(); i++) world.getBody(i).setAsleep(false);
+        }
+    }
+
+    /**
+     * Sets an option by its command line name.
+     *
+     * @return false if the name is not an option of the world settings
+     * @throws IllegalArgumentException if the value is invalid
+     */
+    public boolean set(String name, String value) {
+        switch (name) {
+            case "broadphase":
+                broadphase = Broadphase.of(value);
+                return true;
+            case "velocity-iterations":
+                setVelocityIterations(Integer.parseInt(value));
+                return true;
+            case "position-iterations":
+                setPositionIterations(Integer.parseInt(value));
+                return true;
+            case "sleep":
+                sleeping = parseSwitch(value);
+                return true;
+            case "sleep-linear":
+                sleepLinearVelocity = Double.parseDouble(value);
+                return true;
+            case "sleep-angular":
+                sleepAngularVelocity = Double.parseDouble(value);
+                return true;
+            case "sleep-time":
+                sleepTime = Double.parseDouble(value);
+                return true;
+            case "ccd":
+                continuousDetectionMode = parseContinuousDetectionMode(value);
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean parseSwitch(String value) {
+        switch (value.toLowerCase(Locale.ROOT)) {
+            case "on":
+            case "true":
+                return true;
+            case "off":
+            case "false":
+                return false;
+            default:
+                throw new IllegalArgumentException("Expected on or off: " + value);
+        }
+    }
+
+    public static ContinuousDetectionMode parseContinuousDetectionMode(String value) {
+        switch (value.toLowerCase(Locale.ROOT)) {
+            case "none":
+                return ContinuousDetectionMode.NONE;
+            case "bullets":
+                return ContinuousDetectionMode.BULLETS_ONLY;
+            case "all":
+                return ContinuousDetectionMode.ALL;
+            default:
+                throw new IllegalArgumentException("Unknown continuous detection mode: " + value);
+        }
+    }
+
+    public static String getName(ContinuousDetectionMode mode) {
+        if (mode == ContinuousDetectionMode.NONE) return "none";
+        if (mode == ContinuousDetectionMode.ALL) return "all";
+        return "bullets";
+    }
+
+    public WorldSettings copy() {
+        WorldSettings copy = new WorldSettings();
+        copy.broadphase = broadphase;
+        copy.velocityIterations = velocityIterations;
+        copy.positionIterations = positionIterations;
+        copy.sleeping = sleeping;
+        copy.sleepLinearVelocity = sleepLinearVelocity;
+        copy.sleepAngularVelocity = sleepAngularVelocity;
+        copy.sleepTime = sleepTime;
+        copy.continuousDetectionMode = continuousDetectionMode;
+        return copy;
+    }
+
+    public Broadphase getBroadphase() {
+        return broadphase;
+    }
+
+    public void setBroadphase(Broadphase broadphase) {
+        this.broadphase = broadphase;
+    }
+
+    public int getVelocityIterations() {
+        return velocityIterations;
+    }
+
+    public void setVelocityIterations(int velocityIterations) {
+        if (velocityIterations < 1) throw new IllegalArgumentException("Velocity iterations must be at least 1");
+        this.velocityIterations = velocityIterations;
+    }
+
+    public int getPositionIterations() {
+        return positionIterations;
+    }
+
+    public void setPositionIterations(int positionIterations) {
+        if (positionIterations < 1) throw new IllegalArgumentException("Position iterations must be at least 1");
+        this.positionIterations = positionIterations;
+    }
+
+    public boolean isSleeping() {
+        return sleeping;
+    }
+
+    public void setSleeping(boolean sleeping) {
+        this.sleeping = sleeping;
+    }
+
+    public double getSleepLinearVelocity() {
+        return sleepLinearVelocity;
+    }
+
+    public double getSleepAngularVelocity() {
+        return sleepAngularVelocity;
+    }
+
+    public double getSleepTime() {
+        return sleepTime;
+    }
+
+    public ContinuousDetectionMode getContinuousDetectionMode() {
+        return continuousDetectionMode;
+    }
+
+    public void setContinuousDetectionMode(ContinuousDetectionMode continuousDetectionMode) {
+        this.continuousDetectionMode = continuousDetectionMode;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "broadphase=%s velocity-iterations=%d position-iterations=%d sleep=%s "
+                        + "sleep-linear=%.3f sleep-angular=%.3f sleep-time=%.2f ccd=%s", broadphase.getName(),
+                velocityIterations, positionIterations, sleeping ? "on" : "off", sleepLinearVelocity,
+                sleepAngularVelocity, sleepTime, getName(continuousDetectionMode));
+    }
+
+}
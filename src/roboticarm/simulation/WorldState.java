@@ -0,0 +1,187 @@
+package roboticarm.simulation;
+
+import org.dyn4j.dynamics.Body;
+import org.dyn4j.dynamics.World;
+import org.dyn4j.geometry.Transform;
+import org.dyn4j.geometry.Vector2;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * The complete dynamic state of an arm world in primitive arrays: transforms, velocities and sleep state of every
+ * body, the motor speed of every joint and the mouse pick. Capturing and restoring copy numbers only, so a state can
+ * be taken every step and restored into the same model or into another {@link ArmModel} built the same way.
+ * <p>
+ * The anchor body of the pick handler is left out, bodies are otherwise matched by their position in the world. The
+ * warm starting impulses of the solver are not part of the state, so a restored world may drift slightly from the
+ * original run.
+ *
+ * @since 2026-10-17
+ */
+public class WorldState {
+    private static final ArmJoint[] JOINTS = ArmJoint.values();
+    private int bodyCount = 0;
+    private double[] x = new double[0];
+    private double[] y = new double[0];
+    private double[] rotation = new double[0];
+    private double[] velocityX = new double[0];
+    private double[] velocityY = new double[0];
+    private double[] angularVelocity = new double[0];
+    private boolean[] asleep = new boolean[0];
+    private final double[] motorSpeeds = new double[JOINTS.length];
+    private int pickedBody = -1;
+    private double pickX;
+    private double pickY;
+    private long step = -1;
+
+    /**
+     * @param pickHandler the handler dragging bodies in the world, or null
+     * @param step        the number of the step the state belongs to
+     */
+    public void capture(ArmModel model, PickHandler pickHandler, long step) {
+        World world = model.getWorld();
+        Body anchor = pickHandler == null ? null : pickHandler.getAnchorBody();
+        Body picked = pickHandler == null ? null : pickHandler.getPickedBody();
+        ensureCapacity(world.getBodyCount());
+
+        bodyCount = 0;
+        pickedBody = -1;
+        for (int i = 0; i < world.getBodyCount(); i++) {
+            Body body = world.getBody(i);
+            if (body == anchor) continue;
+            if (body == picked) pickedBody = bodyCount;
+
+            Transform transform = body.getTransform();
+            Vector2 velocity = body.getLinearVelocity();
+            x[bodyCount] = transform.getTranslationX();
+            y[bodyCount] = transform.getTranslationY();
+            rotation[bodyCount] = transform.getRotation();
+            velocityX[bodyCount] = velocity.x;
+            velocityY[bodyCount] = velocity.y;
+            angularVelocity[bodyCount] = body.getAngularVelocity();
+            asleep[bodyCount] = body.isAsleep();
+            bodyCount++;
+        }
+        if (anchor != null) {
+            pickX = anchor.getTransform().getTranslationX();
+            pickY = anchor.getTransform().getTranslationY();
+        }
+
+        for (ArmJoint joint : JOINTS) motorSpeeds[joint.ordinal()] = model.getMotorSpeed(joint);
+        this.step = step;
+    }
+
+    /**
+     * Puts the model back into this state, including the pick if a pick handler is given.
+     *
+     * @throws IllegalStateException if the world holds different bodies than when the state was captured
+     */
+    public void restore(ArmModel model, PickHandler pickHandler) {
+        World world = model.getWorld();
+        if (pickHandler != null) pickHandler.pick(world, false, 0, 0);
+        if (world.getBodyCount() != bodyCount) {
+            throw new IllegalStateException("World has " + world.getBodyCount() + " bodies, state has " + bodyCount);
+        }
+
+        for (int i = 0; i < bodyCount; i++) {
+            Body body = world.getBody(i);
+            Transform transform = body.getTransform();
+            transform.setTranslation(x[i], y[i]);
+            transform.setRotation(rotation[i]);
+            body.setLinearVelocity(velocityX[i], velocityY[i]);
+            body.setAngularVelocity(angularVelocity[i]);
+            body.clearAccumulatedForce();
+            body.clearAccumulatedTorque();
+            body.setAsleep(asleep[i]);
+        }
+
+        // Motor speeds wake the arm, so they are set before the bodies are sent back to sleep
+        for (ArmJoint joint : JOINTS) model.setMotorSpeed(joint, motorSpeeds[joint.ordinal()]);
+        for (int i = 0; i < bodyCount; i++) {
+            if (asleep[i]) world.getBody(i).setAsleep(true);
+        }
+
+        if (pickHandler != null && pickedBody >= 0) pickHandler.pick(world, world.getBody(pickedBody), pickX, pickY);
+        world.setUpdateRequired(true);
+    }
+
+    /**
+     * Builds an independent arm in this state, to try out what happens without touching the original.
+     *
+     * @param scene builds a model the same way the captured one was built, for example with the same
+     *              {@link StressScene} and world settings
+     * @throws IllegalStateException if the built world holds different bodies than when the state was captured
+     */
+    public ArmModel branch(Supplier<ArmModel> scene) {
+        ArmModel model = scene.get();
+        restore(model, null);
+        return model;
+    }
+
+    /**
+     * Copies another state into this one.
+     */
+    public void set(WorldState other) {
+        ensureCapacity(other.bodyCount);
+        bodyCount = other.bodyCount;
+        System.arraycopy(other.x, 0, x, 0, bodyCount);
+        System.arraycopy(other.y, 0, y, 0, bodyCount);
+        System.arraycopy(other.rotation, 0, rotation, 0, bodyCount);
+        System.arraycopy(other.velocityX, 0, velocityX, 0, bodyCount);
+        System.arraycopy(other.velocityY, 0, velocityY, 0, bodyCount);
+        System.arraycopy(other.angularVelocity, 0, angularVelocity, 0, bodyCount);
+        System.arraycopy(other.asleep, 0, asleep, 0, bodyCount);
+        System.arraycopy(other.motorSpeeds, 0, motorSpeeds, 0, motorSpeeds.length);
+        pickedBody = other.pickedBody;
+        pickX = other.pickX;
+        pickY = other.pickY;
+        step = other.step;
+    }
+
+    private void ensureCapacity(int count) {
+        if (count <= x.length) return;
+        x = Arrays.copyOf(x, count);
+        y = Arrays.copyOf(y, count);
+        rotation = Arrays.copyOf(rotation, count);
+        velocityX = Arrays.copyOf(velocityX, count);
+        velocityY = Arrays.copyOf(velocityY, count);
+        angularVelocity = Arrays.copyOf(angularVelocity, count);
+        asleep = Arrays.copyOf(asleep, count);
+    }
+
+    public int getBodyCount() {
+        return bodyCount;
+    }
+
+    public double getX(int index) {
+        return x[index];
+    }
+
+    public double getY(int index) {
+        return y[index];
+    }
+
+    public double getRotation(int index) {
+        return rotation[index];
+    }
+
+    public double getMotorSpeed(ArmJoint joint) {
+        return motorSpeeds[joint.ordinal()];
+    }
+
+    /**
+     * @return the index of the picked body, or -1 if nothing was picked
+     */
+    public int getPickedBody() {
+        return pickedBody;
+    }
+
+    /**
+     * @return the number of the step the state belongs to, or -1 if nothing has been captured yet
+     */
+    public long getStep() {
+        return step;
+    }
+
+}
@@ -8,17 +8,22 @@ import org.jfree.fx.FXGraphics2D;
 import org.jfree.fx.Resizable;
 
 import java.awt.geom.AffineTransform;
-import java.awt.geom.Point2D;
 
 /**
  * @author Johan Talboom
  * @since 2017-2-15
  */
 public class Camera {
-	private Point2D centerPoint = new Point2D.Double(0,0);
+	private double centerX = 0;
+	private double centerY = 0;
 	private double zoom = 1;
 	private double rotation = 0;
-	private Point2D lastMousePos;
+	private double lastMouseX;
+	private double lastMouseY;
+	private final AffineTransform transform = new AffineTransform();
+	private int transformWidth = -1;
+	private int transformHeight = -1;
+	private boolean transformDirty = true;
 	private final Canvas canvas;
 	private final Resizable resizable;
 	private final FXGraphics2D g2d;
@@ -28,33 +33,45 @@ public class Camera {
 		this.resizable = resizable;
 		this.g2d = g2d;
 
-		canvas.setOnMousePressed(e -> lastMousePos = new Point2D.Double(e.getX(), e.getY()));
+		canvas.setOnMousePressed(e -> {
+			lastMouseX = e.getX();
+			lastMouseY = e.getY();
+		});
 		canvas.setOnMouseDragged(this::mouseDragged);
 		canvas.setOnScroll(this::mouseScroll);
 	}
 
+	/**
+	 * Returns the camera transform for the given window size. The transform is cached and only recomputed when the
+	 * camera or the window size changed, so the returned instance is shared and must not be modified.
+	 */
 	public AffineTransform getTransform(int windowWidth, int windowHeight)  {
-		AffineTransform tx = new AffineTransform();
-		tx.translate((double) windowWidth /2, (double) windowHeight /2);
-		tx.scale(zoom, zoom);
-		tx.translate(centerPoint.getX(), centerPoint.getY());
-		tx.rotate(rotation);
-		return tx;
+		if (transformDirty || windowWidth != transformWidth || windowHeight != transformHeight) {
+			transform.setToTranslation((double) windowWidth /2, (double) windowHeight /2);
+			transform.scale(zoom, zoom);
+			transform.translate(centerX, centerY);
+			transform.rotate(rotation);
+			transformWidth = windowWidth;
+			transformHeight = windowHeight;
+			transformDirty = false;
+		}
+		return transform;
 	}
 
 	public void mouseDragged(MouseEvent e) {
 		if (e.getButton() == MouseButton.MIDDLE) {
-			centerPoint = new Point2D.Double(
-					centerPoint.getX() - (lastMousePos.getX() - e.getX()) / zoom,
-					centerPoint.getY() - (lastMousePos.getY() - e.getY()) / zoom
-			);
-			lastMousePos = new Point2D.Double(e.getX(), e.getY());
+			centerX -= (lastMouseX - e.getX()) / zoom;
+			centerY -= (lastMouseY - e.getY()) / zoom;
+			lastMouseX = e.getX();
+			lastMouseY = e.getY();
+			transformDirty = true;
 			resizable.draw(g2d);
 		}
 	}
 
 	public void mouseScroll(ScrollEvent e) {
 		zoom *= (1 + e.getDeltaY()/250.0f);
+		transformDirty = true;
 		resizable.draw(g2d);
 	}
 
@@ -3,67 +3,304 @@ package roboticarm.utility;
 import org.dyn4j.collision.Fixture;
 import org.dyn4j.dynamics.Body;
 import org.dyn4j.dynamics.World;
+import org.dyn4j.dynamics.joint.Joint;
+import org.dyn4j.dynamics.joint.PrismaticJoint;
+import org.dyn4j.dynamics.joint.RevoluteJoint;
 import org.dyn4j.geometry.Circle;
 import org.dyn4j.geometry.Convex;
-import org.dyn4j.geometry.Polygon;
+import org.dyn4j.geometry.Transform;
 import org.dyn4j.geometry.Vector2;
+import org.dyn4j.geometry.Wound;
 import org.jfree.fx.FXGraphics2D;
+import roboticarm.simulation.PoseSnapshot;
 
 import java.awt.*;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Ellipse2D;
-import java.awt.geom.GeneralPath;
+import java.awt.geom.Path2D;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
 
 /**
+ * Draws the debug overlay: the outline of every fixture, the bounding boxes of the fixtures, the anchors and limits of
+ * the joints and the contact points of the last step.
+ * <p>
+ * Outlines are built once per fixture in body coordinates and drawn with the transform of the body. Bounding boxes,
+ * joints and contacts are collected into reused paths, so each of them takes a single draw call. A lower
+ * {@link Detail} leaves out the parts that cost the most in crowded scenes.
+ *
  * @author Johan Talboom
  * @author Max Hager
  * @since 2017-03-08
- * @version 1.1
+ * @version 1.2
  */
 public class DebugDraw {
 
-    public static void draw(FXGraphics2D g2d, World world, double scale) {
-        for (Body body : world.getBodies()) {
-            AffineTransform originalTransform = g2d.getTransform();
+    /**
+     * What the overlay shows, each level adds to the one before it.
+     */
+    public enum Detail {
+        OUTLINES, JOINTS, FULL;
 
-            AffineTransform bodyTransform = new AffineTransform();
-            bodyTransform.translate(body.getTransform().getTranslationX() * scale, body.getTransform().getTranslationY() * scale);
-            bodyTransform.rotate(body.getTransform().getRotation());
-            g2d.transform(bodyTransform);
+        public boolean includes(Detail detail) {
+            return ordinal() >= detail.ordinal();
+        }
+    }
+
+    private static final Color BOUNDS_COLOR = new Color(128, 128, 128, 96);
+    private static final Color JOINT_COLOR = new Color(0, 150, 0);
+    private static final Color LIMIT_COLOR = Color.ORANGE;
+    private static final Color CONTACT_COLOR = Color.RED;
+    private static final double ANCHOR_SIZE = 0.03;
+    private static final double CONTACT_SIZE = 0.02;
+    private static final double NORMAL_LENGTH = 0.1;
+    private static final double LIMIT_RADIUS = 0.25;
+    private static final double LIMIT_TICK = 0.05;
+    private static final int ARC_SEGMENTS = 12;
+
+    private static final AffineTransform bodyTransform = new AffineTransform();
+    private static final Transform snapshotTransform = new Transform();
+    private static final Map<Fixture, Shape> outlines = new WeakHashMap<>();
+    private static final Set<Class<?>> unsupportedShapes = new HashSet<>();
+    private static double outlineScale = Double.NaN;
+    private static final Path2D.Double bounds = new Path2D.Double();
+    private static final Path2D.Double joints = new Path2D.Double();
+    private static final Path2D.Double limits = new Path2D.Double();
+    private static final Path2D.Double contacts = new Path2D.Double();
+    private static final PoseSnapshot worldSnapshot = new PoseSnapshot();
+
+    /**
+     * Draws the overlay for the current state of the world, without contacts. Must be called from the JavaFX
+     * application thread, while nothing else steps the world.
+     *
+     * @param viewTransform the transform from world pixels to the canvas, restored on the graphics afterwards
+     */
+    public static void draw(FXGraphics2D g2d, World world, AffineTransform viewTransform, double scale) {
+        draw(g2d, world, viewTransform, scale, Detail.FULL);
+    }
+
+    public static void draw(FXGraphics2D g2d, World world, AffineTransform viewTransform, double scale, Detail detail) {
+        worldSnapshot.capturePrevious(world);
+        worldSnapshot.captureCurrent(world, 0, 0, 0);
+        draw(g2d, worldSnapshot, viewTransform, scale, 1, detail);
+    }
 
-            for (Fixture f : body.getFixtures()) {
-                g2d.draw(AffineTransform.getScaleInstance(scale, scale).createTransformedShape(getShape(f.getShape())));
+    /**
+     * Draws the overlay at the poses of a snapshot, for when the world is stepped on another thread. Outlines are drawn
+     * in the current color of the graphics.
+     *
+     * @param alpha the interpolation factor between the previous and the current step of the snapshot
+     */
+    public static void draw(FXGraphics2D g2d, PoseSnapshot snapshot, AffineTransform viewTransform, double scale, double alpha) {
+        draw(g2d, snapshot, viewTransform, scale, alpha, Detail.FULL);
+    }
+
+    /**
+     * Draws the overlay at the poses of a snapshot: only the outlines, the outlines and the joints, or also the
+     * bounding boxes, the joint limits and the contacts.
+     */
+    public static void draw(FXGraphics2D g2d, PoseSnapshot snapshot, AffineTransform viewTransform, double scale, double alpha, Detail detail) {
+        boolean full = detail.includes(Detail.FULL);
+        if (scale != outlineScale) {
+            outlines.clear();
+            outlineScale = scale;
+        }
+
+        bounds.reset();
+        for (int i = 0; i < snapshot.getBodyCount(); i++) {
+            Body body = snapshot.getBody(i);
+            if (body == null) continue;
+            snapshot.getTransform(i, alpha, snapshotTransform);
+            double x = snapshotTransform.getTranslationX();
+            double y = snapshotTransform.getTranslationY();
+            double rotation = snapshotTransform.getRotation();
+            bodyTransform.setTransform(viewTransform);
+            bodyTransform.translate(x * scale, y * scale);
+            bodyTransform.rotate(rotation);
+            g2d.setTransform(bodyTransform);
+
+            double cos = Math.cos(rotation);
+            double sin = Math.sin(rotation);
+            for (int j = 0; j < body.getFixtureCount(); j++) {
+                Fixture fixture = body.getFixture(j);
+                Shape outline = getOutline(fixture, scale);
+                if (outline != null) g2d.draw(outline);
+                if (full) appendBounds(fixture.getShape(), x, y, cos, sin, scale);
             }
+        }
+        g2d.setTransform(viewTransform);
+        if (!detail.includes(Detail.JOINTS)) return;
+
+        appendJoints(snapshot, alpha, scale, full);
+        contacts.reset();
+        if (full) appendContacts(snapshot, scale);
+        Color color = g2d.getColor();
+        g2d.setColor(BOUNDS_COLOR);
+        g2d.draw(bounds);
+        g2d.setColor(LIMIT_COLOR);
+        g2d.draw(limits);
+        g2d.setColor(JOINT_COLOR);
+        g2d.draw(joints);
+        g2d.setColor(CONTACT_COLOR);
+        g2d.draw(contacts);
+        g2d.setColor(color);
+    }
 
-            g2d.setTransform(originalTransform);
+    /**
+     * @return the outline of the fixture in scaled body coordinates, or null if its shape cannot be drawn
+     */
+    private static Shape getOutline(Fixture fixture, double scale) {
+        Shape outline = outlines.get(fixture);
+        if (outline == null && !outlines.containsKey(fixture)) {
+            outline = createOutline(fixture.getShape(), scale);
+            outlines.put(fixture, outline);
         }
+        return outline;
     }
 
-    private static Shape getShape(Convex shape) {
-        if (shape instanceof Polygon) return getShape((Polygon) shape);
-        if (shape instanceof Circle) return getShape((Circle) shape);
-        else {
-            System.out.println("Unsupported shape: " + shape);
-            return null;
+    private static Shape createOutline(Convex shape, double scale) {
+        if (shape instanceof Wound) {
+            Path2D.Double path = new Path2D.Double();
+            Vector2[] vertices = ((Wound) shape).getVertices();
+            path.moveTo(vertices[0].x * scale, vertices[0].y * scale);
+            for (int i = 1; i < vertices.length; i++) {
+                path.lineTo(vertices[i].x * scale, vertices[i].y * scale);
+            }
+            path.closePath();
+            return path;
+        }
+        if (shape instanceof Circle) {
+            Circle circle = (Circle) shape;
+            return new Ellipse2D.Double((circle.getCenter().x - circle.getRadius()) * scale,
+                    (circle.getCenter().y - circle.getRadius()) * scale,
+                    circle.getRadius() * 2 * scale,
+                    circle.getRadius() * 2 * scale);
+        }
+
+        // Reported once per kind of shape instead of every frame
+        if (unsupportedShapes.add(shape.getClass())) System.out.println("Unsupported shape: " + shape);
+        return null;
+    }
+
+    /**
+     * Adds the bounding box of a shape at the given body transform, worked out from the vertices without allocating.
+     */
+    private static void appendBounds(Convex shape, double x, double y, double cos, double sin, double scale) {
+        double minX;
+        double minY;
+        double maxX;
+        double maxY;
+        if (shape instanceof Wound) {
+            minX = minY = Double.POSITIVE_INFINITY;
+            maxX = maxY = Double.NEGATIVE_INFINITY;
+            for (Vector2 vertex : ((Wound) shape).getVertices()) {
+                double vertexX = x + cos * vertex.x - sin * vertex.y;
+                double vertexY = y + sin * vertex.x + cos * vertex.y;
+                minX = Math.min(minX, vertexX);
+                minY = Math.min(minY, vertexY);
+                maxX = Math.max(maxX, vertexX);
+                maxY = Math.max(maxY, vertexY);
+            }
+        } else if (shape instanceof Circle) {
+            Circle circle = (Circle) shape;
+            Vector2 center = circle.getCenter();
+            double centerX = x + cos * center.x - sin * center.y;
+            double centerY = y + sin * center.x + cos * center.y;
+            minX = centerX - circle.getRadius();
+            minY = centerY - circle.getRadius();
+            maxX = centerX + circle.getRadius();
+            maxY = centerY + circle.getRadius();
+        } else {
+            return;
         }
+        bounds.moveTo(minX * scale, minY * scale);
+        bounds.lineTo(maxX * scale, minY * scale);
+        bounds.lineTo(maxX * scale, maxY * scale);
+        bounds.lineTo(minX * scale, maxY * scale);
+        bounds.closePath();
+    }
+
+    /**
+     * Adds a cross at every joint anchor and, for joints with limits, the range the second body can move in: a wedge
+     * along its y axis for revolute joints and a line along the axis for prismatic joints.
+     */
+    private static void appendJoints(PoseSnapshot snapshot, double alpha, double scale, boolean withLimits) {
+        joints.reset();
+        limits.reset();
+        for (int i = 0; i < snapshot.getJointCount(); i++) {
+            int body1 = snapshot.getJointBody1(i);
+            if (body1 < 0) continue;
+            snapshot.getTransform(body1, alpha, snapshotTransform);
+            double rotation1 = snapshotTransform.getRotation();
+            double cos = Math.cos(rotation1);
+            double sin = Math.sin(rotation1);
+            double localX = snapshot.getJointAnchorX(i);
+            double localY = snapshot.getJointAnchorY(i);
+            double anchorX = snapshotTransform.getTranslationX() + cos * localX - sin * localY;
+            double anchorY = snapshotTransform.getTranslationY() + sin * localX + cos * localY;
+            appendCross(joints, anchorX, anchorY, ANCHOR_SIZE, scale);
+            if (!withLimits) continue;
+
+            Joint joint = snapshot.getJoint(i);
+            if (joint instanceof RevoluteJoint && ((RevoluteJoint) joint).isLimitEnabled()) {
+                // The joint angle is the rotation of the first body minus that of the second
+                RevoluteJoint revoluteJoint = (RevoluteJoint) joint;
+                double base = rotation1 - revoluteJoint.getReferenceAngle();
+                double from = base - revoluteJoint.getUpperLimit();
+                double to = base - revoluteJoint.getLowerLimit();
+                limits.moveTo(anchorX * scale, anchorY * scale);
+                for (int j = 0; j <= ARC_SEGMENTS; j++) {
+                    double angle = from + (to - from) * j / ARC_SEGMENTS;
+                    limits.lineTo((anchorX - Math.sin(angle) * LIMIT_RADIUS) * scale, (anchorY + Math.cos(angle) * LIMIT_RADIUS) * scale);
+                }
+                limits.closePath();
+
+                int body2 = snapshot.getJointBody2(i);
+                if (body2 >= 0) {
+                    snapshot.getTransform(body2, alpha, snapshotTransform);
+                    double rotation2 = snapshotTransform.getRotation();
+                    joints.moveTo(anchorX * scale, anchorY * scale);
+                    joints.lineTo((anchorX - Math.sin(rotation2) * LIMIT_RADIUS) * scale, (anchorY + Math.cos(rotation2) * LIMIT_RADIUS) * scale);
+                }
+            } else if (joint instanceof PrismaticJoint && ((PrismaticJoint) joint).isLimitEnabled()) {
+                PrismaticJoint prismaticJoint = (PrismaticJoint) joint;
+                double axisX = cos * snapshot.getJointAxisX(i) - sin * snapshot.getJointAxisY(i);
+                double axisY = sin * snapshot.getJointAxisX(i) + cos * snapshot.getJointAxisY(i);
+                double lower = prismaticJoint.getLowerLimit();
+                double upper = prismaticJoint.getUpperLimit();
+                limits.moveTo((anchorX + axisX * lower) * scale, (anchorY + axisY * lower) * scale);
+                limits.lineTo((anchorX + axisX * upper) * scale, (anchorY + axisY * upper) * scale);
+                appendTick(anchorX + axisX * lower, anchorY + axisY * lower, axisX, axisY, scale);
+                appendTick(anchorX + axisX * upper, anchorY + axisY * upper, axisX, axisY, scale);
+            }
+        }
+    }
+
+    private static void appendTick(double x, double y, double axisX, double axisY, double scale) {
+        limits.moveTo((x - axisY * LIMIT_TICK) * scale, (y + axisX * LIMIT_TICK) * scale);
+        limits.lineTo((x + axisY * LIMIT_TICK) * scale, (y - axisX * LIMIT_TICK) * scale);
     }
 
-    private static Shape getShape(Polygon shape) {
-        GeneralPath path = new GeneralPath();
-        Vector2[] vertices = shape.getVertices();
-        path.moveTo(vertices[0].x, vertices[0].y);
-        for (int i = 1; i < vertices.length; i++) {
-            path.lineTo(vertices[i].x, vertices[i].y);
+    /**
+     * Adds a cross at every contact point with a line along its normal.
+     */
+    private static void appendContacts(PoseSnapshot snapshot, double scale) {
+        for (int i = 0; i < snapshot.getContactCount(); i++) {
+            double x = snapshot.getContactX(i);
+            double y = snapshot.getContactY(i);
+            appendCross(contacts, x, y, CONTACT_SIZE, scale);
+            contacts.moveTo(x * scale, y * scale);
+            contacts.lineTo((x + snapshot.getContactNormalX(i) * NORMAL_LENGTH) * scale, (y + snapshot.getContactNormalY(i) * NORMAL_LENGTH) * scale);
         }
-        path.closePath();
-        return path;
     }
 
-    private static Shape getShape(Circle shape) {
-        return new Ellipse2D.Double(shape.getCenter().x - shape.getRadius(),
-                shape.getCenter().y - shape.getRadius(),
-                shape.getRadius() * 2,
-                shape.getRadius() * 2);
+    private static void appendCross(Path2D.Double path, double x, double y, double size, double scale) {
+        path.moveTo((x - size) * scale, (y - size) * scale);
+        path.lineTo((x + size) * scale, (y + size) * scale);
+        path.moveTo((x - size) * scale, (y + size) * scale);
+        path.lineTo((x + size) * scale, (y - size) * scale);
     }
 
 }
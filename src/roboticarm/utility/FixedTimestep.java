@@ -0,0 +1,63 @@
+package roboticarm.utility;
+
+/**
+ * Accumulates frame time and hands it out in fixed physics steps. The number of steps per frame is capped so a long
+ * frame (GC pause, window drag) can never trigger a spiral of death; any time above the cap is dropped.
+ *
+ * @since 2026-10-17
+ */
+public class FixedTimestep {
+    private double stepTime;
+    private final int maxStepsPerFrame;
+    private double accumulator = 0;
+
+    public FixedTimestep(double stepRate, int maxStepsPerFrame) {
+        if (maxStepsPerFrame < 1) throw new IllegalArgumentException("At least one step per frame is required");
+        setStepRate(stepRate);
+        this.maxStepsPerFrame = maxStepsPerFrame;
+    }
+
+    /**
+     * Adds the elapsed frame time to the accumulator.
+     *
+     * @return the number of fixed steps that should be performed this frame
+     */
+    public int advance(double deltaTime) {
+        accumulator += Math.max(0, deltaTime);
+        int steps = (int) Math.min(maxStepsPerFrame, Math.floor(accumulator / stepTime));
+        accumulator -= steps * stepTime;
+
+        // Drop the backlog instead of trying to catch up in the next frames
+        if (steps == maxStepsPerFrame && accumulator > stepTime) accumulator = stepTime;
+        return steps;
+    }
+
+    /**
+     * @return how far the simulation is between the last and the next step, in the range [0, 1]
+     */
+    public double getAlpha() {
+        return Math.max(0, Math.min(1, accumulator / stepTime));
+    }
+
+    public double getStepTime() {
+        return stepTime;
+    }
+
+    public double getStepRate() {
+        return 1 / stepTime;
+    }
+
+    public void setStepRate(double stepRate) {
+        if (stepRate <= 0) throw new IllegalArgumentException("Step rate must be positive: " + stepRate);
+        this.stepTime = 1 / stepRate;
+    }
+
+    public int getMaxStepsPerFrame() {
+        return maxStepsPerFrame;
+    }
+
+    public void reset() {
+        accumulator = 0;
+    }
+
+}
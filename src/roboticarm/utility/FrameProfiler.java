@@ -0,0 +1,144 @@
+package roboticarm.utility;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Times the phases of a frame and of a physics step. Each phase keeps {@link PhaseTimer rolling statistics}, and every
+ * measurement is also emitted as a flight recorder event when the runtime supports JFR and a recording is running.
+ * A disabled profiler does not read the clock.
+ * <pre>
+ * long start = profiler.begin();
+ * world.step(1, stepTime);
+ * profiler.end(FrameProfiler.Phase.STEP, start);
+ * </pre>
+ *
+ * @since 2026-10-17
+ */
+public class FrameProfiler {
+    private static final boolean JFR_AVAILABLE = isJfrAvailable();
+    private static final Phase[] PHASES = Phase.values();
+    /**
+     * A profiler that stays disabled, for components that were not given one.
+     */
+    public static final FrameProfiler NONE = new FrameProfiler(1);
+    private final PhaseTimer[] timers = new PhaseTimer[PHASES.length];
+    private volatile boolean enabled = false;
+
+    public enum Phase {
+        FRAME("frame"),
+        CLEAR("clear"),
+        OBJECTS("objects"),
+        DEBUG("debug"),
+        PICK("pick"),
+        COMMANDS("commands"),
+        STEP("step");
+
+        private final String name;
+
+        Phase(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    /**
+     * @param window the number of most recent samples per phase the percentiles are computed over
+     */
+    public FrameProfiler(int window) {
+        for (int i = 0; i < timers.length; i++) timers[i] = new PhaseTimer(window);
+    }
+
+    private static boolean isJfrAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return the start time to hand to {@link #end(Phase, long)}, or 0 when disabled
+     */
+    public long begin() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    public void end(Phase phase, long start) {
+        if (!enabled || start == 0) return;
+        long duration = System.nanoTime() - start;
+        timers[phase.ordinal()].record(duration);
+        if (JFR_AVAILABLE) PhaseEvent.emit(phase.getName(), duration);
+    }
+
+    public PhaseTimer getTimer(Phase phase) {
+        return timers[phase.ordinal()];
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts or stops timing, the statistics are kept.
+     */
+    public void setEnabled(boolean enabled) {
+        if (this == NONE) return;
+        this.enabled = enabled;
+    }
+
+    public void reset() {
+        for (PhaseTimer timer : timers) timer.reset();
+    }
+
+    /**
+     * Appends one line per phase with p50, p99 and max in milliseconds to the builder, for the overlay.
+     */
+    public void format(StringBuilder builder) {
+        for (Phase phase : PHASES) {
+            PhaseTimer timer = timers[phase.ordinal()];
+            timer.update();
+            if (builder.length() > 0) builder.append('\n');
+            builder.append(phase.getName()).append(' ');
+            appendMillis(builder, timer.getPercentile(50));
+            builder.append(" / ");
+            appendMillis(builder, timer.getPercentile(99));
+            builder.append(" / ");
+            appendMillis(builder, timer.getWindowMax());
+        }
+    }
+
+    private static void appendMillis(StringBuilder builder, long nanos) {
+        // Two decimals without String.format
+        long hundredths = (nanos + 5000) / 10000;
+        builder.append(hundredths / 100).append('.');
+        if (hundredths % 100 < 10) builder.append('0');
+        builder.append(hundredths % 100);
+    }
+
+    /**
+     * Writes the statistics of every phase to a CSV file, durations in microseconds.
+     */
+    public void exportCsv(Path file) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("phase,count,p50_us,p90_us,p99_us,window_max_us,max_us,mean_us\n");
+            for (Phase phase : PHASES) {
+                PhaseTimer timer = timers[phase.ordinal()];
+                timer.update();
+                writer.write(String.format(Locale.ROOT, "%s,%d,%.1f,%.1f,%.1f,%.1f,%.1f,%.1f\n", phase.getName(),
+                        timer.getCount(), timer.getPercentile(50) / 1e3, timer.getPercentile(90) / 1e3,
+                        timer.getPercentile(99) / 1e3, timer.getWindowMax() / 1e3, timer.getMax() / 1e3,
+                        timer.getWindowMean() / 1e3));
+            }
+        }
+    }
+
+}
@@ -1,15 +1,16 @@
 package roboticarm.utility;
 
+import javafx.application.Platform;
+import javafx.scene.canvas.GraphicsContext;
 import org.dyn4j.dynamics.Body;
+import org.dyn4j.geometry.Transform;
 import org.dyn4j.geometry.Vector2;
-import org.jfree.fx.FXGraphics2D;
 
-import javax.imageio.ImageIO;
 import roboticarm.RoboticArm;
+import roboticarm.simulation.PoseSnapshot;
 import java.awt.geom.AffineTransform;
-import java.awt.image.BufferedImage;
-import java.io.IOException;
-import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * @author Johan Talboom
@@ -17,33 +18,180 @@ import java.util.Objects;
  */
 public class GameObject {
     private final Body body;
-    private BufferedImage image;
+    private final String imageFile;
+    private Texture texture;
+    private final CompletableFuture<Void> loaded;
     private final Vector2 offset;
     private final double scale;
-    private static final String RESOURCE_PATH_PREFIX = "textures/";
+    private final Transform previousTransform = new Transform();
+    private final Transform currentTransform = new Transform();
+    private final Transform renderTransform = new Transform();
+    private final AffineTransform tx = new AffineTransform();
+    private final AffineTransform lastViewTransform = new AffineTransform();
+    private double lastX = Double.NaN;
+    private double lastY = Double.NaN;
+    private double lastRotation = Double.NaN;
 
     public GameObject(String imageFile, Body body, Vector2 offset, double scale) {
         this.body = body;
+        this.imageFile = imageFile;
         this.offset = offset;
         this.scale = scale;
-        try {
-            image = ImageIO.read(Objects.requireNonNull(getClass().getClassLoader().getResource(RESOURCE_PATH_PREFIX + imageFile)));
-        } catch (IOException e) {
-            e.printStackTrace();
+        previousTransform.set(body.getTransform());
+        currentTransform.set(body.getTransform());
+        texture = TextureCache.acquire(imageFile);
+        loaded = CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Decodes the texture on the executor and draws a placeholder of the same size until it is swapped in on the
+     * JavaFX application thread.
+     */
+    public GameObject(String imageFile, Body body, Vector2 offset, double scale, Executor executor) {
+        this.body = body;
+        this.imageFile = imageFile;
+        this.offset = offset;
+        this.scale = scale;
+        previousTransform.set(body.getTransform());
+        currentTransform.set(body.getTransform());
+        texture = TextureCache.createPlaceholder(imageFile);
+        loaded = TextureCache.acquireAsync(imageFile, executor).handle((loadedTexture, e) -> {
+            if (e != null) e.printStackTrace();
+            return loadedTexture;
+        }).thenAcceptAsync(this::setTexture, Platform::runLater);
+    }
+
+    private void setTexture(Texture texture) {
+        this.texture = texture;
+        // The texture may differ in size from its placeholder, so the draw transform is rebuilt
+        lastX = Double.NaN;
+    }
+
+    /**
+     * @return completes on the JavaFX application thread once the texture is swapped in, or right away when it was
+     * decoded in the constructor
+     */
+    public CompletableFuture<Void> getLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Takes over the transform of the body, call this after every physics step on the thread that steps the world.
+     */
+    public void updateTransform() {
+        previousTransform.set(currentTransform);
+        currentTransform.set(body.getTransform());
+    }
+
+    /**
+     * Takes over the transforms of the body from a snapshot, instead of reading the body itself.
+     *
+     * @param index the index of the body in the snapshot
+     */
+    public void updateTransform(PoseSnapshot snapshot, int index) {
+        previousTransform.identity();
+        previousTransform.rotate(snapshot.getPreviousRotation(index));
+        previousTransform.translate(snapshot.getPreviousX(index), snapshot.getPreviousY(index));
+        currentTransform.identity();
+        currentTransform.rotate(snapshot.getRotation(index));
+        currentTransform.translate(snapshot.getX(index), snapshot.getY(index));
+    }
+
+    public Body getBody() {
+        return body;
+    }
+
+    /**
+     * @return true if the body has infinite mass and no velocity, so it will never move by itself
+     */
+    public boolean isStatic() {
+        return body.isStatic();
+    }
+
+    /**
+     * @return true if the interpolated pose differs from the pose this object was last drawn at
+     */
+    public boolean hasPoseChanged(double alpha) {
+        previousTransform.lerp(currentTransform, alpha, renderTransform);
+        return renderTransform.getTranslationX() != lastX
+                || renderTransform.getTranslationY() != lastY
+                || renderTransform.getRotation() != lastRotation;
+    }
+
+    /**
+     * Draws the texture at the pose interpolated between the previous and the current physics step. The image is drawn
+     * directly on the canvas and the transform of the graphics context is left at the pose of this object.
+     * <p>
+     * The composed transform is kept between frames and only recomputed when the pose or the view changed.
+     *
+     * @param viewTransform the transform from world pixels to the canvas
+     * @param alpha the interpolation factor, 0 is the previous step and 1 the current one
+     */
+    public void draw(GraphicsContext gc, AffineTransform viewTransform, double alpha) {
+        if (texture == null) return;
+
+        previousTransform.lerp(currentTransform, alpha, renderTransform);
+        double x = renderTransform.getTranslationX();
+        double y = renderTransform.getTranslationY();
+        double rotation = renderTransform.getRotation();
+
+        if (x != lastX || y != lastY || rotation != lastRotation || !viewTransform.equals(lastViewTransform)) {
+            tx.setTransform(viewTransform);
+            tx.translate(x * 100, y * 100);
+            tx.rotate(rotation);
+            tx.scale(scale, scale * RoboticArm.Y_AXIS_SCALE);
+            tx.translate(offset.x, offset.y * RoboticArm.Y_AXIS_SCALE);
+            tx.translate(-texture.getWidth() / 2, -texture.getHeight() / 2);
+
+            lastViewTransform.setTransform(viewTransform);
+            lastX = x;
+            lastY = y;
+            lastRotation = rotation;
         }
+
+        gc.setTransform(tx.getScaleX(), tx.getShearY(), tx.getShearX(), tx.getScaleY(), tx.getTranslateX(), tx.getTranslateY());
+        texture.draw(gc);
     }
 
-    public void draw(FXGraphics2D g2d) {
-        if (image == null) return;
+    /**
+     * Outlines the texture at the pose it was last drawn at, for hover highlighting. Call this after {@link #draw}.
+     */
+    public void drawHighlight(GraphicsContext gc) {
+        if (texture == null || !isDrawn()) return;
+        gc.setTransform(tx.getScaleX(), tx.getShearY(), tx.getShearX(), tx.getScaleY(), tx.getTranslateX(), tx.getTranslateY());
+        gc.strokeRect(0, 0, texture.getWidth(), texture.getHeight());
+    }
+
+    /**
+     * @return true once the object has been drawn, before that the draw transform is meaningless
+     */
+    public boolean isDrawn() {
+        return !Double.isNaN(lastX);
+    }
+
+    /**
+     * @return the transform from texture pixels to the canvas the object was last drawn with, not to be modified
+     */
+    public AffineTransform getDrawTransform() {
+        return tx;
+    }
+
+    /**
+     * @return the width of the texture in pixels, 0 if it could not be loaded
+     */
+    public double getWidth() {
+        return texture == null ? 0 : texture.getWidth();
+    }
 
-        AffineTransform tx = new AffineTransform();
-        tx.translate(body.getTransform().getTranslationX() * 100, body.getTransform().getTranslationY() * 100);
-        tx.rotate(body.getTransform().getRotation());
-        tx.scale(scale, scale * RoboticArm.Y_AXIS_SCALE);
-        tx.translate(offset.x, offset.y * RoboticArm.Y_AXIS_SCALE);
+    public double getHeight() {
+        return texture == null ? 0 : texture.getHeight();
+    }
 
-        tx.translate((double) -image.getWidth() / 2, (double) -image.getHeight() / 2);
-        g2d.drawImage(image, tx, null);
+    /**
+     * Releases the texture, the game object can not be drawn anymore afterwards.
+     */
+    public void dispose() {
+        TextureCache.release(imageFile);
     }
 
 }
@@ -12,6 +12,7 @@ import org.dyn4j.geometry.Convex;
 import org.dyn4j.geometry.Geometry;
 import org.dyn4j.geometry.MassType;
 import org.dyn4j.geometry.Transform;
+import roboticarm.simulation.PickHandler;
 
 import java.awt.geom.AffineTransform;
 import java.awt.geom.NoninvertibleTransformException;
@@ -20,25 +21,52 @@ import java.util.ArrayList;
 import java.util.List;
 
 /**
+ * Drags bodies with the primary mouse button. With a {@link PickIndex} the body under the pointer is found on the
+ * JavaFX application thread when the button is pressed and objects are highlighted on hover; without one, or when the
+ * press misses every textured object, the world is searched when the pick starts. Mouse events only store primitives.
+ *
  * @author Johan Talboom
  * @since 2017-03-08
  */
-public class MousePicker {
-    private Point2D mousePos = null;
+public class MousePicker implements PickHandler {
+    private static final double PICK_RADIUS = 0.1;
+    private boolean mouseDown = false;
+    private double mouseX;
+    private double mouseY;
+    private final Point2D.Double screenPoint = new Point2D.Double();
+    private final Point2D.Double worldPoint = new Point2D.Double();
+    private PickIndex pickIndex;
+    private Runnable hoverListener;
+    private int pressedBody = -1;
     private Body body;
     private MotorJoint joint;
+    private boolean targetActive = false;
+    private double targetX;
+    private double targetY;
+    private final Convex detectShape = Geometry.createCircle(PICK_RADIUS);
+    private final Transform detectTransform = new Transform();
+    private final List<DetectResult> detectResults = new ArrayList<>();
 
     public MousePicker(Node node) {
-        EventHandler<? super MouseEvent> oldMouseClicked = node.getOnMouseClicked();
+        EventHandler<? super MouseEvent> oldMousePressed = node.getOnMousePressed();
         EventHandler<? super MouseEvent> oldMouseReleased = node.getOnMouseReleased();
         EventHandler<? super MouseEvent> oldMouseDragged = node.getOnMouseDragged();
+        EventHandler<? super MouseEvent> oldMouseMoved = node.getOnMouseMoved();
+        EventHandler<? super MouseEvent> oldMouseExited = node.getOnMouseExited();
 
-        node.setOnMouseClicked(e -> {
-            if (oldMouseClicked != null) {
-                oldMouseClicked.handle(e);
+        node.setOnMousePressed(e -> {
+            if (oldMousePressed != null) {
+                oldMousePressed.handle(e);
             }
             if (e.getButton() == MouseButton.PRIMARY) {
-                this.mousePos = new Point2D.Double(e.getX(), e.getY());
+                this.mouseX = e.getX();
+                this.mouseY = e.getY();
+                this.mouseDown = true;
+                if (pickIndex != null) {
+                    // Untextured bodies are not in the index, a miss lets the pick search the world instead
+                    int hit = pickIndex.find(mouseX, mouseY);
+                    this.pressedBody = hit < 0 ? -1 : pickIndex.getBodyIndex(hit);
+                }
             }
         });
 
@@ -46,20 +74,109 @@ public class MousePicker {
             if (oldMouseReleased != null) {
                 oldMouseReleased.handle(e);
             }
-            this.mousePos = null;
+            if (e.getButton() == MouseButton.PRIMARY) {
+                this.mouseDown = false;
+                this.pressedBody = -1;
+            }
         });
 
         node.setOnMouseDragged(e -> {
             if (oldMouseDragged != null) {
                 oldMouseDragged.handle(e);
             }
-            this.mousePos = new Point2D.Double(e.getX(), e.getY());
+            this.mouseX = e.getX();
+            this.mouseY = e.getY();
+        });
+
+        node.setOnMouseMoved(e -> {
+            if (oldMouseMoved != null) {
+                oldMouseMoved.handle(e);
+            }
+            if (pickIndex != null && pickIndex.hover(e.getX(), e.getY()) && hoverListener != null) hoverListener.run();
         });
 
+        node.setOnMouseExited(e -> {
+            if (oldMouseExited != null) {
+                oldMouseExited.handle(e);
+            }
+            if (pickIndex != null && pickIndex.clearHover() && hoverListener != null) hoverListener.run();
+        });
+    }
+
+    /**
+     * Finds picked and hovered objects in the index instead of the world.
+     *
+     * @param hoverListener called when another object is hovered, to redraw the highlight, or null
+     */
+    public void setPickIndex(PickIndex pickIndex, Runnable hoverListener) {
+        this.pickIndex = pickIndex;
+        this.hoverListener = hoverListener;
     }
 
     public void update(World world, AffineTransform transform, double scale) {
-        if (mousePos == null) {
+        updateTarget(transform, scale);
+        int pickedBody = takePickedBody();
+        if (targetActive && pickedBody >= 0) pick(world, world.getBody(pickedBody), targetX, targetY);
+        else pick(world, targetActive, targetX, targetY);
+    }
+
+    /**
+     * Converts the mouse position to world coordinates, call this on the JavaFX application thread.
+     *
+     * @return true if the target changed and {@link #pick(World, boolean, double, double)} has work to do
+     */
+    public boolean updateTarget(AffineTransform transform, double scale) {
+        if (!mouseDown) {
+            boolean changed = targetActive;
+            targetActive = false;
+            return changed;
+        }
+
+        try {
+            screenPoint.setLocation(mouseX, mouseY);
+            transform.inverseTransform(screenPoint, worldPoint);
+            double x = worldPoint.getX() / scale;
+            double y = worldPoint.getY() / -scale;
+            boolean changed = !targetActive || x != targetX || y != targetY;
+            targetX = x;
+            targetY = y;
+            targetActive = true;
+            return changed;
+        } catch (NoninvertibleTransformException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * @return the index in the world of the body the pointer was pressed on, once per press, or -1 if the press missed
+     * the pick index or none is used, the pick then searches the world
+     */
+    public int takePickedBody() {
+        int pickedBody = pressedBody;
+        pressedBody = -1;
+        return pickedBody;
+    }
+
+    public boolean isTargetActive() {
+        return targetActive;
+    }
+
+    public double getTargetX() {
+        return targetX;
+    }
+
+    public double getTargetY() {
+        return targetY;
+    }
+
+    /**
+     * Moves, creates or removes the joint that drags the picked body towards the target, call this on the thread that
+     * steps the world. A pick started here searches the world for a body under the target.
+     */
+    @Override
+    public void pick(World world, boolean active, double x, double y) {
+        if (!active) {
             if (body != null) {
                 world.removeBody(body);
                 world.removeJoint(joint);
@@ -69,53 +186,57 @@ public class MousePicker {
             return;
         }
 
-        try {
-            Point2D localMouse = transform.inverseTransform(mousePos, null);
-            localMouse = new Point2D.Double(localMouse.getX() / scale, localMouse.getY() / -scale);
-
-            if (body == null && joint == null) {
-                Convex convex = Geometry.createCircle(0.1);
-                Transform tx = new Transform();
-                tx.translate(localMouse.getX(), localMouse.getY());
-
-                // detect bodies under the mouse pointer
-                List<DetectResult> results = new ArrayList<>();
-
-                boolean detect = world.detect(
-                        convex,
-                        tx,
-                        null, // no, don't filter anything using the Filters
-                        false, // include sensor fixtures
-                        false, // include inactive bodies
-                        false, // we don't need collision info
-                        results);
-
-                if (detect) {
-                    Body target = results.get(0).getBody();
-
-                    target.setAutoSleepingEnabled(false);
-                    target.setAsleep(false);
-                    body = new Body();
-                    body.setMass(MassType.INFINITE);
-                    body.addFixture(convex);
-                    body.getTransform().setTranslation(localMouse.getX(), localMouse.getY());
-                    world.addBody(body);
-
-                    joint = new MotorJoint(target, body);
-                    joint.setCollisionAllowed(false);
-                    joint.setMaximumForce(1000.0);
-                    joint.setMaximumTorque(0.01);
-
-                    world.addJoint(joint);
-                }
-            }
+        if (body == null && joint == null) {
+            detectTransform.identity();
+            detectTransform.translate(x, y);
+
+            // detect bodies under the mouse pointer
+            detectResults.clear();
+            boolean detect = world.detect(
+                    detectShape,
+                    detectTransform,
+                    null, // no, don't filter anything using the Filters
+                    false, // include sensor fixtures
+                    false, // include inactive bodies
+                    false, // we don't need collision info
+                    detectResults);
+
+            if (detect) pick(world, detectResults.get(0).getBody(), x, y);
+        }
 
-            if (body != null) {
-                body.getTransform().setTranslation(localMouse.getX(), localMouse.getY());
-            }
-        } catch (NoninvertibleTransformException e) {
-            e.printStackTrace();
+        if (body != null) {
+            body.getTransform().setTranslation(x, y);
         }
     }
 
+    @Override
+    public void pick(World world, Body target, double x, double y) {
+        pick(world, false, 0, 0);
+
+        target.setAutoSleepingEnabled(false);
+        target.setAsleep(false);
+        body = new Body();
+        body.setMass(MassType.INFINITE);
+        body.addFixture(Geometry.createCircle(PICK_RADIUS));
+        body.getTransform().setTranslation(x, y);
+        world.addBody(body);
+
+        joint = new MotorJoint(target, body);
+        joint.setCollisionAllowed(false);
+        joint.setMaximumForce(1000.0);
+        joint.setMaximumTorque(0.01);
+
+        world.addJoint(joint);
+    }
+
+    @Override
+    public Body getPickedBody() {
+        return joint == null ? null : joint.getBody1();
+    }
+
+    @Override
+    public Body getAnchorBody() {
+        return body;
+    }
+
 }
@@ -0,0 +1,41 @@
+package roboticarm.utility;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A flight recorder event for one timed phase of a frame or physics step. Only loaded when the runtime has JFR, which
+ * Java 8 has from update 262 on. No event is allocated while no recording wants it.
+ *
+ * @since 2026-10-17
+ */
+@Name("roboticarm.Phase")
+@Label("Robotic Arm Phase")
+@Category("Robotic Arm")
+@Description("Duration of one phase of a frame or physics step")
+@StackTrace(false)
+class PhaseEvent extends Event {
+    private static final EventType TYPE = EventType.getEventType(PhaseEvent.class);
+    @Label("Phase")
+    String phase;
+
+    // Event already has a duration field of its own, which spans from begin to commit
+    @Label("Elapsed")
+    @Timespan(Timespan.NANOSECONDS)
+    long elapsed;
+
+    static void emit(String phase, long duration) {
+        if (!TYPE.isEnabled()) return;
+        PhaseEvent event = new PhaseEvent();
+        event.phase = phase;
+        event.elapsed = duration;
+        event.commit();
+    }
+
+}
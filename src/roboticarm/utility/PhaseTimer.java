@@ -0,0 +1,85 @@
+package roboticarm.utility;
+
+import java.util.Arrays;
+
+/**
+ * Rolling statistics of the duration of one phase: the most recent samples are kept in a ring, from which the
+ * percentiles are computed on demand. Recording and reading may happen on different threads and do not allocate.
+ *
+ * @since 2026-10-17
+ */
+public class PhaseTimer {
+    private final long[] samples;
+    private final long[] sorted;
+    private int next = 0;
+    private int size = 0;
+    private long count = 0;
+    private long max = 0;
+
+    /**
+     * @param window the number of most recent samples the percentiles are computed over
+     */
+    public PhaseTimer(int window) {
+        this.samples = new long[window];
+        this.sorted = new long[window];
+    }
+
+    public synchronized void record(long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % samples.length;
+        size = Math.min(size + 1, samples.length);
+        count++;
+        if (nanos > max) max = nanos;
+    }
+
+    /**
+     * Sorts the current window so the percentiles can be read, call before the getters below.
+     */
+    public synchronized void update() {
+        System.arraycopy(samples, 0, sorted, 0, size);
+        Arrays.sort(sorted, 0, size);
+    }
+
+    /**
+     * @param percentile in the range [0, 100]
+     * @return the duration in nanoseconds below which the given share of the window lies, as of the last update
+     */
+    public synchronized long getPercentile(double percentile) {
+        if (size == 0) return 0;
+        int index = (int) Math.ceil(percentile / 100 * size) - 1;
+        return sorted[Math.max(0, Math.min(size - 1, index))];
+    }
+
+    /**
+     * @return the longest duration in the window, as of the last update
+     */
+    public synchronized long getWindowMax() {
+        return size == 0 ? 0 : sorted[size - 1];
+    }
+
+    public synchronized double getWindowMean() {
+        if (size == 0) return 0;
+        long sum = 0;
+        for (int i = 0; i < size; i++) sum += samples[i];
+        return (double) sum / size;
+    }
+
+    /**
+     * @return the longest duration since the timer was created or reset
+     */
+    public synchronized long getMax() {
+        return max;
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized void reset() {
+        next = 0;
+        size = 0;
+        count = 0;
+        max = 0;
+    }
+
+}
@@ -0,0 +1,158 @@
+package roboticarm.utility;
+
+import org.dyn4j.dynamics.World;
+
+import java.awt.geom.AffineTransform;
+import java.util.List;
+
+/**
+ * Answers which game object is under a point of the canvas, from the screen-space bounds of the textures as they were
+ * last drawn. The bounds are refreshed once per drawn frame, so hover and pick queries at mouse event rate only scan
+ * primitive arrays instead of going through the physics broadphase.
+ * <p>
+ * A point hits an object when it lies inside the rotated rectangle of its texture. Objects with a static body can
+ * not be picked. Everything runs on the JavaFX application thread.
+ *
+ * @since 2026-10-17
+ */
+public class PickIndex {
+    private final GameObject[] gameObjects;
+    private final int[] bodyIndices;
+    private final boolean[] pickable;
+    private final double[] minX;
+    private final double[] minY;
+    private final double[] maxX;
+    private final double[] maxY;
+    // The inverse of the draw transform of every object, from the canvas to texture pixels
+    private final double[] inverse;
+    private int hovered = -1;
+    private boolean hovering = false;
+    private double hoverX;
+    private double hoverY;
+
+    /**
+     * @param world the world holding the bodies of the game objects, only read here to look up their indices
+     */
+    public PickIndex(List<GameObject> gameObjects, World world) {
+        int count = gameObjects.size();
+        this.gameObjects = gameObjects.toArray(new GameObject[count]);
+        bodyIndices = new int[count];
+        pickable = new boolean[count];
+        minX = new double[count];
+        minY = new double[count];
+        maxX = new double[count];
+        maxY = new double[count];
+        inverse = new double[count * 6];
+        for (int i = 0; i < count; i++) {
+            bodyIndices[i] = world.getBodies().indexOf(this.gameObjects[i].getBody());
+            pickable[i] = !this.gameObjects[i].isStatic() && bodyIndices[i] >= 0;
+            minX[i] = Double.NaN;
+        }
+    }
+
+    /**
+     * Takes over the bounds of every object as it was last drawn, call this after drawing a frame.
+     */
+    public void update() {
+        for (int i = 0; i < gameObjects.length; i++) {
+            GameObject gameObject = gameObjects[i];
+            AffineTransform transform = gameObject.getDrawTransform();
+            double width = gameObject.getWidth();
+            double height = gameObject.getHeight();
+            double m00 = transform.getScaleX();
+            double m01 = transform.getShearX();
+            double m02 = transform.getTranslateX();
+            double m10 = transform.getShearY();
+            double m11 = transform.getScaleY();
+            double m12 = transform.getTranslateY();
+            double determinant = m00 * m11 - m01 * m10;
+            if (!gameObject.isDrawn() || width <= 0 || height <= 0 || determinant == 0) {
+                minX[i] = Double.NaN;
+                continue;
+            }
+
+            // The corners of the texture are (0, 0) to (width, height)
+            double x1 = m00 * width;
+            double y1 = m10 * width;
+            double x2 = m01 * height;
+            double y2 = m11 * height;
+            minX[i] = m02 + Math.min(0, x1) + Math.min(0, x2);
+            maxX[i] = m02 + Math.max(0, x1) + Math.max(0, x2);
+            minY[i] = m12 + Math.min(0, y1) + Math.min(0, y2);
+            maxY[i] = m12 + Math.max(0, y1) + Math.max(0, y2);
+
+            int offset = i * 6;
+            inverse[offset] = m11 / determinant;
+            inverse[offset + 1] = -m01 / determinant;
+            inverse[offset + 2] = (m01 * m12 - m11 * m02) / determinant;
+            inverse[offset + 3] = -m10 / determinant;
+            inverse[offset + 4] = m00 / determinant;
+            inverse[offset + 5] = (m10 * m02 - m00 * m12) / determinant;
+        }
+        if (hovering) hovered = find(hoverX, hoverY);
+    }
+
+    /**
+     * @return the index of the topmost pickable object at the canvas position, or -1 if there is none
+     */
+    public int find(double x, double y) {
+        // Objects drawn later lie on top
+        for (int i = gameObjects.length - 1; i >= 0; i--) {
+            if (!pickable[i] || !(x >= minX[i] && x <= maxX[i] && y >= minY[i] && y <= maxY[i])) continue;
+            int offset = i * 6;
+            double u = inverse[offset] * x + inverse[offset + 1] * y + inverse[offset + 2];
+            double v = inverse[offset + 3] * x + inverse[offset + 4] * y + inverse[offset + 5];
+            if (u >= 0 && u <= gameObjects[i].getWidth() && v >= 0 && v <= gameObjects[i].getHeight()) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Moves the hover position, the hovered object is looked up again after every {@link #update()}.
+     *
+     * @return true if another object is hovered now
+     */
+    public boolean hover(double x, double y) {
+        hovering = true;
+        hoverX = x;
+        hoverY = y;
+        int previous = hovered;
+        hovered = find(x, y);
+        return hovered != previous;
+    }
+
+    /**
+     * Stops hovering, for when the mouse left the canvas.
+     *
+     * @return true if an object was hovered
+     */
+    public boolean clearHover() {
+        boolean changed = hovered >= 0;
+        hovering = false;
+        hovered = -1;
+        return changed;
+    }
+
+    /**
+     * @return the index of the hovered object, or -1
+     */
+    public int getHovered() {
+        return hovered;
+    }
+
+    public GameObject getGameObject(int index) {
+        return gameObjects[index];
+    }
+
+    /**
+     * @return the index of the body of the object in the world
+     */
+    public int getBodyIndex(int index) {
+        return bodyIndices[index];
+    }
+
+    public int size() {
+        return gameObjects.length;
+    }
+
+}
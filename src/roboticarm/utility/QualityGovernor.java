@@ -0,0 +1,279 @@
+package roboticarm.utility;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Holds the frame time within a budget by stepping through {@link Level quality levels}. Every frame reports the time
+ * since the previous frame, as seen by the {@code AnimationTimer}, and the time the frame kept the machine busy. Once
+ * per window of frames the 90th percentiles are compared with the budget:
+ * <ul>
+ * <li>a window over budget counts towards stepping down, which happens after two in a row;</li>
+ * <li>a window far under budget counts towards stepping back up, which takes several in a row;</li>
+ * <li>after a change the next window is skipped, so the new level is measured on its own.</li>
+ * </ul>
+ * A step up that is followed by a step down soon after doubles the number of quiet windows the next step up needs, so
+ * a machine right at the edge of a level settles instead of flipping between two levels. Every change is logged.
+ *
+ * @since 2026-10-17
+ */
+public class QualityGovernor {
+    /**
+     * From full quality to the cheapest level, the governor never goes past the ends.
+     */
+    public static final Level[] LEVELS = {
+            new Level("full", 1, 1, DebugDraw.Detail.FULL),
+            new Level("high", 0.75, 1, DebugDraw.Detail.JOINTS),
+            new Level("medium", 0.5, 0.75, DebugDraw.Detail.JOINTS),
+            new Level("low", 0.5, 0.5, DebugDraw.Detail.OUTLINES),
+            new Level("minimal", 0.25, 0.5, DebugDraw.Detail.OUTLINES)
+    };
+    private static final int WINDOW = 60;
+    private static final int PERCENTILE = 90;
+    // Frame intervals jitter around the refresh interval, only clearly missed frames count as over budget
+    private static final double INTERVAL_TOLERANCE = 1.2;
+    private static final double HEADROOM = 0.5;
+    private static final int DOWNGRADE_WINDOWS = 2;
+    private static final int UPGRADE_WINDOWS = 5;
+    private static final int MAX_UPGRADE_WINDOWS = 80;
+    private final long budgetNanos;
+    private final Consumer<Level> listener;
+    private final long[] intervals = new long[WINDOW];
+    private final long[] work = new long[WINDOW];
+    private final List<Adjustment> log = new ArrayList<>();
+    private int count = 0;
+    private long lastFrame = -1;
+    private long firstFrame = -1;
+    private int level = 0;
+    private long windows = 0;
+    private int overWindows = 0;
+    private int underWindows = 0;
+    private boolean settling = false;
+    private int upgradeWindows = UPGRADE_WINDOWS;
+    private long lastUpgradeWindow = -1;
+    private boolean enabled = true;
+
+    /**
+     * @param listener applies a level, called on the thread that reports the frames
+     */
+    public QualityGovernor(double budgetMillis, Consumer<Level> listener) {
+        if (budgetMillis <= 0) throw new IllegalArgumentException("The frame budget must be positive: " + budgetMillis);
+        this.budgetNanos = (long) (budgetMillis * 1e6);
+        this.listener = listener;
+    }
+
+    /**
+     * Reports a frame.
+     *
+     * @param now       the timestamp of the frame in nanoseconds, as passed to the {@code AnimationTimer}
+     * @param workNanos the time the frame kept the machine busy, including simulation steps on other threads
+     */
+    public void frame(long now, long workNanos) {
+        if (!enabled) return;
+        if (lastFrame < 0) {
+            lastFrame = now;
+            firstFrame = now;
+            return;
+        }
+        intervals[count] = now - lastFrame;
+        work[count] = workNanos;
+        lastFrame = now;
+        if (++count == WINDOW) {
+            count = 0;
+            evaluate(now);
+        }
+    }
+
+    private void evaluate(long now) {
+        windows++;
+        if (settling) {
+            settling = false;
+            return;
+        }
+        long interval = percentile(intervals);
+        long busy = percentile(work);
+        boolean over = interval > budgetNanos * INTERVAL_TOLERANCE || busy > budgetNanos;
+        boolean under = !over && busy < budgetNanos * HEADROOM;
+        overWindows = over ? overWindows + 1 : 0;
+        underWindows = under ? underWindows + 1 : 0;
+
+        if (overWindows >= DOWNGRADE_WINDOWS && level < LEVELS.length - 1) {
+            // Stepping down soon after stepping up means the level above does not fit, wait longer next time
+            if (lastUpgradeWindow >= 0 && windows - lastUpgradeWindow <= 2 * upgradeWindows) {
+                upgradeWindows = Math.min(MAX_UPGRADE_WINDOWS, 2 * upgradeWindows);
+            }
+            change(level + 1, now, interval, busy);
+        } else if (underWindows >= upgradeWindows && level > 0) {
+            lastUpgradeWindow = windows;
+            change(level - 1, now, interval, busy);
+        }
+    }
+
+    private void change(int next, long now, long interval, long busy) {
+        Adjustment adjustment = new Adjustment((now - firstFrame) / 1e9, LEVELS[level], LEVELS[next], interval / 1e6, busy / 1e6);
+        log.add(adjustment);
+        System.out.println(adjustment);
+        level = next;
+        overWindows = 0;
+        underWindows = 0;
+        settling = true;
+        listener.accept(LEVELS[level]);
+    }
+
+    private static long percentile(long[] values) {
+        Arrays.sort(values);
+        return values[(values.length - 1) * PERCENTILE / 100];
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * A disabled governor goes back to full quality and ignores frames until it is enabled again.
+     */
+    public void setEnabled(boolean enabled) {
+        if (enabled == this.enabled) return;
+        this.enabled = enabled;
+        count = 0;
+        lastFrame = -1;
+        overWindows = 0;
+        underWindows = 0;
+        if (!enabled && level != 0) {
+            level = 0;
+            listener.accept(LEVELS[level]);
+        }
+    }
+
+    public Level getLevel() {
+        return LEVELS[level];
+    }
+
+    public double getBudgetMillis() {
+        return budgetNanos / 1e6;
+    }
+
+    /**
+     * @return every change so far, oldest first
+     */
+    public List<Adjustment> getLog() {
+        return Collections.unmodifiableList(log);
+    }
+
+    /**
+     * Writes the changes to a CSV file, one line per change.
+     */
+    public void exportLog(Path file) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("time_s,from,to,frame_p90_ms,work_p90_ms,budget_ms\n");
+            for (Adjustment adjustment : log) {
+                writer.write(String.format(Locale.ROOT, "%.2f,%s,%s,%.2f,%.2f,%.2f\n", adjustment.getTime(),
+                        adjustment.getFrom().getName(), adjustment.getTo().getName(), adjustment.getFrameMillis(),
+                        adjustment.getWorkMillis(), getBudgetMillis()));
+            }
+        }
+    }
+
+    /**
+     * What a quality level trades away: solver iterations, physics steps per second and debug overlay detail. The
+     * scales apply to the values the application was configured with.
+     */
+    public static class Level {
+        private final String name;
+        private final double iterationScale;
+        private final double stepRateScale;
+        private final DebugDraw.Detail debugDetail;
+
+        public Level(String name, double iterationScale, double stepRateScale, DebugDraw.Detail debugDetail) {
+            this.name = name;
+            this.iterationScale = iterationScale;
+            this.stepRateScale = stepRateScale;
+            this.debugDetail = debugDetail;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the configured number of solver iterations scaled to this level, at least one
+         */
+        public int scaleIterations(int iterations) {
+            return Math.max(1, (int) Math.round(iterations * iterationScale));
+        }
+
+        public double getStepRateScale() {
+            return stepRateScale;
+        }
+
+        public DebugDraw.Detail getDebugDetail() {
+            return debugDetail;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    public static class Adjustment {
+        private final double time;
+        private final Level from;
+        private final Level to;
+        private final double frameMillis;
+        private final double workMillis;
+
+        private Adjustment(double time, Level from, Level to, double frameMillis, double workMillis) {
+            this.time = time;
+            this.from = from;
+            this.to = to;
+            this.frameMillis = frameMillis;
+            this.workMillis = workMillis;
+        }
+
+        /**
+         * @return the seconds since the first frame
+         */
+        public double getTime() {
+            return time;
+        }
+
+        public Level getFrom() {
+            return from;
+        }
+
+        public Level getTo() {
+            return to;
+        }
+
+        /**
+         * @return the 90th percentile of the frame interval in the window that caused the change
+         */
+        public double getFrameMillis() {
+            return frameMillis;
+        }
+
+        /**
+         * @return the 90th percentile of the busy time per frame in the window that caused the change
+         */
+        public double getWorkMillis() {
+            return workMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%.2f s: quality %s -> %s (frame p90 %.2f ms, work p90 %.2f ms)",
+                    time, from, to, frameMillis, workMillis);
+        }
+    }
+
+}
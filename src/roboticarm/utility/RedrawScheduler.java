@@ -0,0 +1,51 @@
+package roboticarm.utility;
+
+/**
+ * Decides once per pulse whether the scene has to be painted. A frame is painted when a redraw was requested (camera
+ * change, resize, debug toggle) or when the scene itself changed; any number of requests between two pulses results in
+ * a single paint.
+ *
+ * @since 2026-10-17
+ */
+public class RedrawScheduler {
+    private final SceneRenderer renderer;
+    private boolean redrawRequested = true;
+    private long paintedFrames = 0;
+    private long skippedFrames = 0;
+
+    public RedrawScheduler(SceneRenderer renderer) {
+        this.renderer = renderer;
+    }
+
+    /**
+     * Marks the frame dirty, the paint happens on the next pulse.
+     */
+    public void requestRedraw() {
+        redrawRequested = true;
+    }
+
+    /**
+     * Paints the scene if it is dirty, call this once per pulse.
+     *
+     * @return true if the scene was painted
+     */
+    public boolean pulse(double alpha) {
+        if (!redrawRequested && !renderer.hasSceneChanged(alpha)) {
+            skippedFrames++;
+            return false;
+        }
+        redrawRequested = false;
+        renderer.draw(alpha);
+        paintedFrames++;
+        return true;
+    }
+
+    public long getPaintedFrames() {
+        return paintedFrames;
+    }
+
+    public long getSkippedFrames() {
+        return skippedFrames;
+    }
+
+}
@@ -0,0 +1,194 @@
+package roboticarm.utility;
+
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+import org.dyn4j.dynamics.Body;
+import org.dyn4j.dynamics.World;
+import org.jfree.fx.FXGraphics2D;
+import roboticarm.RoboticArm;
+import roboticarm.simulation.PoseSnapshot;
+
+import java.awt.geom.AffineTransform;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Draws a frame of the scene: the background, the textured game objects and optionally the debug overlay. Clearing
+ * and textures go straight to the {@link GraphicsContext} and every transform is reused, so a frame without the debug
+ * overlay does not allocate.
+ * <p>
+ * When a static layer canvas is given, the background and every game object with a static body are painted on that
+ * canvas only when the view changes, and the main canvas is cleared to transparent and only holds the moving objects.
+ *
+ * @since 2026-10-17
+ */
+public class SceneRenderer {
+    private static final Color BACKGROUND = Color.WHITE;
+    private static final Color HIGHLIGHT = Color.DODGERBLUE;
+    private static final double HIGHLIGHT_WIDTH = 3;
+    private final Canvas canvas;
+    private final GraphicsContext gc;
+    private final FXGraphics2D g2d;
+    private final Camera camera;
+    private final World world;
+    private final List<GameObject> dynamicObjects = new ArrayList<>();
+    private final StaticLayer staticLayer;
+    private final int[] dynamicBodyIndices;
+    private PoseSnapshot snapshot;
+    private long snapshotStep = -1;
+    private final double debugScale;
+    private final AffineTransform viewTransform = new AffineTransform();
+    private boolean debugEnabled = false;
+    private DebugDraw.Detail debugDetail = DebugDraw.Detail.FULL;
+    private FrameProfiler profiler = FrameProfiler.NONE;
+    private PickIndex pickIndex;
+
+    public SceneRenderer(Canvas canvas, FXGraphics2D g2d, Camera camera, World world, List<GameObject> gameObjects, double debugScale) {
+        this(canvas, null, g2d, camera, world, gameObjects, debugScale);
+    }
+
+    /**
+     * @param staticCanvas the canvas below the main canvas for the static layer, or null to draw everything each frame.
+     * Game objects are classified as static when the renderer is created.
+     */
+    public SceneRenderer(Canvas canvas, Canvas staticCanvas, FXGraphics2D g2d, Camera camera, World world, List<GameObject> gameObjects, double debugScale) {
+        this.canvas = canvas;
+        this.gc = canvas.getGraphicsContext2D();
+        this.g2d = g2d;
+        this.camera = camera;
+        this.world = world;
+        this.debugScale = debugScale;
+
+        if (staticCanvas == null) {
+            dynamicObjects.addAll(gameObjects);
+            staticLayer = null;
+        } else {
+            List<GameObject> staticObjects = new ArrayList<>();
+            for (GameObject gameObject : gameObjects) {
+                if (gameObject.isStatic()) staticObjects.add(gameObject);
+                else dynamicObjects.add(gameObject);
+            }
+            staticLayer = new StaticLayer(staticCanvas, BACKGROUND, staticObjects);
+        }
+
+        dynamicBodyIndices = new int[dynamicObjects.size()];
+        for (int i = 0; i < dynamicObjects.size(); i++) dynamicBodyIndices[i] = world.getBodies().indexOf(dynamicObjects.get(i).getBody());
+    }
+
+    /**
+     * Switches the renderer to poses from a snapshot, for when the world is stepped on another thread. The world
+     * is not read anymore after the first call.
+     */
+    public void applySnapshot(PoseSnapshot snapshot) {
+        if (this.snapshot != snapshot || snapshot.getStep() != snapshotStep) {
+            for (int i = 0; i < dynamicObjects.size(); i++) dynamicObjects.get(i).updateTransform(snapshot, dynamicBodyIndices[i]);
+            snapshotStep = snapshot.getStep();
+        }
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * @param alpha the interpolation factor between the previous and the current physics step
+     */
+    public void draw(double alpha) {
+        viewTransform.setTransform(camera.getTransform((int) canvas.getWidth(), (int) canvas.getHeight()));
+        viewTransform.scale(1, RoboticArm.Y_AXIS_SCALE);
+
+        // Clearing the whole canvas also lets it drop the draw commands of the previous frame
+        long start = profiler.begin();
+        gc.setTransform(1, 0, 0, 1, 0, 0);
+        if (staticLayer == null) {
+            gc.setFill(BACKGROUND);
+            gc.fillRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        } else {
+            gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+            staticLayer.update(viewTransform);
+        }
+        profiler.end(FrameProfiler.Phase.CLEAR, start);
+
+        // Draw, indexed so no iterator is created
+        start = profiler.begin();
+        for (int i = 0; i < dynamicObjects.size(); i++) dynamicObjects.get(i).draw(gc, viewTransform, alpha);
+        if (pickIndex != null) {
+            pickIndex.update();
+            if (pickIndex.getHovered() >= 0) {
+                gc.setStroke(HIGHLIGHT);
+                gc.setLineWidth(HIGHLIGHT_WIDTH);
+                pickIndex.getGameObject(pickIndex.getHovered()).drawHighlight(gc);
+            }
+        }
+        profiler.end(FrameProfiler.Phase.OBJECTS, start);
+        if (debugEnabled) {
+            start = profiler.begin();
+            g2d.setTransform(viewTransform);
+            g2d.setColor(java.awt.Color.BLUE);
+            if (snapshot != null) DebugDraw.draw(g2d, snapshot, viewTransform, debugScale, alpha, debugDetail);
+            else DebugDraw.draw(g2d, world, viewTransform, debugScale, debugDetail);
+            profiler.end(FrameProfiler.Phase.DEBUG, start);
+        }
+
+        gc.setTransform(1, 0, 0, 1, 0, 0);
+    }
+
+    /**
+     * @return true if a game object moved since it was last drawn, or, with the debug overlay on, if any dynamic body
+     * in the world is awake
+     */
+    public boolean hasSceneChanged(double alpha) {
+        for (int i = 0; i < dynamicObjects.size(); i++) {
+            if (dynamicObjects.get(i).hasPoseChanged(alpha)) return true;
+        }
+        if (debugEnabled && snapshot != null) return snapshot.getAwakeBodies() > 0;
+        if (debugEnabled) {
+            for (int i = 0; i < world.getBodyCount(); i++) {
+                Body body = world.getBody(i);
+                if (!body.isAsleep() && !body.isStatic()) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Refreshes the index with the drawn bounds after every frame and outlines its hovered object.
+     */
+    public void setPickIndex(PickIndex pickIndex) {
+        this.pickIndex = pickIndex;
+    }
+
+    public void setProfiler(FrameProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    public boolean isDebugEnabled() {
+        return debugEnabled;
+    }
+
+    public void setDebugEnabled(boolean debugEnabled) {
+        this.debugEnabled = debugEnabled;
+    }
+
+    public DebugDraw.Detail getDebugDetail() {
+        return debugDetail;
+    }
+
+    public void setDebugDetail(DebugDraw.Detail debugDetail) {
+        this.debugDetail = debugDetail;
+    }
+
+    /**
+     * @return the static layer, or null when everything is drawn on the main canvas
+     */
+    public StaticLayer getStaticLayer() {
+        return staticLayer;
+    }
+
+    public Camera getCamera() {
+        return camera;
+    }
+
+    public Canvas getCanvas() {
+        return canvas;
+    }
+
+}
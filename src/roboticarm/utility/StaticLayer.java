@@ -0,0 +1,69 @@
+package roboticarm.utility;
+
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+
+import java.awt.geom.AffineTransform;
+import java.util.List;
+
+/**
+ * A canvas below the main canvas holding the background and every game object whose body never moves. It is only
+ * repainted when the view transform or the size of the canvas changes, so static scenery costs nothing per frame.
+ *
+ * @since 2026-10-17
+ */
+public class StaticLayer {
+    private final Canvas canvas;
+    private final GraphicsContext gc;
+    private final Color background;
+    private final List<GameObject> staticObjects;
+    private final AffineTransform lastViewTransform = new AffineTransform();
+    private double lastWidth = -1;
+    private double lastHeight = -1;
+    private boolean valid = false;
+    private long rebuilds = 0;
+
+    public StaticLayer(Canvas canvas, Color background, List<GameObject> staticObjects) {
+        this.canvas = canvas;
+        this.gc = canvas.getGraphicsContext2D();
+        this.background = background;
+        this.staticObjects = staticObjects;
+    }
+
+    /**
+     * Repaints the layer if the view or the canvas size changed since the last paint.
+     *
+     * @return true if the layer was repainted
+     */
+    public boolean update(AffineTransform viewTransform) {
+        double width = canvas.getWidth();
+        double height = canvas.getHeight();
+        if (valid && width == lastWidth && height == lastHeight && viewTransform.equals(lastViewTransform)) return false;
+
+        gc.setTransform(1, 0, 0, 1, 0, 0);
+        gc.setFill(background);
+        gc.fillRect(0, 0, width, height);
+        for (int i = 0; i < staticObjects.size(); i++) staticObjects.get(i).draw(gc, viewTransform, 1);
+        gc.setTransform(1, 0, 0, 1, 0, 0);
+
+        lastViewTransform.setTransform(viewTransform);
+        lastWidth = width;
+        lastHeight = height;
+        valid = true;
+        rebuilds++;
+        return true;
+    }
+
+    /**
+     * Forces a repaint on the next update, for example when static objects were added.
+     */
+    public void invalidate() {
+        valid = false;
+    }
+
+    public long getRebuilds() {
+        return rebuilds;
+    }
+
+}
@@ -0,0 +1,82 @@
+package roboticarm.utility;
+
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.Paint;
+
+/**
+ * A rectangular region of an image, either a whole texture or a sub-rectangle of a {@link TextureAtlas}. A
+ * {@link #placeholder(double, double) placeholder} has no image and is drawn as a plain rectangle.
+ *
+ * @since 2026-10-17
+ */
+public class Texture {
+    private static final Color PLACEHOLDER_COLOR = Color.gray(0.6, 0.5);
+    private final Image image;
+    private final double x;
+    private final double y;
+    private final double width;
+    private final double height;
+
+    public Texture(Image image) {
+        this(image, 0, 0, image.getWidth(), image.getHeight());
+    }
+
+    public Texture(Image image, double x, double y, double width, double height) {
+        this.image = image;
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Stands in for a texture that is still being decoded, so it takes up the same space.
+     */
+    public static Texture placeholder(double width, double height) {
+        return new Texture(null, 0, 0, width, height);
+    }
+
+    /**
+     * Draws the region with its top left corner at the origin of the current transform.
+     */
+    public void draw(GraphicsContext gc) {
+        if (image == null) {
+            Paint fill = gc.getFill();
+            gc.setFill(PLACEHOLDER_COLOR);
+            gc.fillRect(0, 0, width, height);
+            gc.setFill(fill);
+            return;
+        }
+        gc.drawImage(image, x, y, width, height, 0, 0, width, height);
+    }
+
+    public boolean isPlaceholder() {
+        return image == null;
+    }
+
+    /**
+     * @return the image, null for a placeholder
+     */
+    public Image getImage() {
+        return image;
+    }
+
+    public double getX() {
+        return x;
+    }
+
+    public double getY() {
+        return y;
+    }
+
+    public double getWidth() {
+        return width;
+    }
+
+    public double getHeight() {
+        return height;
+    }
+
+}
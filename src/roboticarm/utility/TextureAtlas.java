@@ -0,0 +1,88 @@
+package roboticarm.utility;
+
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Packs several textures into a single image, each texture becomes a sub-rectangle of it. The textures are placed on
+ * shelves from tallest to shortest, with a transparent border so filtering never bleeds between neighbours.
+ *
+ * @since 2026-10-17
+ */
+public class TextureAtlas {
+    /**
+     * The textures in {@code resources/textures} that make up the arm.
+     */
+    public static final List<String> ARM_TEXTURES = Collections.unmodifiableList(Arrays.asList(
+            "base-lower-extended.png", "base-upper.png", "segment-large.png", "segment-small.png", "segment-head.png"));
+    private static final int PADDING = 1;
+    private final Image image;
+    private final Map<String, Texture> textures;
+
+    private TextureAtlas(Image image, Map<String, Texture> textures) {
+        this.image = image;
+        this.textures = textures;
+    }
+
+    public static TextureAtlas build(List<String> names, int maxWidth) throws IOException {
+        List<String> sorted = new ArrayList<>(names);
+        Map<String, Image> images = new HashMap<>();
+        for (String name : sorted) images.put(name, TextureCache.decode(name));
+        sorted.sort((a, b) -> Double.compare(images.get(b).getHeight(), images.get(a).getHeight()));
+
+        // Place the textures on shelves
+        Map<String, int[]> positions = new HashMap<>();
+        int shelfX = 0;
+        int shelfY = 0;
+        int shelfHeight = 0;
+        int width = 0;
+        for (String name : sorted) {
+            Image image = images.get(name);
+            int w = (int) image.getWidth() + PADDING * 2;
+            int h = (int) image.getHeight() + PADDING * 2;
+            if (w > maxWidth) throw new IllegalArgumentException(name + " is wider than the atlas");
+            if (shelfX + w > maxWidth) {
+                shelfY += shelfHeight;
+                shelfX = 0;
+                shelfHeight = 0;
+            }
+            positions.put(name, new int[]{shelfX + PADDING, shelfY + PADDING});
+            shelfX += w;
+            shelfHeight = Math.max(shelfHeight, h);
+            width = Math.max(width, shelfX);
+        }
+
+        // Copy the pixels into one image
+        WritableImage atlas = new WritableImage(width, shelfY + shelfHeight);
+        PixelWriter writer = atlas.getPixelWriter();
+        Map<String, Texture> textures = new HashMap<>();
+        for (String name : sorted) {
+            Image image = images.get(name);
+            int[] position = positions.get(name);
+            writer.setPixels(position[0], position[1], (int) image.getWidth(), (int) image.getHeight(), image.getPixelReader(), 0, 0);
+            textures.put(name, new Texture(atlas, position[0], position[1], image.getWidth(), image.getHeight()));
+        }
+        return new TextureAtlas(atlas, textures);
+    }
+
+    /**
+     * @return the region of the atlas holding the texture, or null when the atlas does not contain it
+     */
+    public Texture getTexture(String name) {
+        return textures.get(name);
+    }
+
+    public Image getImage() {
+        return image;
+    }
+
+}
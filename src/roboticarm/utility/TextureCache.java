@@ -0,0 +1,154 @@
+package roboticarm.utility;
+
+import javafx.scene.image.Image;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide cache of decoded textures, keyed by their file name in {@code resources/textures}. Every
+ * {@link #acquire(String)} must be paired with a {@link #release(String)}; a texture is dropped from the cache once
+ * nothing references it anymore. When an atlas is installed, textures it contains are served from the atlas instead
+ * of being decoded on their own.
+ * <p>
+ * Textures can also be {@link #acquireAsync(String, Executor) decoded on an executor}, so several decode at once while
+ * the caller goes on; the size of a PNG is read from its header right away for a {@link #createPlaceholder(String)
+ * placeholder} of the same size.
+ *
+ * @since 2026-10-17
+ */
+public final class TextureCache {
+    public static final String RESOURCE_PATH_PREFIX = "textures/";
+    private static final Map<String, Entry> entries = new HashMap<>();
+    private static final AtomicLong decodeNanos = new AtomicLong();
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final int PNG_HEADER_CHUNK = 0x49484452;
+    private static TextureAtlas atlas;
+
+    private TextureCache() {
+    }
+
+    /**
+     * Decodes the texture on the calling thread if it is not cached yet.
+     *
+     * @return the texture, or null when it could not be loaded. It must be released either way.
+     */
+    public static Texture acquire(String name) {
+        try {
+            return acquireAsync(name, Runnable::run).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            (cause instanceof UncheckedIOException ? cause.getCause() : cause).printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Decodes the texture on the executor if it is not cached or being decoded yet. The texture must be released
+     * even when decoding fails.
+     */
+    public static synchronized CompletableFuture<Texture> acquireAsync(String name, Executor executor) {
+        Entry entry = entries.get(name);
+        if (entry == null) {
+            Texture texture = atlas != null ? atlas.getTexture(name) : null;
+            CompletableFuture<Texture> future = texture != null ? CompletableFuture.completedFuture(texture)
+                    : CompletableFuture.supplyAsync(() -> decodeTexture(name), executor);
+            entry = new Entry(future);
+            entries.put(name, entry);
+        }
+        entry.references++;
+        return entry.future;
+    }
+
+    public static synchronized void release(String name) {
+        Entry entry = entries.get(name);
+        if (entry == null) throw new IllegalStateException("Texture was not acquired: " + name);
+        if (--entry.references == 0) entries.remove(name);
+    }
+
+    public static synchronized int getReferenceCount(String name) {
+        Entry entry = entries.get(name);
+        return entry == null ? 0 : entry.references;
+    }
+
+    /**
+     * Serves the textures of the atlas to every following {@link #acquire(String)}. Textures that are already cached
+     * keep their own image until they are released.
+     */
+    public static synchronized void setAtlas(TextureAtlas atlas) {
+        TextureCache.atlas = atlas;
+    }
+
+    private static Texture decodeTexture(String name) {
+        long start = System.nanoTime();
+        try {
+            return new Texture(decode(name));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            decodeNanos.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * @return the time spent decoding cached textures so far, summed over all threads, in nanoseconds
+     */
+    public static long getDecodeNanos() {
+        return decodeNanos.get();
+    }
+
+    /**
+     * @return an untextured region of the size of the texture as given in its PNG header, or null when the texture is
+     * in the atlas or the header cannot be read
+     */
+    public static Texture createPlaceholder(String name) {
+        synchronized (TextureCache.class) {
+            if (atlas != null && atlas.getTexture(name) != null) return null;
+        }
+        try (InputStream inputStream = TextureCache.class.getClassLoader().getResourceAsStream(RESOURCE_PATH_PREFIX + name)) {
+            if (inputStream == null) return null;
+            DataInputStream input = new DataInputStream(inputStream);
+            byte[] signature = new byte[PNG_SIGNATURE.length];
+            input.readFully(signature);
+            for (int i = 0; i < signature.length; i++) {
+                if (signature[i] != PNG_SIGNATURE[i]) return null;
+            }
+            // The header chunk always comes first: length, type, width and height
+            input.readInt();
+            if (input.readInt() != PNG_HEADER_CHUNK) return null;
+            return Texture.placeholder(input.readInt(), input.readInt());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Decodes a texture without caching it.
+     */
+    public static Image decode(String name) throws IOException {
+        try (InputStream inputStream = TextureCache.class.getClassLoader().getResourceAsStream(RESOURCE_PATH_PREFIX + name)) {
+            if (inputStream == null) throw new IOException("Texture not found: " + name);
+            Image image = new Image(inputStream);
+            if (image.isError()) throw new IOException("Could not decode " + name, image.getException());
+            return image;
+        }
+    }
+
+    private static class Entry {
+        private final CompletableFuture<Texture> future;
+        private int references;
+
+        private Entry(CompletableFuture<Texture> future) {
+            this.future = future;
+        }
+    }
+
+}